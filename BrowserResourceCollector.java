@@ -0,0 +1,279 @@
+package com.yourcompany.hooks;
+
+import com.yourcompany.utils.PerformanceMetrics;
+import org.openqa.selenium.HasCapabilities;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chromium.HasCdp;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Samples browser resource usage after a step: JS heap, DOM node and listener
+ * counts from CDP {@code Performance.getMetrics} (falling back to
+ * {@code performance.memory} via {@link PageMeasurementAgent} on non-CDP drivers), and the CPU time and
+ * RSS of this session's renderer processes. The renderers are listed by CDP
+ * {@code SystemInfo.getProcessInfo}, or found under the session's browser process
+ * (matched by its user data directory); on Linux their usage is read from /proc,
+ * but only for processes that descend from that browser process, so a pid reported
+ * by a remote browser never picks up a local renderer of another session.
+ * Renderers of other sessions in the same JVM are never counted.
+ */
+public class BrowserResourceCollector {
+    
+    private static final Path PROC = Paths.get("/proc");
+    
+    // /proc/<pid>/stat times are in USER_HZ ticks, which is 100 on every mainstream Linux build
+    private static final long CLOCK_TICKS_PER_SECOND = 100;
+    
+    private final WebDriver driver;
+    private boolean performanceDomainEnabled = false;
+    private boolean cdpAvailable;
+    private boolean processInfoAvailable = true;
+    private ProcessHandle browserProcess;
+    private boolean rendererLookupReported = false;
+    
+    public BrowserResourceCollector(WebDriver driver) {
+        this.driver = driver;
+        this.cdpAvailable = driver instanceof HasCdp;
+    }
+    
+    /**
+     * Fill the resource fields of {@code metrics}; fields that cannot be read stay at -1.
+     * Without CDP the page values come from the measurement agent's flush for the step.
+     */
+    public void collect(PerformanceMetrics metrics, PageMeasurementAgent.Flush pageFlush) {
+        if (cdpAvailable) {
+            try {
+                collectFromCdp(metrics);
+            } catch (Exception e) {
+                // Remote or non-Chromium session: use the page API from now on
+                System.err.println("⚠️ CDP resource metrics unavailable: " + e.getMessage());
+                cdpAvailable = false;
+            }
+        }
+        if (!cdpAvailable) {
+            collectFromPage(metrics, pageFlush);
+        }
+        collectRendererProcesses(metrics);
+    }
+    
+    @SuppressWarnings("unchecked")
+    private void collectFromCdp(PerformanceMetrics metrics) {
+        HasCdp cdp = (HasCdp) driver;
+        if (!performanceDomainEnabled) {
+            cdp.executeCdpCommand("Performance.enable", Collections.emptyMap());
+            performanceDomainEnabled = true;
+        }
+        
+        Map<String, Object> result = cdp.executeCdpCommand("Performance.getMetrics", Collections.emptyMap());
+        for (Map<String, Object> entry : (List<Map<String, Object>>) result.get("metrics")) {
+            long value = ((Number) entry.get("value")).longValue();
+            switch (String.valueOf(entry.get("name"))) {
+                case "JSHeapUsedSize":
+                    metrics.setJsHeapUsedBytes(value);
+                    break;
+                case "JSHeapTotalSize":
+                    metrics.setJsHeapTotalBytes(value);
+                    break;
+                case "Nodes":
+                    metrics.setDomNodes(value);
+                    break;
+                case "JSEventListeners":
+                    metrics.setEventListeners(value);
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+    
+    private void collectFromPage(PerformanceMetrics metrics, PageMeasurementAgent.Flush pageFlush) {
+        long[] memory = pageFlush.getMemory();
+        if (memory != null) {
+            metrics.setJsHeapUsedBytes(memory[0]);
+            metrics.setJsHeapTotalBytes(memory[1]);
+            metrics.setDomNodes(memory[2]);
+        }
+    }
+    
+    /**
+     * Sum CPU time and RSS over this session's renderer processes
+     */
+    private void collectRendererProcesses(PerformanceMetrics metrics) {
+        List<Renderer> renderers = sessionRenderers();
+        if (renderers == null) {
+            if (!rendererLookupReported) {
+                System.err.println("⚠️ Renderer processes of this session not found; renderer CPU/RSS not recorded");
+                rendererLookupReported = true;
+            }
+            return;
+        }
+        
+        // Null for a remote browser: then no local process belongs to this session
+        ProcessHandle browser = Files.isDirectory(PROC) ? browserProcess() : null;
+        
+        long cpuMillis = 0;
+        long rssKb = 0;
+        boolean rssFound = false;
+        for (Renderer renderer : renderers) {
+            Path dir = PROC.resolve(String.valueOf(renderer.pid));
+            try {
+                // A remote browser's pid may name a local process of another session, so check the ancestry
+                if (descendsFrom(renderer.pid, browser) && readCmdline(renderer.pid).contains("--type=renderer")) {
+                    cpuMillis += readCpuTicks(dir) * 1000 / CLOCK_TICKS_PER_SECOND;
+                    rssKb += readRssKb(dir);
+                    rssFound = true;
+                } else if (renderer.cpuMillis >= 0) {
+                    // Browser on another host or OS: CDP still reports the CPU time
+                    cpuMillis += renderer.cpuMillis;
+                }
+            } catch (IOException | RuntimeException e) {
+                // Process exited between listing and reading
+            }
+        }
+        
+        if (!renderers.isEmpty()) {
+            metrics.setRendererCpuMillis(cpuMillis);
+        }
+        if (rssFound) {
+            metrics.setRendererRssBytes(rssKb * 1024);
+        }
+    }
+    
+    /**
+     * Renderer processes of this session, or null when they cannot be told apart from other sessions'
+     */
+    @SuppressWarnings("unchecked")
+    private List<Renderer> sessionRenderers() {
+        if (cdpAvailable && processInfoAvailable) {
+            try {
+                Map<String, Object> result = ((HasCdp) driver).executeCdpCommand("SystemInfo.getProcessInfo", Collections.emptyMap());
+                List<Renderer> renderers = new ArrayList<>();
+                for (Map<String, Object> process : (List<Map<String, Object>>) result.get("processInfo")) {
+                    if ("renderer".equals(process.get("type"))) {
+                        Object cpuTime = process.get("cpuTime");
+                        long cpuMillis = cpuTime instanceof Number ? Math.round(((Number) cpuTime).doubleValue() * 1000) : -1;
+                        renderers.add(new Renderer(((Number) process.get("id")).longValue(), cpuMillis));
+                    }
+                }
+                return renderers;
+            } catch (Exception e) {
+                // Older browsers only expose SystemInfo on the browser target
+                processInfoAvailable = false;
+            }
+        }
+        
+        ProcessHandle browser = browserProcess();
+        if (browser == null || !Files.isDirectory(PROC)) {
+            return null;
+        }
+        List<Renderer> renderers = new ArrayList<>();
+        for (ProcessHandle process : (Iterable<ProcessHandle>) browser.descendants()::iterator) {
+            if (readCmdline(process.pid()).contains("--type=renderer")) {
+                renderers.add(new Renderer(process.pid(), -1));
+            }
+        }
+        return renderers;
+    }
+    
+    /**
+     * The browser process of this session: the JVM descendant started with the
+     * session's user data directory and no {@code --type} (which marks child processes)
+     */
+    private ProcessHandle browserProcess() {
+        if (browserProcess != null && browserProcess.isAlive()) {
+            return browserProcess;
+        }
+        String userDataDir = userDataDir();
+        if (userDataDir == null || !Files.isDirectory(PROC)) {
+            return null;
+        }
+        for (ProcessHandle process : (Iterable<ProcessHandle>) ProcessHandle.current().descendants()::iterator) {
+            String cmdline = readCmdline(process.pid());
+            if (cmdline.contains("--user-data-dir=" + userDataDir) && !cmdline.contains("--type=")) {
+                browserProcess = process;
+                return process;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * True if {@code pid} is a local process under {@code ancestor} (false if the ancestor is unknown)
+     */
+    private static boolean descendsFrom(long pid, ProcessHandle ancestor) {
+        if (ancestor == null) {
+            return false;
+        }
+        Optional<ProcessHandle> process = ProcessHandle.of(pid);
+        while (process.isPresent()) {
+            if (process.get().pid() == ancestor.pid()) {
+                return true;
+            }
+            process = process.get().parent();
+        }
+        return false;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private String userDataDir() {
+        if (!(driver instanceof HasCapabilities)) {
+            return null;
+        }
+        // Chrome reports it under "chrome", Edge under "msedge"
+        for (String browser : new String[] {"chrome", "msedge"}) {
+            Object details = ((HasCapabilities) driver).getCapabilities().getCapability(browser);
+            if (details instanceof Map && ((Map<String, Object>) details).get("userDataDir") != null) {
+                return String.valueOf(((Map<String, Object>) details).get("userDataDir"));
+            }
+        }
+        return null;
+    }
+    
+    private static String readCmdline(long pid) {
+        try {
+            // Arguments are NUL-separated
+            return new String(Files.readAllBytes(PROC.resolve(String.valueOf(pid)).resolve("cmdline")), StandardCharsets.UTF_8)
+                .replace('\0', ' ');
+        } catch (IOException | RuntimeException e) {
+            return "";
+        }
+    }
+    
+    private static long readCpuTicks(Path processDir) throws IOException {
+        String stat = new String(Files.readAllBytes(processDir.resolve("stat")), StandardCharsets.UTF_8);
+        // The command name may contain spaces, so split after its closing parenthesis;
+        // utime and stime are fields 14 and 15, i.e. 11 and 12 after the state field
+        String[] fields = stat.substring(stat.lastIndexOf(')') + 2).split(" ");
+        return Long.parseLong(fields[11]) + Long.parseLong(fields[12]);
+    }
+    
+    private static long readRssKb(Path processDir) throws IOException {
+        for (String line : Files.readAllLines(processDir.resolve("status"), StandardCharsets.UTF_8)) {
+            if (line.startsWith("VmRSS:")) {
+                return Long.parseLong(line.substring("VmRSS:".length()).trim().split("\\s+")[0]);
+            }
+        }
+        return 0;
+    }
+    
+    private static class Renderer {
+        
+        private final long pid;
+        private final long cpuMillis;
+        
+        Renderer(long pid, long cpuMillis) {
+            this.pid = pid;
+            this.cpuMillis = cpuMillis;
+        }
+    }
+}
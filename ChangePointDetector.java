@@ -0,0 +1,224 @@
+package com.yourcompany.utils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streaming upward-shift detector for one timing series (one-sided CUSUM on
+ * log-scaled values). The first {@code warmup} samples seed the baseline,
+ * which then follows slow drift as an EWMA while no window is open. Each
+ * later sample is standardized against it and
+ * accumulated as {@code S = max(0, S + z - k)}. When S exceeds {@code h} a
+ * degraded window opens, starting at the sample where S last left zero (the
+ * CUSUM estimate of the change point). A mirrored statistic on the degraded
+ * samples closes the window once values are back near the baseline. A window
+ * that gets no samples at all can be closed by {@link #expire} instead, so a
+ * series that stopped being measured does not stay degraded forever.
+ *
+ * Constant time and memory per sample, apart from the list of windows.
+ */
+public class ChangePointDetector {
+    
+    // Floor on the baseline spread (log scale, ~5%) so a very stable warm-up does not alarm on noise
+    private static final double MIN_SIGMA = 0.05;
+    
+    /**
+     * A stretch of samples recorded while the series was shifted up
+     */
+    public static final class Window {
+        
+        private final long startIndex;
+        private final long startTimestamp;
+        private final long detectedIndex;
+        private final long detectedTimestamp;
+        private final double baselineMillis;
+        private long endIndex = -1;
+        private long endTimestamp = -1;
+        private long lastIndex;
+        private long lastTimestamp;
+        private boolean expired;
+        private double logSum;
+        private long samples;
+        
+        Window(long startIndex, long startTimestamp, long detectedIndex, long detectedTimestamp, double baselineMillis) {
+            this.startIndex = startIndex;
+            this.startTimestamp = startTimestamp;
+            this.detectedIndex = detectedIndex;
+            this.detectedTimestamp = detectedTimestamp;
+            this.baselineMillis = baselineMillis;
+        }
+        
+        void add(long index, long timestamp, double logValue) {
+            lastIndex = index;
+            lastTimestamp = timestamp;
+            logSum += logValue;
+            samples++;
+        }
+        
+        void close(long index, long timestamp) {
+            endIndex = index;
+            endTimestamp = timestamp;
+        }
+        
+        public boolean isOpen() { return endIndex < 0; }
+        public long getStartIndex() { return startIndex; }
+        public long getStartTimestamp() { return startTimestamp; }
+        public long getDetectedIndex() { return detectedIndex; }
+        public long getDetectedTimestamp() { return detectedTimestamp; }
+        public long getEndIndex() { return endIndex; }
+        public long getEndTimestamp() { return endTimestamp; }
+        public double getBaselineMillis() { return baselineMillis; }
+        public boolean isExpired() { return expired; }
+        
+        /**
+         * Geometric mean of the samples seen while the window was open
+         */
+        public double getDegradedMillis() {
+            return samples > 0 ? Math.expm1(logSum / samples) : baselineMillis;
+        }
+        
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("startIndex", startIndex);
+            map.put("startTimestamp", startTimestamp);
+            map.put("detectedIndex", detectedIndex);
+            map.put("detectedTimestamp", detectedTimestamp);
+            map.put("endIndex", endIndex);
+            map.put("endTimestamp", endTimestamp);
+            map.put("open", isOpen());
+            map.put("expired", expired);
+            map.put("baselineMs", baselineMillis);
+            map.put("degradedMs", getDegradedMillis());
+            map.put("samples", samples);
+            return map;
+        }
+    }
+    
+    private final int warmup;
+    private final double k;
+    private final double h;
+    private final double lambda;
+    
+    // Baseline (Welford over log1p values of the warm-up samples)
+    private long baselineCount;
+    private double baselineMean;
+    private double baselineM2;
+    
+    private double upper;
+    private long runStartIndex;
+    private long runStartTimestamp;
+    private double recovery;
+    private long recoveryStartIndex;
+    private long recoveryStartTimestamp;
+    
+    private Window open;
+    private final List<Window> windows = new ArrayList<>();
+    
+    /**
+     * @param warmup samples used for the baseline
+     * @param k      allowance, in baseline standard deviations, before a sample counts towards a shift
+     * @param h      decision threshold on the cumulative sum
+     * @param lambda EWMA weight with which in-control samples keep updating the baseline
+     */
+    public ChangePointDetector(int warmup, double k, double h, double lambda) {
+        this.warmup = Math.max(2, warmup);
+        this.k = k;
+        this.h = h;
+        this.lambda = lambda;
+    }
+    
+    /**
+     * Feed the next sample; returns true if it falls inside a degraded window.
+     * Non-positive values (field not measured) are skipped.
+     */
+    public synchronized boolean update(long index, long timestamp, double value) {
+        if (value <= 0) {
+            return open != null;
+        }
+        double x = Math.log1p(value);
+        
+        if (baselineCount < warmup) {
+            baselineCount++;
+            double delta = x - baselineMean;
+            baselineMean += delta / baselineCount;
+            baselineM2 += delta * (x - baselineMean);
+            return false;
+        }
+        
+        double variance = baselineM2 / (baselineCount - 1);
+        double sigma = Math.max(MIN_SIGMA, Math.sqrt(variance));
+        double z = (x - baselineMean) / sigma;
+        
+        if (open == null) {
+            // Let the baseline follow slow drift (and correct the warm-up estimate) while in control
+            double delta = x - baselineMean;
+            baselineMean += lambda * delta;
+            baselineM2 = (1 - lambda) * (variance + lambda * delta * delta) * (baselineCount - 1);
+            
+            if (upper == 0) {
+                runStartIndex = index;
+                runStartTimestamp = timestamp;
+            }
+            upper = Math.max(0, upper + z - k);
+            if (upper <= h) {
+                return false;
+            }
+            open = new Window(runStartIndex, runStartTimestamp, index, timestamp, Math.expm1(baselineMean));
+            windows.add(open);
+            upper = 0;
+            recovery = 0;
+        } else {
+            if (recovery == 0) {
+                recoveryStartIndex = index;
+                recoveryStartTimestamp = timestamp;
+            }
+            recovery = Math.max(0, recovery + k - z);
+            if (recovery > h) {
+                open.close(recoveryStartIndex, recoveryStartTimestamp);
+                open = null;
+                return false;
+            }
+        }
+        open.add(index, timestamp, x);
+        return true;
+    }
+    
+    /**
+     * Close an open window whose last sample is older than {@code timeoutMs}; it ends
+     * at that sample, as nothing after it was measured. Returns true if it was closed.
+     */
+    public synchronized boolean expire(long now, long timeoutMs) {
+        if (open == null || now - open.lastTimestamp < timeoutMs) {
+            return false;
+        }
+        open.expired = true;
+        open.close(open.lastIndex, open.lastTimestamp);
+        open = null;
+        upper = 0;
+        recovery = 0;
+        return true;
+    }
+    
+    public synchronized boolean isDegraded() {
+        return open != null;
+    }
+
+    
+    public synchronized List<Map<String, Object>> getWindows() {
+        List<Map<String, Object>> result = new ArrayList<>();
+        windows.forEach(window -> result.add(window.toMap()));
+        return result;
+    }
+    
+    public synchronized void reset() {
+        baselineCount = 0;
+        baselineMean = 0;
+        baselineM2 = 0;
+        upper = 0;
+        recovery = 0;
+        open = null;
+        windows.clear();
+    }
+}
@@ -0,0 +1,85 @@
+package com.yourcompany.utils;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Feeds {@link ChangePointDetector} synthetic series with a known shift
+ */
+public class ChangePointDetectorTest {
+    
+    private final Random random = new Random(42);
+    private final ChangePointDetector detector = new ChangePointDetector(30, 0.5, 8, 0.02);
+    private long index = 0;
+    
+    private boolean feed(int samples, double millis) {
+        boolean degraded = false;
+        for (int i = 0; i < samples; i++) {
+            degraded = detector.update(index, 1000 * index, millis * (1 + 0.05 * random.nextGaussian()));
+            index++;
+        }
+        return degraded;
+    }
+    
+    @Test
+    public void stableSeriesOpensNoWindow() {
+        assertFalse(feed(500, 200));
+        assertFalse(detector.isDegraded());
+        assertTrue(detector.getWindows().isEmpty());
+    }
+    
+    @Test
+    public void upwardShiftOpensWindowNearTheChangeAndRecoveryClosesIt() {
+        feed(100, 200);
+        assertTrue(feed(50, 400));
+        assertTrue(detector.isDegraded());
+        
+        feed(100, 200);
+        assertFalse(detector.isDegraded());
+        List<Map<String, Object>> windows = detector.getWindows();
+        assertEquals(1, windows.size());
+        Map<String, Object> window = windows.get(0);
+        assertFalse((Boolean) window.get("open"));
+        assertFalse((Boolean) window.get("expired"));
+        long start = (Long) window.get("startIndex");
+        assertTrue("start " + start, start >= 90 && start <= 102);
+        long end = (Long) window.get("endIndex");
+        assertTrue("end " + end, end >= 150 && end <= 152);
+        assertEquals(200, (Double) window.get("baselineMs"), 10);
+        // Recovery samples count until the window closes, so the mean sits between the levels
+        assertTrue((Double) window.get("degradedMs") > 300);
+    }
+    
+    @Test
+    public void unmeasuredValuesAreSkipped() {
+        feed(100, 200);
+        for (int i = 0; i < 100; i++) {
+            assertFalse(detector.update(index++, 0, 0));
+        }
+        assertTrue(detector.getWindows().isEmpty());
+    }
+    
+    @Test
+    public void idleWindowExpiresAtItsLastSample() {
+        feed(100, 200);
+        feed(50, 400);
+        long lastTimestamp = 1000 * (index - 1);
+        
+        assertFalse(detector.expire(lastTimestamp + 500, 1000));
+        assertTrue(detector.isDegraded());
+        assertTrue(detector.expire(lastTimestamp + 1000, 1000));
+        assertFalse(detector.isDegraded());
+        
+        Map<String, Object> window = detector.getWindows().get(0);
+        assertTrue((Boolean) window.get("expired"));
+        assertEquals(index - 1, window.get("endIndex"));
+        assertEquals(lastTimestamp, window.get("endTimestamp"));
+    }
+}
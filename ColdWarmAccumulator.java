@@ -0,0 +1,68 @@
+package com.yourcompany.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps cold (network) and warm (cache) loads in separate aggregate streams,
+ * so cache hits don't drag cold-load averages down and vice versa.
+ * Warm-up steps excluded by the caller are only counted.
+ */
+public class ColdWarmAccumulator {
+    
+    private final MetricsAccumulator cold = new MetricsAccumulator();
+    private final MetricsAccumulator warm = new MetricsAccumulator();
+    private long excludedWarmupSteps;
+    
+    public void add(PerformanceMetrics metrics) {
+        if (metrics.isFromCache()) {
+            warm.add(metrics);
+        } else {
+            cold.add(metrics);
+        }
+    }
+    
+    public synchronized void recordExcludedWarmup() {
+        excludedWarmupSteps++;
+    }
+    
+    public synchronized long getExcludedWarmupSteps() { return excludedWarmupSteps; }
+    
+    public MetricsAccumulator getCold() { return cold; }
+    
+    public MetricsAccumulator getWarm() { return warm; }
+    
+    public void reset() {
+        cold.reset();
+        warm.reset();
+        synchronized (this) {
+            excludedWarmupSteps = 0;
+        }
+    }
+    
+    /**
+     * Averages plus robust statistics per field, for the cold and warm streams
+     */
+    public Map<String, Object> toStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("cold", streamStatistics(cold));
+        statistics.put("warm", streamStatistics(warm));
+        statistics.put("excludedWarmupSteps", getExcludedWarmupSteps());
+        return statistics;
+    }
+    
+    private static Map<String, Object> streamStatistics(MetricsAccumulator accumulator) {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("steps", accumulator.getCount());
+        statistics.put("averages", accumulator.toAverages());
+        
+        Map<String, Map<String, Double>> robust = new LinkedHashMap<>();
+        if (accumulator.getCount() > 0) {
+            for (MetricField field : MetricField.values()) {
+                robust.put(field.getAverageKey(), RobustStatistics.summarize(accumulator.getHistogram(field)));
+            }
+        }
+        statistics.put("robust", robust);
+        return statistics;
+    }
+}
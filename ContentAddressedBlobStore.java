@@ -0,0 +1,94 @@
+package com.yourcompany.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Stores raw payloads once per run under the SHA-256 of their content, as the
+ * results file {@code <sha256>-attachment.json}. The first occurrence in a run
+ * is written through the caller's writer (the Allure lifecycle, so the file is
+ * a real attachment); identical payloads later in the run (common for SPA
+ * navigation entries that do not change between steps) cost one hash and no
+ * I/O, and the caller attaches the same file again by name.
+ *
+ * Only payloads written during this run count as hits, so a step never points
+ * at a file that a cleaned results directory no longer has.
+ */
+public class ContentAddressedBlobStore {
+    
+    private static final ContentAddressedBlobStore DEFAULT = new ContentAddressedBlobStore();
+    
+    /**
+     * Writes a new blob's bytes to the results file named {@code source}
+     */
+    public interface BlobWriter {
+        void write(String source, byte[] content);
+    }
+    
+    /**
+     * Attachment file of a stored payload; {@code created} is false when this run already wrote it
+     */
+    public static final class BlobRef {
+        
+        private final String hash;
+        private final String source;
+        private final int size;
+        private final boolean created;
+        
+        BlobRef(String hash, String source, int size, boolean created) {
+            this.hash = hash;
+            this.source = source;
+            this.size = size;
+            this.created = created;
+        }
+        
+        public String getHash() { return hash; }
+        public String getSource() { return source; }
+        public int getSize() { return size; }
+        public boolean isCreated() { return created; }
+    }
+    
+    private final Set<String> writtenHashes = ConcurrentHashMap.newKeySet();
+    
+    public static ContentAddressedBlobStore getDefault() {
+        return DEFAULT;
+    }
+    
+    public static boolean isEnabled() {
+        return Boolean.parseBoolean(System.getProperty("performance.blobs.enabled", "true"));
+    }
+    
+    public BlobRef store(String payload, BlobWriter writer) {
+        byte[] content = payload.getBytes(StandardCharsets.UTF_8);
+        String hash = sha256(content);
+        String source = hash + "-attachment.json";
+        
+        if (!writtenHashes.add(hash)) {
+            return new BlobRef(hash, source, content.length, false);
+        }
+        try {
+            writer.write(source, content);
+        } catch (RuntimeException e) {
+            // Let the next step with this content try again
+            writtenHashes.remove(hash);
+            throw e;
+        }
+        return new BlobRef(hash, source, content.length, true);
+    }
+    
+    private static String sha256(byte[] content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
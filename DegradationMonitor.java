@@ -0,0 +1,161 @@
+package com.yourcompany.utils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs a {@link ChangePointDetector} over selected timing fields
+ * ({@code performance.changepoint.fields}, default PAGE_LOAD,TTFB,RESPONSE) to
+ * notice the environment degrading mid-run. Each route (or step, for records
+ * without one) keeps its own baseline, so the mix of pages the scheduler happens
+ * to run does not look like a shift. Cache hits, throttled records and records
+ * taken under concurrent load are expected to differ and are not fed in.
+ *
+ * Tuning: {@code performance.changepoint.warmup} (baseline samples per series, default 30),
+ * {@code performance.changepoint.k} (default 0.5),
+ * {@code performance.changepoint.h} (default 8) and
+ * {@code performance.changepoint.lambda} (baseline drift weight, default 0.02).
+ * A window whose series gets no new samples for {@code performance.changepoint.expireSec}
+ * (default 300) is closed as expired; expiry is checked by {@link #isDegraded()}, and
+ * only while some window is open, so a record costs the same however many series
+ * there are. Disable with
+ * {@code performance.changepoint.enabled=false}.
+ */
+public class DegradationMonitor {
+    
+    /**
+     * What measurement scenarios do once per newly opened degraded window
+     * ({@code performance.changepoint.action}: none, pause or abort)
+     */
+    public enum Action {
+        NONE, PAUSE, ABORT;
+        
+        public static Action configured() {
+            return valueOf(System.getProperty("performance.changepoint.action", "none").trim().toUpperCase(Locale.ROOT));
+        }
+    }
+    
+    private final List<MetricField> fields = new ArrayList<>();
+    private final int warmup;
+    private final double k;
+    private final double h;
+    private final double lambda;
+    private final long expireMillis;
+    private final Map<String, Map<MetricField, ChangePointDetector>> series = new ConcurrentHashMap<>();
+    
+    // Kept in step with the detectors' open/closed transitions, which happen under the detector's lock
+    private final AtomicInteger openWindows = new AtomicInteger();
+    private final AtomicLong openedWindows = new AtomicLong();
+    
+    public DegradationMonitor() {
+        warmup = Integer.getInteger("performance.changepoint.warmup", 30);
+        k = Double.parseDouble(System.getProperty("performance.changepoint.k", "0.5"));
+        h = Double.parseDouble(System.getProperty("performance.changepoint.h", "8"));
+        lambda = Double.parseDouble(System.getProperty("performance.changepoint.lambda", "0.02"));
+        expireMillis = Long.getLong("performance.changepoint.expireSec", 300L) * 1000;
+        for (String field : System.getProperty("performance.changepoint.fields", "PAGE_LOAD,TTFB,RESPONSE").split(",")) {
+            if (!field.trim().isEmpty()) {
+                fields.add(MetricField.valueOf(field.trim()));
+            }
+        }
+    }
+    
+    public static boolean isEnabled() {
+        return Boolean.parseBoolean(System.getProperty("performance.changepoint.enabled", "true"));
+    }
+    
+    /**
+     * Feed one record to the detectors of its route or step; returns true if any
+     * field is in a degraded window. Records that are not comparable to the
+     * baseline are skipped and only report whether a window is open.
+     */
+    public boolean update(long index, PerformanceMetrics metrics) {
+        if (metrics.isFromCache() || metrics.getThrottlingProfile() != null || metrics.getConcurrencyLevel() > 0) {
+            return openWindows.get() > 0;
+        }
+        String key = seriesOf(metrics);
+        if (key == null) {
+            return openWindows.get() > 0;
+        }
+        Map<MetricField, ChangePointDetector> detectors = series.computeIfAbsent(key, name -> {
+            Map<MetricField, ChangePointDetector> created = new EnumMap<>(MetricField.class);
+            fields.forEach(field -> created.put(field, new ChangePointDetector(warmup, this.k, h, lambda)));
+            return created;
+        });
+        boolean degraded = false;
+        for (Map.Entry<MetricField, ChangePointDetector> entry : detectors.entrySet()) {
+            ChangePointDetector detector = entry.getValue();
+            synchronized (detector) {
+                boolean wasOpen = detector.isDegraded();
+                degraded |= detector.update(index, metrics.getTimestamp(), entry.getKey().valueOf(metrics));
+                if (detector.isDegraded() != wasOpen) {
+                    if (wasOpen) {
+                        openWindows.decrementAndGet();
+                    } else {
+                        openWindows.incrementAndGet();
+                        openedWindows.incrementAndGet();
+                    }
+                }
+            }
+        }
+        return degraded || openWindows.get() > 0;
+    }
+    
+    private static String seriesOf(PerformanceMetrics metrics) {
+        return metrics.getRoute() != null ? metrics.getRoute() : metrics.getStepName();
+    }
+    
+    /**
+     * True while any series has an open window; windows past the expiry are closed first
+     */
+    public boolean isDegraded() {
+        if (openWindows.get() == 0) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        for (Map<MetricField, ChangePointDetector> detectors : series.values()) {
+            for (ChangePointDetector detector : detectors.values()) {
+                synchronized (detector) {
+                    if (detector.expire(now, expireMillis)) {
+                        openWindows.decrementAndGet();
+                    }
+                }
+            }
+        }
+        return openWindows.get() > 0;
+    }
+    
+    /**
+     * Windows opened so far across all series; grows by one for every new detection
+     */
+    public long getWindowCount() {
+        return openedWindows.get();
+    }
+    
+    /**
+     * All detected windows, each tagged with its series and field, ordered by start
+     */
+    public List<Map<String, Object>> getWindows() {
+        List<Map<String, Object>> windows = new ArrayList<>();
+        series.forEach((key, detectors) -> detectors.forEach((field, detector) -> detector.getWindows().forEach(window -> {
+            window.put("series", key);
+            window.put("field", field.name());
+            windows.add(window);
+        })));
+        windows.sort(Comparator.comparingLong(window -> ((Number) window.get("startIndex")).longValue()));
+        return windows;
+    }
+    
+    public void reset() {
+        series.clear();
+        openWindows.set(0);
+        openedWindows.set(0);
+    }
+}
@@ -0,0 +1,102 @@
+package com.yourcompany.hooks;
+
+import io.cucumber.messages.types.Examples;
+import io.cucumber.messages.types.Feature;
+import io.cucumber.messages.types.TableCell;
+import io.cucumber.messages.types.TableRow;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Maps the example-row lines of each feature file to their Scenario Outline and
+ * parameter values. Cucumber reports an outline execution by the line of its
+ * example row only, so the Examples tables are read from the feature source
+ * (file: or classpath: URIs), once per feature, with {@link GherkinFeatures}.
+ */
+public class GherkinExamplesIndex {
+    
+    private static final GherkinExamplesIndex DEFAULT = new GherkinExamplesIndex();
+    
+    /**
+     * One example row: the line of its outline and the header → cell values of the row
+     */
+    public static final class ExampleRow {
+        
+        private final int outlineLine;
+        private final Map<String, String> parameters;
+        
+        ExampleRow(int outlineLine, Map<String, String> parameters) {
+            this.outlineLine = outlineLine;
+            this.parameters = parameters;
+        }
+        
+        public int getOutlineLine() { return outlineLine; }
+        
+        public Map<String, String> getParameters() { return parameters; }
+    }
+    
+    private final Map<URI, Map<Integer, ExampleRow>> features = new ConcurrentHashMap<>();
+    
+    public static GherkinExamplesIndex getDefault() {
+        return DEFAULT;
+    }
+    
+    /**
+     * Example row at {@code line} of the feature, or null if the line is not an outline example
+     */
+    public ExampleRow find(URI featureUri, int line) {
+        return features.computeIfAbsent(featureUri, this::load).get(line);
+    }
+    
+    private Map<Integer, ExampleRow> load(URI featureUri) {
+        try {
+            Feature feature = GherkinFeatures.parse(featureUri);
+            if (feature == null) {
+                System.err.println("⚠️ Feature source not found for example parameters: " + featureUri);
+                return Collections.emptyMap();
+            }
+            return index(feature);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("⚠️ Could not read example parameters from " + featureUri + ": " + e.getMessage());
+            return Collections.emptyMap();
+        }
+    }
+    
+    /**
+     * Index the example rows of every outline in a parsed feature by their line
+     */
+    static Map<Integer, ExampleRow> index(Feature feature) {
+        Map<Integer, ExampleRow> rows = new HashMap<>();
+        for (GherkinFeatures.ScenarioDefinition outline : GherkinFeatures.scenarios(feature)) {
+            for (Examples examples : outline.getScenario().getExamples()) {
+                if (!examples.getTableHeader().isPresent()) {
+                    continue;
+                }
+                List<String> header = cellValues(examples.getTableHeader().get());
+                for (TableRow row : examples.getTableBody()) {
+                    List<String> cells = cellValues(row);
+                    Map<String, String> parameters = new LinkedHashMap<>();
+                    for (int c = 0; c < header.size() && c < cells.size(); c++) {
+                        parameters.put(header.get(c), cells.get(c));
+                    }
+                    rows.put(row.getLocation().getLine().intValue(),
+                        new ExampleRow(outline.getLine(), Collections.unmodifiableMap(parameters)));
+                }
+            }
+        }
+        return rows;
+    }
+    
+    // The parser has already unescaped \| \\ and \n in cell values
+    private static List<String> cellValues(TableRow row) {
+        return row.getCells().stream().map(TableCell::getValue).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,137 @@
+package com.yourcompany.hooks;
+
+import io.cucumber.gherkin.GherkinParser;
+import io.cucumber.messages.types.Envelope;
+import io.cucumber.messages.types.Feature;
+import io.cucumber.messages.types.FeatureChild;
+import io.cucumber.messages.types.GherkinDocument;
+import io.cucumber.messages.types.ParseError;
+import io.cucumber.messages.types.Rule;
+import io.cucumber.messages.types.RuleChild;
+import io.cucumber.messages.types.Scenario;
+import io.cucumber.messages.types.Tag;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Reads feature files with the Gherkin parser cucumber-core runs with, so
+ * localized keywords ({@code # language:}), Rule blocks and escaped table
+ * cells are understood exactly as the run understands them.
+ */
+public final class GherkinFeatures {
+    
+    private static final GherkinParser PARSER = GherkinParser.builder()
+        .includeSource(false)
+        .includePickles(false)
+        .build();
+    
+    /**
+     * A Scenario or Scenario Outline with the tags it inherits from its feature and rule
+     */
+    public static final class ScenarioDefinition {
+        
+        private final Scenario scenario;
+        private final List<String> tags;
+        
+        ScenarioDefinition(Scenario scenario, List<String> tags) {
+            this.scenario = scenario;
+            this.tags = tags;
+        }
+        
+        public Scenario getScenario() { return scenario; }
+        
+        public int getLine() { return scenario.getLocation().getLine().intValue(); }
+        
+        public boolean isOutline() { return !scenario.getExamples().isEmpty(); }
+        
+        /**
+         * Feature, rule and scenario tags (example tags are per row and not included)
+         */
+        public List<String> getTags() { return tags; }
+    }
+    
+    private GherkinFeatures() {
+    }
+    
+    /**
+     * Parse a feature from a file: or classpath: URI; null if the source does not exist or has no feature
+     */
+    public static Feature parse(URI featureUri) throws IOException {
+        if ("classpath".equals(featureUri.getScheme())) {
+            String path = featureUri.getSchemeSpecificPart();
+            try (InputStream in = Thread.currentThread().getContextClassLoader()
+                    .getResourceAsStream(path.startsWith("/") ? path.substring(1) : path)) {
+                return in != null ? parse(featureUri.toString(), in) : null;
+            }
+        }
+        return parse(Paths.get(featureUri));
+    }
+    
+    /**
+     * Parse a feature file; null if it does not exist or has no feature
+     */
+    public static Feature parse(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try (InputStream in = Files.newInputStream(file)) {
+            return parse(file.toString(), in);
+        }
+    }
+    
+    private static Feature parse(String uri, InputStream in) throws IOException {
+        List<Envelope> envelopes = PARSER.parse(uri, in).collect(Collectors.toList());
+        Feature feature = null;
+        for (Envelope envelope : envelopes) {
+            if (envelope.getParseError().isPresent()) {
+                ParseError error = envelope.getParseError().get();
+                throw new IOException("Gherkin parse error in " + uri
+                    + error.getSource().getLocation().map(location -> " at line " + location.getLine()).orElse("")
+                    + ": " + error.getMessage());
+            }
+            feature = envelope.getGherkinDocument().flatMap(GherkinDocument::getFeature).orElse(feature);
+        }
+        return feature;
+    }
+    
+    /**
+     * Every scenario and outline of the feature, including those inside Rule blocks, in file order
+     */
+    public static List<ScenarioDefinition> scenarios(Feature feature) {
+        if (feature == null) {
+            return Collections.emptyList();
+        }
+        List<ScenarioDefinition> scenarios = new ArrayList<>();
+        List<String> featureTags = tagNames(feature.getTags(), Collections.emptyList());
+        for (FeatureChild child : feature.getChildren()) {
+            child.getScenario().ifPresent(scenario ->
+                scenarios.add(new ScenarioDefinition(scenario, tagNames(scenario.getTags(), featureTags))));
+            if (child.getRule().isPresent()) {
+                Rule rule = child.getRule().get();
+                List<String> ruleTags = tagNames(rule.getTags(), featureTags);
+                for (RuleChild ruleChild : rule.getChildren()) {
+                    ruleChild.getScenario().ifPresent(scenario ->
+                        scenarios.add(new ScenarioDefinition(scenario, tagNames(scenario.getTags(), ruleTags))));
+                }
+            }
+        }
+        return scenarios;
+    }
+    
+    private static List<String> tagNames(List<Tag> tags, List<String> inherited) {
+        List<String> names = new ArrayList<>(inherited);
+        for (Tag tag : tags) {
+            names.add(tag.getName());
+        }
+        return Collections.unmodifiableList(names);
+    }
+}
@@ -0,0 +1,141 @@
+package com.yourcompany.utils;
+
+import java.util.Arrays;
+
+/**
+ * Log-linear histogram of millisecond timings over a fixed bucket range.
+ * Values below 64 ms get their own bucket, larger values are split into
+ * 32 linear sub-buckets per power of two (about 3% relative bucket width).
+ * Counts are exact; only the position inside a bucket is approximated.
+ *
+ * Buckets are stored in pages of one power of two (32 buckets), allocated on
+ * first use. Timings of one stream rarely span more than a few powers of two,
+ * so a histogram costs a few hundred bytes instead of the full bucket range.
+ */
+public class LatencyHistogram {
+    
+    private static final int LINEAR_LIMIT = 64;
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int FIRST_EXPONENT = 6;
+    private static final int LAST_EXPONENT = 40;
+    
+    public static final int BUCKET_COUNT = LINEAR_LIMIT + (LAST_EXPONENT - FIRST_EXPONENT + 1) * SUB_BUCKETS;
+    
+    // LINEAR_LIMIT and BUCKET_COUNT are multiples of SUB_BUCKETS, so pages line up with exponents
+    private static final int PAGE_COUNT = BUCKET_COUNT / SUB_BUCKETS;
+    
+    private final long[][] pages = new long[PAGE_COUNT][];
+    private long totalCount;
+    
+    public void record(long value) {
+        recordBucket(bucketIndex(value), 1);
+    }
+    
+    public void recordBucket(int bucket, long count) {
+        if (count == 0) {
+            return;
+        }
+        page(bucket >>> SUB_BUCKET_BITS)[bucket & (SUB_BUCKETS - 1)] += count;
+        totalCount += count;
+    }
+    
+    public void merge(LatencyHistogram other) {
+        for (int p = 0; p < PAGE_COUNT; p++) {
+            long[] source = other.pages[p];
+            if (source != null) {
+                long[] target = page(p);
+                for (int i = 0; i < SUB_BUCKETS; i++) {
+                    target[i] += source[i];
+                }
+            }
+        }
+        totalCount += other.totalCount;
+    }
+    
+    public long getTotalCount() { return totalCount; }
+    
+    public long getCount(int bucket) {
+        long[] page = pages[bucket >>> SUB_BUCKET_BITS];
+        return page != null ? page[bucket & (SUB_BUCKETS - 1)] : 0;
+    }
+    
+    private long[] page(int index) {
+        long[] page = pages[index];
+        if (page == null) {
+            page = new long[SUB_BUCKETS];
+            pages[index] = page;
+        }
+        return page;
+    }
+    
+    /**
+     * Value at the given quantile (0.0 - 1.0), reported as the bucket midpoint
+     */
+    public double valueAtQuantile(double quantile) {
+        if (totalCount == 0) {
+            return 0.0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * totalCount));
+        long seen = 0;
+        for (int p = 0; p < PAGE_COUNT; p++) {
+            long[] page = pages[p];
+            if (page == null) {
+                continue;
+            }
+            for (int i = 0; i < SUB_BUCKETS; i++) {
+                seen += page[i];
+                if (seen >= rank) {
+                    return bucketMidpoint((p << SUB_BUCKET_BITS) + i);
+                }
+            }
+        }
+        return bucketMidpoint(BUCKET_COUNT - 1);
+    }
+    
+    public LatencyHistogram copy() {
+        LatencyHistogram copy = new LatencyHistogram();
+        for (int p = 0; p < PAGE_COUNT; p++) {
+            if (pages[p] != null) {
+                copy.pages[p] = pages[p].clone();
+            }
+        }
+        copy.totalCount = totalCount;
+        return copy;
+    }
+    
+    public void reset() {
+        Arrays.fill(pages, null);
+        totalCount = 0;
+    }
+    
+    public static int bucketIndex(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) Math.max(0, value);
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > LAST_EXPONENT) {
+            return BUCKET_COUNT - 1;
+        }
+        int subBucket = (int) ((value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1));
+        return LINEAR_LIMIT + (exponent - FIRST_EXPONENT) * SUB_BUCKETS + subBucket;
+    }
+    
+    public static long bucketLowerBound(int bucket) {
+        if (bucket < LINEAR_LIMIT) {
+            return bucket;
+        }
+        int exponent = FIRST_EXPONENT + (bucket - LINEAR_LIMIT) / SUB_BUCKETS;
+        int subBucket = (bucket - LINEAR_LIMIT) % SUB_BUCKETS;
+        return (1L << exponent) + ((long) subBucket << (exponent - SUB_BUCKET_BITS));
+    }
+    
+    public static double bucketMidpoint(int bucket) {
+        if (bucket < LINEAR_LIMIT) {
+            return bucket;
+        }
+        int exponent = FIRST_EXPONENT + (bucket - LINEAR_LIMIT) / SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        return bucketLowerBound(bucket) + (width - 1) / 2.0;
+    }
+}
@@ -0,0 +1,104 @@
+package com.yourcompany.hooks;
+
+import io.cucumber.java.Scenario;
+
+/**
+ * Ramp-up / steady / ramp-down schedule for the virtual-user load mode.
+ * Concurrency grows linearly to {@code users} during ramp-up, holds for the
+ * steady phase and falls linearly back to zero during ramp-down.
+ */
+public class LoadProfile {
+    
+    // Profile of the load scenario running on this thread, set by the scenario hooks
+    private static final ThreadLocal<LoadProfile> CURRENT = new ThreadLocal<>();
+    
+    private final int users;
+    private final long rampUpMillis;
+    private final long steadyMillis;
+    private final long rampDownMillis;
+    
+    public LoadProfile(int users, long rampUpMillis, long steadyMillis, long rampDownMillis) {
+        this.users = Math.max(1, users);
+        this.rampUpMillis = Math.max(0, rampUpMillis);
+        this.steadyMillis = Math.max(0, steadyMillis);
+        this.rampDownMillis = Math.max(0, rampDownMillis);
+    }
+    
+    /**
+     * Profile for a scenario tagged {@code @load} or {@code @load:N}, or null if it is not a load scenario
+     * or is itself being replayed by a virtual user.
+     * Phase lengths come from {@code performance.load.rampUpSec}, {@code .steadySec} and {@code .rampDownSec}.
+     */
+    public static LoadProfile forScenario(Scenario scenario) {
+        if (VirtualUserLoadRunner.isVirtualUser()) {
+            return null;
+        }
+        Integer users = null;
+        for (String tag : scenario.getSourceTagNames()) {
+            if (tag.equals("@load")) {
+                users = Integer.getInteger("performance.load.users", 20);
+            } else if (tag.startsWith("@load:")) {
+                try {
+                    users = Integer.parseInt(tag.substring("@load:".length()));
+                } catch (NumberFormatException e) {
+                    scenario.log("⚠️ Invalid load tag: " + tag);
+                }
+            }
+        }
+        if (users == null) {
+            return null;
+        }
+        return new LoadProfile(
+            users,
+            Long.getLong("performance.load.rampUpSec", 30L) * 1000,
+            Long.getLong("performance.load.steadySec", 60L) * 1000,
+            Long.getLong("performance.load.rampDownSec", 15L) * 1000
+        );
+    }
+    
+    /**
+     * Profile of the current {@code @load} scenario, or null outside load mode.
+     * The scenario hooks replay the scenario with it once the scenario has passed;
+     * step definitions can also pass it to {@link VirtualUserLoadRunner#run} with their own session body.
+     */
+    public static LoadProfile current() {
+        return CURRENT.get();
+    }
+    
+    static void setCurrent(LoadProfile profile) {
+        if (profile != null) {
+            CURRENT.set(profile);
+        } else {
+            CURRENT.remove();
+        }
+    }
+    
+    public int getUsers() { return users; }
+    
+    public long getTotalMillis() {
+        return rampUpMillis + steadyMillis + rampDownMillis;
+    }
+    
+    /**
+     * Number of virtual users that should be active at the given offset from the start
+     */
+    public int targetUsersAt(long elapsedMillis) {
+        if (elapsedMillis < 0 || elapsedMillis >= getTotalMillis()) {
+            return 0;
+        }
+        if (elapsedMillis < rampUpMillis) {
+            return Math.max(1, (int) Math.ceil(users * (double) (elapsedMillis + 1) / rampUpMillis));
+        }
+        if (elapsedMillis < rampUpMillis + steadyMillis) {
+            return users;
+        }
+        long intoRampDown = elapsedMillis - rampUpMillis - steadyMillis;
+        return (int) Math.ceil(users * (1.0 - (double) intoRampDown / rampDownMillis));
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("LoadProfile{users=%d, rampUp=%d ms, steady=%d ms, rampDown=%d ms}",
+            users, rampUpMillis, steadyMillis, rampDownMillis);
+    }
+}
@@ -0,0 +1,30 @@
+package com.yourcompany.utils;
+
+import java.util.function.ToLongFunction;
+
+/**
+ * Timing fields tracked for every step, with the keys used in averages maps
+ */
+public enum MetricField {
+    
+    PAGE_LOAD("avgPageLoadTime", PerformanceMetrics::getPageLoadTime),
+    DOM_READY("avgDomReadyTime", PerformanceMetrics::getDomReadyTime),
+    RESPONSE("avgResponseTime", PerformanceMetrics::getResponseTime),
+    TTFB("avgTtfb", PerformanceMetrics::getTtfb),
+    CONNECT("avgConnectTime", PerformanceMetrics::getConnectTime),
+    DOMAIN_LOOKUP("avgDomainLookupTime", PerformanceMetrics::getDomainLookupTime);
+    
+    private final String averageKey;
+    private final ToLongFunction<PerformanceMetrics> extractor;
+    
+    MetricField(String averageKey, ToLongFunction<PerformanceMetrics> extractor) {
+        this.averageKey = averageKey;
+        this.extractor = extractor;
+    }
+    
+    public String getAverageKey() { return averageKey; }
+    
+    public long valueOf(PerformanceMetrics metrics) {
+        return extractor.applyAsLong(metrics);
+    }
+}
@@ -0,0 +1,130 @@
+package com.yourcompany.utils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Exact running aggregates (sums, counts and histograms) for a stream of metrics.
+ * Lets storage answer average and percentile queries without keeping raw records.
+ */
+public class MetricsAccumulator {
+    
+    private static final MetricField[] FIELDS = MetricField.values();
+    
+    private long count;
+    private long cachedCount;
+    private final long[] sums = new long[FIELDS.length];
+    private final LatencyHistogram[] histograms = new LatencyHistogram[FIELDS.length];
+    
+    public MetricsAccumulator() {
+        for (int i = 0; i < FIELDS.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+    }
+    
+    public synchronized void add(PerformanceMetrics metrics) {
+        count++;
+        if (metrics.isFromCache()) {
+            cachedCount++;
+        }
+        for (int i = 0; i < FIELDS.length; i++) {
+            long value = FIELDS[i].valueOf(metrics);
+            sums[i] += value;
+            histograms[i].record(value);
+        }
+    }
+    
+    /**
+     * Fold another accumulator into this one (used when aggregates are built in parallel)
+     */
+    public void merge(MetricsAccumulator other) {
+        long otherCount;
+        long otherCached;
+        long[] otherSums;
+        LatencyHistogram[] otherHistograms = new LatencyHistogram[FIELDS.length];
+        synchronized (other) {
+            otherCount = other.count;
+            otherCached = other.cachedCount;
+            otherSums = other.sums.clone();
+            for (int i = 0; i < FIELDS.length; i++) {
+                otherHistograms[i] = other.histograms[i].copy();
+            }
+        }
+        synchronized (this) {
+            count += otherCount;
+            cachedCount += otherCached;
+            for (int i = 0; i < FIELDS.length; i++) {
+                sums[i] += otherSums[i];
+                histograms[i].merge(otherHistograms[i]);
+            }
+        }
+    }
+    
+    /**
+     * Independent copy of the current state, taken under one lock, so several
+     * queries (averages, percentiles, count) can be answered for the same state
+     */
+    public MetricsAccumulator copy() {
+        MetricsAccumulator copy = new MetricsAccumulator();
+        copy.merge(this);
+        return copy;
+    }
+    
+    public synchronized void reset() {
+        count = 0;
+        cachedCount = 0;
+        Arrays.fill(sums, 0);
+        for (LatencyHistogram histogram : histograms) {
+            histogram.reset();
+        }
+    }
+    
+    public synchronized long getCount() { return count; }
+    
+    public synchronized long getCachedCount() { return cachedCount; }
+    
+    /**
+     * Averages keyed the same way as the original per-list calculation
+     */
+    public synchronized Map<String, Double> toAverages() {
+        if (count == 0) {
+            return Collections.emptyMap();
+        }
+        
+        Map<String, Double> averages = new HashMap<>();
+        for (int i = 0; i < FIELDS.length; i++) {
+            averages.put(FIELDS[i].getAverageKey(), (double) sums[i] / count);
+        }
+        averages.put("totalSteps", (double) count);
+        averages.put("cachedSteps", (double) cachedCount);
+        
+        return averages;
+    }
+    
+    public synchronized LatencyHistogram getHistogram(MetricField field) {
+        return histograms[field.ordinal()].copy();
+    }
+    
+    /**
+     * p50/p90/p95/p99 per field, read from the histograms
+     */
+    public synchronized Map<MetricField, Map<String, Double>> toPercentiles() {
+        Map<MetricField, Map<String, Double>> percentiles = new EnumMap<>(MetricField.class);
+        if (count == 0) {
+            return percentiles;
+        }
+        for (int i = 0; i < FIELDS.length; i++) {
+            Map<String, Double> values = new LinkedHashMap<>();
+            values.put("p50", histograms[i].valueAtQuantile(0.50));
+            values.put("p90", histograms[i].valueAtQuantile(0.90));
+            values.put("p95", histograms[i].valueAtQuantile(0.95));
+            values.put("p99", histograms[i].valueAtQuantile(0.99));
+            percentiles.put(FIELDS[i], values);
+        }
+        return percentiles;
+    }
+}
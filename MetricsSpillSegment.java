@@ -0,0 +1,556 @@
+package com.yourcompany.utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Append-only on-disk segment for metrics evicted from memory.
+ * Records are written in insertion order and read back sequentially,
+ * so iterating the segment never needs more than one record on the heap.
+ *
+ * Each record is also indexed under a key (the scenario key). The offsets of a
+ * key are kept in chunks of {@value #INDEX_CHUNK} in a companion index file, each
+ * chunk pointing back to the previous one, so the heap holds only the open chunk
+ * and the position of the last written one per key, however many records spill.
+ */
+public class MetricsSpillSegment {
+    
+    private static final int RECORD_VERSION = 10;
+    
+    // Offsets per index chunk; a chunk is {previous chunk position, count, offsets}
+    static final int INDEX_CHUNK = 64;
+    private static final int CHUNK_BYTES = Long.BYTES + Integer.BYTES + INDEX_CHUNK * Long.BYTES;
+    
+    private final Path file;
+    private final DataOutputStream out;
+    private long bytesWritten;
+    private long recordCount;
+    
+    private final Path indexFile;
+    private final DataOutputStream indexOut;
+    private long indexBytesWritten;
+    private final Map<String, KeyIndex> keyIndexes = new HashMap<>();
+    
+    public MetricsSpillSegment(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        this.file = Files.createTempFile(directory, "performance-metrics-", ".spill");
+        this.file.toFile().deleteOnExit();
+        this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 64 * 1024));
+        this.indexFile = Files.createTempFile(directory, "performance-metrics-", ".spill-index");
+        this.indexFile.toFile().deleteOnExit();
+        this.indexOut = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(indexFile), 16 * 1024));
+    }
+    
+    public static Path defaultDirectory() {
+        return Paths.get(System.getProperty("performance.storage.spillDir", System.getProperty("java.io.tmpdir")));
+    }
+    
+    /**
+     * Append a record, index it under {@code key} and return its byte offset in the segment
+     */
+    public synchronized long append(PerformanceMetrics metrics, String key) throws IOException {
+        long offset = bytesWritten;
+        int before = out.size();
+        writeRecord(out, metrics);
+        bytesWritten += out.size() - before;
+        recordCount++;
+        
+        KeyIndex index = keyIndexes.computeIfAbsent(key, k -> new KeyIndex());
+        if (index.openSize == INDEX_CHUNK) {
+            index.lastChunk = writeChunk(index);
+            index.openSize = 0;
+        }
+        index.open[index.openSize++] = offset;
+        return offset;
+    }
+    
+    // Caller holds the segment lock
+    private long writeChunk(KeyIndex index) throws IOException {
+        long position = indexBytesWritten;
+        indexOut.writeLong(index.lastChunk);
+        indexOut.writeInt(index.openSize);
+        for (int i = 0; i < INDEX_CHUNK; i++) {
+            indexOut.writeLong(i < index.openSize ? index.open[i] : 0L);
+        }
+        indexBytesWritten += CHUNK_BYTES;
+        return position;
+    }
+    
+    /**
+     * Flush buffered records and return the number of readable bytes
+     */
+    public synchronized long flush() throws IOException {
+        out.flush();
+        return bytesWritten;
+    }
+    
+    /**
+     * Ascending offsets of the records indexed under {@code key} that lie below
+     * {@code limit} (a value returned by {@link #flush()}). Written chunks are read
+     * lazily from the index file; only the open chunk is copied.
+     */
+    public PrimitiveIterator.OfLong offsets(String key, long limit) {
+        long lastChunk;
+        long[] open;
+        synchronized (this) {
+            KeyIndex index = keyIndexes.get(key);
+            if (index == null) {
+                return Arrays.stream(new long[0]).iterator();
+            }
+            try {
+                indexOut.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Error flushing metrics spill index " + indexFile, e);
+            }
+            lastChunk = index.lastChunk;
+            open = Arrays.copyOf(index.open, index.openSize);
+        }
+        return new IndexIterator(lastChunk, open, limit);
+    }
+    
+    public synchronized long getRecordCount() { return recordCount; }
+    
+    /**
+     * Iterate the first {@code limit} bytes of the segment (a value returned by {@link #flush()})
+     */
+    public Iterator<PerformanceMetrics> iterator(long limit) {
+        return new SegmentIterator(limit);
+    }
+    
+    /**
+     * Iterate the records indexed under {@code key} below a flushed limit. Short gaps
+     * are skipped within the read buffer, longer ones by repositioning the file, so
+     * the records in between are never decoded.
+     */
+    public Iterator<PerformanceMetrics> iterator(String key, long limit) {
+        return new OffsetIterator(offsets(key, limit));
+    }
+    
+    public synchronized void delete() {
+        try {
+            out.close();
+            indexOut.close();
+            keyIndexes.clear();
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(indexFile);
+        } catch (IOException e) {
+            System.err.println(" Error deleting metrics spill segment: " + e.getMessage());
+        }
+    }
+    
+    private static void writeRecord(DataOutputStream out, PerformanceMetrics metrics) throws IOException {
+        out.writeByte(RECORD_VERSION);
+        writeString(out, metrics.getStepName());
+        writeString(out, metrics.getScenarioName());
+        writeString(out, metrics.getFeatureName());
+        writeString(out, metrics.getPageUrl());
+        writeString(out, metrics.getRoute());
+        writeString(out, metrics.getScenarioId());
+        writeString(out, metrics.getOutlineId());
+        writeString(out, metrics.getThrottlingProfile());
+        out.writeShort(metrics.getExampleParameters().size());
+        for (Map.Entry<String, String> parameter : metrics.getExampleParameters().entrySet()) {
+            out.writeUTF(parameter.getKey());
+            out.writeUTF(parameter.getValue());
+        }
+        out.writeLong(metrics.getTimestamp());
+        out.writeLong(metrics.getPageLoadTime());
+        out.writeLong(metrics.getDomReadyTime());
+        out.writeLong(metrics.getResponseTime());
+        out.writeLong(metrics.getTtfb());
+        out.writeLong(metrics.getConnectTime());
+        out.writeLong(metrics.getDomainLookupTime());
+        out.writeBoolean(metrics.isFromCache());
+        out.writeInt(metrics.getSampleIndex());
+        out.writeInt(metrics.getConcurrencyLevel());
+        out.writeBoolean(metrics.isDegraded());
+        out.writeLong(metrics.getJsHeapUsedBytes());
+        out.writeLong(metrics.getJsHeapTotalBytes());
+        out.writeLong(metrics.getDomNodes());
+        out.writeLong(metrics.getEventListeners());
+        out.writeLong(metrics.getRendererCpuMillis());
+        out.writeLong(metrics.getRendererRssBytes());
+        writeTimings(out, metrics.getServerTimings());
+        writeTimings(out, metrics.getDocumentServerTimings());
+    }
+    
+    private static PerformanceMetrics readRecord(DataInputStream in) throws IOException {
+        int version = in.readUnsignedByte();
+        if (version != RECORD_VERSION) {
+            throw new IOException("Unsupported spill record version: " + version);
+        }
+        PerformanceMetrics metrics = new PerformanceMetrics();
+        metrics.setStepName(readString(in));
+        metrics.setScenarioName(readString(in));
+        metrics.setFeatureName(readString(in));
+        metrics.setPageUrl(readString(in));
+        metrics.setRoute(readString(in));
+        metrics.setScenarioId(readString(in));
+        metrics.setOutlineId(readString(in));
+        metrics.setThrottlingProfile(readString(in));
+        int parameterCount = in.readUnsignedShort();
+        if (parameterCount > 0) {
+            Map<String, String> parameters = new LinkedHashMap<>();
+            for (int i = 0; i < parameterCount; i++) {
+                parameters.put(in.readUTF(), in.readUTF());
+            }
+            metrics.setExampleParameters(parameters);
+        }
+        metrics.setTimestamp(in.readLong());
+        metrics.setPageLoadTime(in.readLong());
+        metrics.setDomReadyTime(in.readLong());
+        metrics.setResponseTime(in.readLong());
+        metrics.setTtfb(in.readLong());
+        metrics.setConnectTime(in.readLong());
+        metrics.setDomainLookupTime(in.readLong());
+        metrics.setFromCache(in.readBoolean());
+        metrics.setSampleIndex(in.readInt());
+        metrics.setConcurrencyLevel(in.readInt());
+        metrics.setDegraded(in.readBoolean());
+        metrics.setJsHeapUsedBytes(in.readLong());
+        metrics.setJsHeapTotalBytes(in.readLong());
+        metrics.setDomNodes(in.readLong());
+        metrics.setEventListeners(in.readLong());
+        metrics.setRendererCpuMillis(in.readLong());
+        metrics.setRendererRssBytes(in.readLong());
+        metrics.setServerTimings(readTimings(in));
+        metrics.setDocumentServerTimings(readTimings(in));
+        return metrics;
+    }
+    
+    private static void writeTimings(DataOutputStream out, Map<String, Double> timings) throws IOException {
+        out.writeShort(timings.size());
+        for (Map.Entry<String, Double> timing : timings.entrySet()) {
+            out.writeUTF(timing.getKey());
+            out.writeDouble(timing.getValue());
+        }
+    }
+    
+    private static Map<String, Double> readTimings(DataInputStream in) throws IOException {
+        int count = in.readUnsignedShort();
+        if (count == 0) {
+            return null;
+        }
+        Map<String, Double> timings = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            timings.put(in.readUTF(), in.readDouble());
+        }
+        return timings;
+    }
+    
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+    
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+    
+    private class SegmentIterator implements Iterator<PerformanceMetrics> {
+        
+        private final long limit;
+        private CountingInputStream counter;
+        private DataInputStream in;
+        private boolean done;
+        private PerformanceMetrics next;
+        
+        SegmentIterator(long limit) {
+            this.limit = limit;
+        }
+        
+        @Override
+        public boolean hasNext() {
+            if (next == null && !done && (counter == null || counter.position < limit)) {
+                next = readNext();
+            }
+            return next != null;
+        }
+        
+        @Override
+        public PerformanceMetrics next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            PerformanceMetrics result = next;
+            next = null;
+            return result;
+        }
+        
+        private PerformanceMetrics readNext() {
+            try {
+                if (in == null) {
+                    counter = new CountingInputStream(new BufferedInputStream(Files.newInputStream(file), 64 * 1024), 0);
+                    in = new DataInputStream(counter);
+                }
+                PerformanceMetrics metrics = readRecord(in);
+                if (counter.position >= limit) {
+                    closeQuietly();
+                }
+                return metrics;
+            } catch (EOFException e) {
+                closeQuietly();
+                return null;
+            } catch (IOException e) {
+                closeQuietly();
+                throw new UncheckedIOException("Error reading metrics spill segment " + file, e);
+            }
+        }
+        
+        private void closeQuietly() {
+            done = true;
+            try {
+                if (in != null) {
+                    in.close();
+                }
+            } catch (IOException ignored) {
+                // nothing left to read
+            }
+        }
+    }
+    
+    private class OffsetIterator implements Iterator<PerformanceMetrics> {
+        
+        private static final int MAX_SKIP = 64 * 1024;
+        
+        private final PrimitiveIterator.OfLong offsets;
+        private boolean done;
+        private FileChannel channel;
+        private CountingInputStream counter;
+        private DataInputStream in;
+        
+        OffsetIterator(PrimitiveIterator.OfLong offsets) {
+            this.offsets = offsets;
+        }
+        
+        @Override
+        public boolean hasNext() {
+            if (!done && offsets.hasNext()) {
+                return true;
+            }
+            closeQuietly();
+            return false;
+        }
+        
+        @Override
+        public PerformanceMetrics next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            long offset = offsets.nextLong();
+            try {
+                seek(offset);
+                return readRecord(in);
+            } catch (IOException e) {
+                closeQuietly();
+                throw new UncheckedIOException("Error reading metrics spill segment " + file, e);
+            }
+        }
+        
+        private void seek(long offset) throws IOException {
+            if (channel == null) {
+                channel = FileChannel.open(file, StandardOpenOption.READ);
+            }
+            long gap = counter == null ? -1 : offset - counter.position;
+            if (gap >= 0 && gap <= MAX_SKIP) {
+                in.skipBytes((int) gap);
+                return;
+            }
+            // Reading through the channel stream moves the channel position, so set it before wrapping
+            channel.position(offset);
+            counter = new CountingInputStream(new BufferedInputStream(Channels.newInputStream(channel), 64 * 1024), offset);
+            in = new DataInputStream(counter);
+        }
+        
+        private void closeQuietly() {
+            done = true;
+            try {
+                if (channel != null) {
+                    channel.close();
+                    channel = null;
+                }
+            } catch (IOException ignored) {
+                // nothing left to read
+            }
+        }
+    }
+    
+    /**
+     * Index state of one key kept on the heap: the open chunk and the last written one
+     */
+    private static final class KeyIndex {
+        
+        private final long[] open = new long[INDEX_CHUNK];
+        private int openSize;
+        private long lastChunk = -1;
+    }
+    
+    /**
+     * Walks a key's chunk chain back to its first chunk, then yields the written
+     * offsets chunk by chunk followed by the copied open chunk, stopping at the limit
+     */
+    private class IndexIterator implements PrimitiveIterator.OfLong {
+        
+        private final Deque<Long> chunks = new ArrayDeque<>();
+        private final long[] open;
+        private final long limit;
+        private FileChannel channel;
+        private long[] current = new long[0];
+        private int currentSize;
+        private int position;
+        private boolean openRead;
+        
+        IndexIterator(long lastChunk, long[] open, long limit) {
+            this.open = open;
+            this.limit = limit;
+            try {
+                ByteBuffer previous = ByteBuffer.allocate(Long.BYTES);
+                for (long chunk = lastChunk; chunk >= 0; ) {
+                    chunks.push(chunk);
+                    previous.clear();
+                    readFully(previous, chunk);
+                    chunk = previous.getLong(0);
+                }
+            } catch (IOException e) {
+                close();
+                throw new UncheckedIOException("Error reading metrics spill index " + indexFile, e);
+            }
+        }
+        
+        @Override
+        public boolean hasNext() {
+            while (position == currentSize) {
+                if (!advance()) {
+                    close();
+                    return false;
+                }
+            }
+            if (current[position] >= limit) {
+                // Offsets ascend, so everything after was appended past the limit too
+                close();
+                currentSize = position;
+                chunks.clear();
+                openRead = true;
+                return false;
+            }
+            return true;
+        }
+        
+        @Override
+        public long nextLong() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return current[position++];
+        }
+        
+        private boolean advance() {
+            position = 0;
+            if (!chunks.isEmpty()) {
+                try {
+                    ByteBuffer chunk = ByteBuffer.allocate(CHUNK_BYTES);
+                    readFully(chunk, chunks.pop());
+                    chunk.flip();
+                    chunk.getLong();
+                    currentSize = chunk.getInt();
+                    current = new long[currentSize];
+                    chunk.asLongBuffer().get(current);
+                    return true;
+                } catch (IOException e) {
+                    close();
+                    throw new UncheckedIOException("Error reading metrics spill index " + indexFile, e);
+                }
+            }
+            if (!openRead) {
+                openRead = true;
+                current = open;
+                currentSize = open.length;
+                return true;
+            }
+            return false;
+        }
+        
+        private void readFully(ByteBuffer buffer, long at) throws IOException {
+            if (channel == null) {
+                channel = FileChannel.open(indexFile, StandardOpenOption.READ);
+            }
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, at + buffer.position()) < 0) {
+                    throw new EOFException("Truncated metrics spill index chunk at " + at);
+                }
+            }
+        }
+        
+        private void close() {
+            try {
+                if (channel != null) {
+                    channel.close();
+                    channel = null;
+                }
+            } catch (IOException ignored) {
+                // nothing left to read
+            }
+        }
+    }
+    
+    /**
+     * Tracks the file position of a stream reading the segment sequentially
+     */
+    private static class CountingInputStream extends InputStream {
+        
+        private final InputStream delegate;
+        private long position;
+        
+        CountingInputStream(InputStream delegate, long position) {
+            this.delegate = delegate;
+            this.position = position;
+        }
+        
+        @Override
+        public int read() throws IOException {
+            int b = delegate.read();
+            if (b >= 0) {
+                position++;
+            }
+            return b;
+        }
+        
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = delegate.read(buffer, offset, length);
+            if (n > 0) {
+                position += n;
+            }
+            return n;
+        }
+        
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+    }
+}
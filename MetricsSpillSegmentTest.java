@@ -0,0 +1,141 @@
+package com.yourcompany.utils;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PrimitiveIterator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Spills records to a temp segment and reads them back, in full and per key
+ */
+public class MetricsSpillSegmentTest {
+    
+    private static final String[] KEYS = {"a.feature:3", "a.feature:9", "b.feature:4"};
+    
+    private MetricsSpillSegment segment;
+    
+    @After
+    public void deleteSegment() {
+        if (segment != null) {
+            segment.delete();
+        }
+    }
+    
+    private static PerformanceMetrics record(int i) {
+        PerformanceMetrics metrics = new PerformanceMetrics();
+        metrics.setTimestamp(1_700_000_000_000L + i);
+        metrics.setStepName("step " + i);
+        metrics.setScenarioId(KEYS[i % KEYS.length]);
+        metrics.setPageLoadTime(100 + i);
+        metrics.setTtfb(i);
+        metrics.setFromCache(i % 5 == 0);
+        metrics.setSampleIndex(i % 3);
+        // Optional strings stay null on every other record
+        metrics.setRoute(i % 2 == 0 ? "/orders/:id" : null);
+        metrics.setServerTimings(i % 4 == 0 ? Map.of("db", i / 2.0) : Map.of());
+        metrics.setExampleParameters(Map.of("row", String.valueOf(i)));
+        return metrics;
+    }
+    
+    private static void assertRecord(int i, PerformanceMetrics metrics) {
+        assertEquals(1_700_000_000_000L + i, metrics.getTimestamp());
+        assertEquals("step " + i, metrics.getStepName());
+        assertEquals(KEYS[i % KEYS.length], metrics.getScenarioId());
+        assertEquals(100 + i, metrics.getPageLoadTime());
+        assertEquals(i, metrics.getTtfb());
+        assertEquals(i % 5 == 0, metrics.isFromCache());
+        assertEquals(i % 3, metrics.getSampleIndex());
+        if (i % 2 == 0) {
+            assertEquals("/orders/:id", metrics.getRoute());
+        } else {
+            assertNull(metrics.getRoute());
+        }
+        assertEquals(i % 4 == 0 ? Map.of("db", i / 2.0) : Map.of(), metrics.getServerTimings());
+        assertEquals(Map.of("row", String.valueOf(i)), metrics.getExampleParameters());
+    }
+    
+    private void append(int from, int to) throws IOException {
+        for (int i = from; i < to; i++) {
+            segment.append(record(i), KEYS[i % KEYS.length]);
+        }
+    }
+    
+    @Test
+    public void recordsReadBackInInsertionOrder() throws IOException {
+        segment = new MetricsSpillSegment(Files.createTempDirectory("spill-"));
+        append(0, 500);
+        
+        Iterator<PerformanceMetrics> records = segment.iterator(segment.flush());
+        for (int i = 0; i < 500; i++) {
+            assertTrue(records.hasNext());
+            assertRecord(i, records.next());
+        }
+        assertFalse(records.hasNext());
+        assertEquals(500, segment.getRecordCount());
+    }
+    
+    @Test
+    public void keyIndexSpansSeveralChunks() throws IOException {
+        segment = new MetricsSpillSegment(Files.createTempDirectory("spill-"));
+        // Well over INDEX_CHUNK records per key, ending with a partly filled open chunk
+        int count = KEYS.length * (3 * MetricsSpillSegment.INDEX_CHUNK + 5);
+        append(0, count);
+        long limit = segment.flush();
+        
+        for (int k = 0; k < KEYS.length; k++) {
+            List<Integer> expected = new ArrayList<>();
+            for (int i = k; i < count; i += KEYS.length) {
+                expected.add(i);
+            }
+            Iterator<PerformanceMetrics> records = segment.iterator(KEYS[k], limit);
+            for (int i : expected) {
+                assertRecord(i, records.next());
+            }
+            assertFalse(records.hasNext());
+            
+            PrimitiveIterator.OfLong offsets = segment.offsets(KEYS[k], limit);
+            long previous = -1;
+            int seen = 0;
+            while (offsets.hasNext()) {
+                long offset = offsets.nextLong();
+                assertTrue(offset > previous);
+                previous = offset;
+                seen++;
+            }
+            assertEquals(expected.size(), seen);
+        }
+        assertFalse(segment.iterator("unknown", limit).hasNext());
+    }
+    
+    @Test
+    public void limitHidesRecordsAppendedAfterTheFlush() throws IOException {
+        segment = new MetricsSpillSegment(Files.createTempDirectory("spill-"));
+        append(0, 100);
+        long limit = segment.flush();
+        append(100, 300);
+        segment.flush();
+        
+        int all = 0;
+        for (Iterator<PerformanceMetrics> records = segment.iterator(limit); records.hasNext(); all++) {
+            assertRecord(all, records.next());
+        }
+        assertEquals(100, all);
+        
+        int keyed = 0;
+        for (Iterator<PerformanceMetrics> records = segment.iterator(KEYS[1], limit); records.hasNext(); keyed++) {
+            assertRecord(1 + keyed * KEYS.length, records.next());
+        }
+        assertEquals(33, keyed);
+    }
+}
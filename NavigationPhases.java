@@ -0,0 +1,86 @@
+package com.yourcompany.hooks;
+
+import com.yourcompany.utils.PerformanceMetrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Places the navigation phases of a document load on the wall clock: DNS,
+ * connect, request (TTFB), response, DOM processing, load. The phases come from
+ * the navigation entry's own offsets on the browser clock, so gaps (redirects,
+ * queueing) and overlaps show as they happened rather than back to back.
+ */
+public final class NavigationPhases {
+    
+    public enum Kind {
+        DNS("dns"),
+        CONNECT("connect"),
+        REQUEST("request"),
+        RESPONSE("response"),
+        DOM("dom processing"),
+        LOAD("load");
+        
+        private final String label;
+        
+        Kind(String label) {
+            this.label = label;
+        }
+        
+        public String getLabel() { return label; }
+    }
+    
+    public static final class Phase {
+        
+        private final Kind kind;
+        private final double start;
+        private final double end;
+        
+        Phase(Kind kind, double start, double end) {
+            this.kind = kind;
+            this.start = start;
+            this.end = end;
+        }
+        
+        public Kind getKind() { return kind; }
+        
+        /** Epoch milliseconds */
+        public double getStart() { return start; }
+        
+        /** Epoch milliseconds */
+        public double getEnd() { return end; }
+    }
+    
+    private NavigationPhases() {
+    }
+    
+    public static double stepStart(PerformanceMetrics metrics) {
+        return metrics.getTimestamp() - metrics.getPageLoadTime();
+    }
+    
+    public static double stepEnd(PerformanceMetrics metrics) {
+        return metrics.getTimestamp();
+    }
+    
+    /**
+     * Phases from a navigation entry's marks, relative to {@code timeOrigin} (epoch milliseconds):
+     * domainLookupStart/End, connectStart/End, requestStart, responseStart, responseEnd,
+     * domContentLoadedEventEnd and loadEventEnd. A mark that has not happened yet (0) ends its phase at its start.
+     */
+    public static List<Phase> fromNavigationTiming(double timeOrigin, double[] marks) {
+        List<Phase> phases = new ArrayList<>(Kind.values().length);
+        addBetween(phases, Kind.DNS, timeOrigin, marks[0], marks[1]);
+        addBetween(phases, Kind.CONNECT, timeOrigin, marks[2], marks[3]);
+        addBetween(phases, Kind.REQUEST, timeOrigin, marks[4], marks[5]);
+        addBetween(phases, Kind.RESPONSE, timeOrigin, marks[5], marks[6]);
+        addBetween(phases, Kind.DOM, timeOrigin, marks[6], marks[7]);
+        addBetween(phases, Kind.LOAD, timeOrigin, marks[7], marks[8]);
+        return Collections.unmodifiableList(phases);
+    }
+    
+    private static void addBetween(List<Phase> phases, Kind kind, double timeOrigin, double startOffset, double endOffset) {
+        double start = timeOrigin + startOffset;
+        phases.add(new Phase(kind, start, timeOrigin + Math.max(startOffset, endOffset)));
+    }
+}
@@ -0,0 +1,260 @@
+package com.yourcompany.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Batching exporter that writes spans as OTLP-JSON files
+ * ({@code ExportTraceServiceRequest}), one file per batch, for a local
+ * collector or trace viewer to pick up. Nothing goes over the network.
+ *
+ * Spans are handed over through a bounded queue ({@code performance.trace.queueSize},
+ * default 4096) and written by a single daemon thread in batches of up to
+ * {@code performance.trace.batchSize} (default 512), or every
+ * {@code performance.trace.flushIntervalMs} (default 2s). When the queue is full
+ * new spans are dropped and counted instead of blocking the test thread.
+ * {@link #shutdown} lets the writer drain the queue and waits for it (up to
+ * {@code performance.trace.shutdownTimeoutMs}, default 30s) rather than interrupting it.
+ */
+public class OtlpTraceExporter {
+    
+    private static final OtlpTraceExporter DEFAULT = new OtlpTraceExporter(
+        Paths.get(System.getProperty("performance.trace.dir", "target/allure-results/traces")),
+        Integer.getInteger("performance.trace.queueSize", 4096),
+        Integer.getInteger("performance.trace.batchSize", 512),
+        Long.getLong("performance.trace.flushIntervalMs", 2000L)
+    );
+    
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    
+    private static final long SHUTDOWN_TIMEOUT_MS = Long.getLong("performance.trace.shutdownTimeoutMs", 30_000L);
+    
+    // Queued by shutdown to wake a writer waiting on an empty queue; never written
+    private static final Map<String, Object> WAKE = Collections.unmodifiableMap(new LinkedHashMap<>());
+    
+    private final Path directory;
+    private final BlockingQueue<Map<String, Object>> queue;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final AtomicLong droppedSpans = new AtomicLong();
+    private final AtomicLong exportedSpans = new AtomicLong();
+    private final String filePrefix = "spans-" + ProcessHandle.current().pid() + "-";
+    private long fileSequence = 0;
+    private Thread worker;
+    private volatile boolean running = false;
+    
+    public OtlpTraceExporter(Path directory, int queueSize, int batchSize, long flushIntervalMs) {
+        this.directory = directory;
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+    }
+    
+    public static OtlpTraceExporter getDefault() {
+        return DEFAULT;
+    }
+    
+    public static boolean isEnabled() {
+        return Boolean.getBoolean("performance.trace.enabled");
+    }
+    
+    /**
+     * Queue spans for export, starting the writer thread on first use
+     */
+    public void export(List<Map<String, Object>> spans) {
+        ensureStarted();
+        for (Map<String, Object> span : spans) {
+            if (!queue.offer(span) && droppedSpans.getAndIncrement() == 0) {
+                System.err.println("⚠️ Trace export queue full, dropping spans");
+            }
+        }
+    }
+    
+    private synchronized void ensureStarted() {
+        if (worker != null) {
+            return;
+        }
+        running = true;
+        worker = new Thread(this::drainLoop, "otlp-trace-exporter");
+        worker.setDaemon(true);
+        worker.start();
+    }
+    
+    /**
+     * Write batches until shutdown has been requested and the queue is empty
+     */
+    private void drainLoop() {
+        List<Map<String, Object>> batch = new ArrayList<>(batchSize);
+        try {
+            while (running || !queue.isEmpty()) {
+                Map<String, Object> first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                writeSpans(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * Let the writer drain the queue and wait for it, then write anything queued
+     * after it stopped (end of suite)
+     */
+    public void shutdown() {
+        shutdown(SHUTDOWN_TIMEOUT_MS);
+    }
+    
+    /**
+     * {@link #shutdown()} waiting at most {@code timeoutMs} for the writer; the
+     * JVM shutdown hook passes a short bound so exit is not held up
+     */
+    public void shutdown(long timeoutMs) {
+        Thread current;
+        synchronized (this) {
+            current = worker;
+            running = false;
+        }
+        if (current != null && current.isAlive()) {
+            // If the queue is full the writer is busy and sees the flag after this batch
+            queue.offer(WAKE);
+            try {
+                current.join(timeoutMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (current.isAlive()) {
+                System.err.println("⚠️ Trace writer still busy after " + timeoutMs + " ms, writing the rest here");
+            }
+        }
+        
+        List<Map<String, Object>> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            writeSpans(batch);
+            batch.clear();
+        }
+        
+        if (exportedSpans.get() > 0 || droppedSpans.get() > 0) {
+            System.out.println(String.format("✅ Exported %d spans to %s (%d dropped)",
+                exportedSpans.get(), directory.toAbsolutePath(), droppedSpans.get()));
+        }
+    }
+    
+    private void writeSpans(List<Map<String, Object>> batch) {
+        batch.removeIf(span -> span == WAKE);
+        if (!batch.isEmpty()) {
+            writeBatch(batch);
+        }
+    }
+    
+    private synchronized void writeBatch(List<Map<String, Object>> spans) {
+        Map<String, Object> scope = new LinkedHashMap<>();
+        scope.put("scope", Collections.singletonMap("name", "allure-performance-report"));
+        scope.put("spans", spans);
+        
+        Map<String, Object> resource = new LinkedHashMap<>();
+        resource.put("attributes", Collections.singletonList(
+            attribute("service.name", System.getProperty("performance.trace.serviceName", "ui-performance-tests"))));
+        
+        Map<String, Object> resourceSpans = new LinkedHashMap<>();
+        resourceSpans.put("resource", resource);
+        resourceSpans.put("scopeSpans", Collections.singletonList(scope));
+        
+        Path file = directory.resolve(String.format("%s%06d.json", filePrefix, fileSequence++));
+        try {
+            AtomicFiles.write(file, MAPPER.writeValueAsBytes(
+                Collections.singletonMap("resourceSpans", Collections.singletonList(resourceSpans))));
+            exportedSpans.addAndGet(spans.size());
+        } catch (IOException e) {
+            System.err.println("❌ Error writing trace batch " + file + ": " + e.getMessage());
+        }
+    }
+    
+    public long getDroppedSpans() { return droppedSpans.get(); }
+    
+    public long getExportedSpans() { return exportedSpans.get(); }
+    
+    // ═══════════════════════════════════════════════════
+    // OTLP-JSON helpers
+    // ═══════════════════════════════════════════════════
+    
+    public static String newTraceId() {
+        return randomHex(16);
+    }
+    
+    public static String newSpanId() {
+        return randomHex(8);
+    }
+    
+    private static String randomHex(int bytes) {
+        StringBuilder hex = new StringBuilder(bytes * 2);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < bytes; i++) {
+            hex.append(String.format("%02x", random.nextInt(256)));
+        }
+        return hex.toString();
+    }
+    
+    /**
+     * An internal span; times are epoch milliseconds (fractions allowed), attribute values strings or numbers
+     */
+    public static Map<String, Object> span(String traceId, String spanId, String parentSpanId, String name,
+                                           double startMillis, double endMillis, Map<String, Object> attributes) {
+        Map<String, Object> span = new LinkedHashMap<>();
+        span.put("traceId", traceId);
+        span.put("spanId", spanId);
+        if (parentSpanId != null) {
+            span.put("parentSpanId", parentSpanId);
+        }
+        span.put("name", name);
+        span.put("kind", 1);
+        // OTLP-JSON encodes 64-bit integers as strings
+        span.put("startTimeUnixNano", String.valueOf(toNanos(startMillis)));
+        span.put("endTimeUnixNano", String.valueOf(toNanos(Math.max(startMillis, endMillis))));
+        
+        List<Map<String, Object>> encoded = new ArrayList<>();
+        attributes.forEach((key, value) -> encoded.add(attribute(key, value)));
+        span.put("attributes", encoded);
+        return span;
+    }
+    
+    // Epoch nanoseconds exceed double precision, so only the fraction goes through floating point
+    private static long toNanos(double epochMillis) {
+        long wholeMillis = (long) Math.floor(epochMillis);
+        return wholeMillis * 1_000_000 + Math.round((epochMillis - wholeMillis) * 1_000_000);
+    }
+    
+    private static Map<String, Object> attribute(String key, Object value) {
+        Map<String, Object> typed = new LinkedHashMap<>();
+        if (value instanceof Integer || value instanceof Long) {
+            typed.put("intValue", String.valueOf(value));
+        } else if (value instanceof Number) {
+            typed.put("doubleValue", ((Number) value).doubleValue());
+        } else if (value instanceof Boolean) {
+            typed.put("boolValue", value);
+        } else {
+            typed.put("stringValue", String.valueOf(value));
+        }
+        Map<String, Object> attribute = new LinkedHashMap<>();
+        attribute.put("key", key);
+        attribute.put("value", typed);
+        return attribute;
+    }
+}
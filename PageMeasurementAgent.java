@@ -0,0 +1,380 @@
+package com.yourcompany.hooks;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chromium.HasCdp;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * Resident measurement script kept in every document of a session. Observers
+ * buffer resource entries, Server-Timing sub-durations and navigation data in
+ * the page as they arrive, so each step only runs a tiny {@link #flush} call
+ * that returns what was buffered since the previous step mark. All times stay
+ * on the browser's clock: {@code performance.timeOrigin} plus entry offsets.
+ *
+ * On Chromium the agent is registered once per driver session with CDP
+ * {@code Page.addScriptToEvaluateOnNewDocument}, so it is already running when
+ * a new document starts. Step hooks build an agent per scenario; scenarios
+ * that share a driver reuse its registration instead of stacking copies. Otherwise (or for the document that was open before
+ * registration) it is injected on first use. Every flush checks the agent's
+ * version and reinstalls it if the page has none or an older one.
+ *
+ * Entries come either from PerformanceObservers or, where the browser cannot
+ * observe both entry types, from polling the performance timeline; never both,
+ * so no entry is recorded twice.
+ *
+ * The agent also watches the document for mutations and URL changes. A flush
+ * of a step that changed nothing returns only that verdict and keeps the
+ * buffers for the next step that does; one that changed the page also returns
+ * the document's navigation timing, so step hooks need no other script call.
+ */
+public class PageMeasurementAgent {
+    
+    static final int VERSION = 5;
+    
+    private static final int MAX_RESOURCES = Integer.getInteger("performance.waterfall.maxResources", 5000);
+    
+    private static final String SOURCE = String.join("\n",
+        "(function(version, maxResources) {",
+        "  if (window.__perfAgent && window.__perfAgent.version >= version) return;",
+        "  var resources, serverTimings, documentTimings, navigation, dropped, polled = 0, observers = [];",
+        "  var changed = true, watching = false, href = location.href;",
+        "  function reset() {",
+        "    resources = {names: [], types: [], timings: []}; serverTimings = {}; documentTimings = {}; navigation = null; dropped = 0;",
+        "  }",
+        "  function record(entry) {",
+        "    (entry.serverTiming || []).forEach(function(t) {",
+        "      serverTimings[t.name] = (serverTimings[t.name] || 0) + t.duration;",
+        "      if (entry.entryType === 'navigation') documentTimings[t.name] = (documentTimings[t.name] || 0) + t.duration;",
+        "    });",
+        "    if (entry.entryType === 'navigation') {",
+        "      navigation = [entry.domainLookupStart, entry.domainLookupEnd, entry.connectStart, entry.connectEnd,",
+        "        entry.requestStart, entry.responseStart, entry.responseEnd, entry.domContentLoadedEventEnd, entry.loadEventEnd];",
+        "    }",
+        "    if (entry.entryType !== 'resource') return;",
+        "    if (resources.names.length >= maxResources) { dropped++; return; }",
+        "    resources.names.push(entry.name); resources.types.push(entry.initiatorType);",
+        "    resources.timings.push(entry.startTime, entry.duration);",
+        "  }",
+        "  reset();",
+        "  try {",
+        "    ['navigation', 'resource'].forEach(function(type) {",
+        "      var observer = new PerformanceObserver(function(list) { list.getEntries().forEach(record); });",
+        "      observers.push(observer);",
+        "      observer.observe({type: type, buffered: true});",
+        "    });",
+        "  } catch (e) {",
+        "    // All or nothing: an observer left running would record what polling records again",
+        "    observers.forEach(function(o) { o.disconnect(); });",
+        "    observers = null;",
+        "  }",
+        "  try {",
+        "    new MutationObserver(function() { changed = true; })",
+        "      .observe(document, {childList: true, subtree: true, attributes: true, characterData: true});",
+        "    watching = true;",
+        "  } catch (e) {}",
+        "  function page() {",
+        "    var nav = performance.getEntriesByType('navigation')[0];",
+        "    if (!nav) return null;",
+        "    return {timing: [nav.startTime, nav.domainLookupStart, nav.domainLookupEnd, nav.connectStart, nav.connectEnd,",
+        "        nav.requestStart, nav.responseStart, nav.responseEnd, nav.domContentLoadedEventEnd, nav.loadEventEnd],",
+        "      fromCache: nav.transferSize === 0 && nav.decodedBodySize > 0, json: JSON.stringify(nav)};",
+        "  }",
+        "  window.__perfAgent = {",
+        "    version: version,",
+        "    flush: function(mark) {",
+        "      if (observers) {",
+        "        // Deliver entries the observers have queued but not yet reported",
+        "        observers.forEach(function(o) { o.takeRecords().forEach(record); });",
+        "      } else {",
+        "        if (polled === 0) performance.getEntriesByType('navigation').forEach(record);",
+        "        var all = performance.getEntriesByType('resource');",
+        "        all.slice(polled).forEach(record); polled = all.length;",
+        "      }",
+        "      if (location.href !== href) { href = location.href; changed = true; }",
+        "      // Without a mutation observer every step counts as a change",
+        "      if (watching && !changed) return {version: version, domChanged: false};",
+        "      changed = false;",
+        "      if (mark) { try { performance.mark('perf-agent:' + mark); } catch (e) {} }",
+        "      var m = performance.memory;",
+        "      var result = {version: version, origin: performance.timeOrigin, resources: resources,",
+        "        serverTimings: serverTimings, documentTimings: documentTimings, navigation: navigation, dropped: dropped,",
+        "        domChanged: true, page: page(),",
+        "        memory: [m ? m.usedJSHeapSize : -1, m ? m.totalJSHeapSize : -1, document.getElementsByTagName('*').length]};",
+        "      reset();",
+        "      return result;",
+        "    }",
+        "  };",
+        "})(" + VERSION + ", " + MAX_RESOURCES + ");");
+    
+    private static final String FLUSH =
+        "var a = window.__perfAgent; return a && a.version === arguments[0] ? a.flush(arguments[1]) : null;";
+    
+    /**
+     * Everything the agent buffered between two step marks
+     */
+    public static final class Flush {
+        
+        static final Flush EMPTY = new Flush(Collections.emptyMap());
+        
+        private final Map<String, Object> result;
+        
+        private Flush(Map<String, Object> result) {
+            this.result = result;
+        }
+        
+        public boolean isEmpty() {
+            return result.isEmpty();
+        }
+        
+        /**
+         * Server-Timing durations of the navigation and resources since the last flush, summed per name
+         */
+        public Map<String, Double> getServerTimings() {
+            return timings("serverTimings");
+        }
+        
+        /**
+         * Server-Timing durations of the document request alone (empty if no navigation happened since the last flush)
+         */
+        public Map<String, Double> getDocumentServerTimings() {
+            return timings("documentTimings");
+        }
+        
+        @SuppressWarnings("unchecked")
+        private Map<String, Double> timings(String key) {
+            Map<String, Double> timings = new LinkedHashMap<>();
+            Map<String, Object> raw = (Map<String, Object>) result.get(key);
+            if (raw != null) {
+                raw.forEach((name, duration) -> timings.put(name, ((Number) duration).doubleValue()));
+            }
+            return timings;
+        }
+        
+        /**
+         * JS heap used, JS heap total (-1 without {@code performance.memory}) and DOM element count, or null
+         */
+        @SuppressWarnings("unchecked")
+        public long[] getMemory() {
+            List<Object> memory = (List<Object>) result.get("memory");
+            if (memory == null) {
+                return null;
+            }
+            return new long[] {
+                ((Number) memory.get(0)).longValue(),
+                ((Number) memory.get(1)).longValue(),
+                ((Number) memory.get(2)).longValue()
+            };
+        }
+        
+        /**
+         * Phases of the document navigation recorded since the last flush, on the browser clock;
+         * empty when the step did not load a document (SPA route change, in-page action)
+         */
+        @SuppressWarnings("unchecked")
+        public List<NavigationPhases.Phase> getNavigationPhases() {
+            List<Object> navigation = (List<Object>) result.get("navigation");
+            if (navigation == null) {
+                return Collections.emptyList();
+            }
+            double[] marks = new double[navigation.size()];
+            for (int i = 0; i < marks.length; i++) {
+                marks[i] = ((Number) navigation.get(i)).doubleValue();
+            }
+            return NavigationPhases.fromNavigationTiming(((Number) result.get("origin")).doubleValue(), marks);
+        }
+        
+        /**
+         * Visit the buffered resource entries in the order they were observed
+         */
+        @SuppressWarnings("unchecked")
+        public void forEachResource(ResourceVisitor visitor) {
+            Map<String, Object> resources = (Map<String, Object>) result.get("resources");
+            if (resources == null) {
+                return;
+            }
+            double origin = ((Number) result.get("origin")).doubleValue();
+            List<Object> names = (List<Object>) resources.get("names");
+            List<Object> types = (List<Object>) resources.get("types");
+            List<Object> timings = (List<Object>) resources.get("timings");
+            for (int i = 0; i < names.size(); i++) {
+                double start = origin + ((Number) timings.get(2 * i)).doubleValue();
+                double duration = ((Number) timings.get(2 * i + 1)).doubleValue();
+                visitor.visit(String.valueOf(types.get(i)), String.valueOf(names.get(i)), start, duration);
+            }
+        }
+        
+        /**
+         * Add the buffered resource entries to a scenario waterfall
+         */
+        public void addResourcesTo(WaterfallRecorder recorder) {
+            forEachResource((initiatorType, url, start, duration) -> recorder.addResource(initiatorType + " " + url, start, duration));
+        }
+        
+        public long getDroppedResources() {
+            Object dropped = result.get("dropped");
+            return dropped instanceof Number ? ((Number) dropped).longValue() : 0;
+        }
+        
+        /**
+         * Whether the DOM or the URL changed since the last flush. When it did not, the flush carries
+         * nothing else: the agent keeps its buffers for the next step that changes the page.
+         */
+        public boolean hasDOMChanged() {
+            return Boolean.TRUE.equals(result.get("domChanged"));
+        }
+        
+        /**
+         * Navigation timing of the current document, or null if the page did not change or has no navigation entry
+         */
+        @SuppressWarnings("unchecked")
+        public PageTiming getPageTiming() {
+            Map<String, Object> page = (Map<String, Object>) result.get("page");
+            if (page == null) {
+                return null;
+            }
+            List<Object> timing = (List<Object>) page.get("timing");
+            double[] marks = new double[timing.size()];
+            for (int i = 0; i < marks.length; i++) {
+                marks[i] = ((Number) timing.get(i)).doubleValue();
+            }
+            return PageTiming.fromNavigationTiming(marks, Boolean.TRUE.equals(page.get("fromCache")));
+        }
+        
+        /**
+         * The current document's navigation entry as JSON, or null if the page did not change or has none
+         */
+        @SuppressWarnings("unchecked")
+        public String getNavigationJSON() {
+            Map<String, Object> page = (Map<String, Object>) result.get("page");
+            return page != null ? (String) page.get("json") : null;
+        }
+    }
+    
+    /**
+     * Page-level timings of a document in whole milliseconds
+     */
+    public static final class PageTiming {
+        
+        private final long pageLoadTime;
+        private final long domReadyTime;
+        private final long responseTime;
+        private final long ttfb;
+        private final long connectTime;
+        private final long domainLookupTime;
+        private final boolean fromCache;
+        
+        PageTiming(long pageLoadTime, long domReadyTime, long responseTime, long ttfb,
+                   long connectTime, long domainLookupTime, boolean fromCache) {
+            this.pageLoadTime = pageLoadTime;
+            this.domReadyTime = domReadyTime;
+            this.responseTime = responseTime;
+            this.ttfb = ttfb;
+            this.connectTime = connectTime;
+            this.domainLookupTime = domainLookupTime;
+            this.fromCache = fromCache;
+        }
+        
+        /**
+         * From startTime, domainLookupStart, domainLookupEnd, connectStart, connectEnd, requestStart,
+         * responseStart, responseEnd, domContentLoadedEventEnd and loadEventEnd. A mark that has not
+         * happened yet (0) gives 0 for the timings it ends.
+         */
+        static PageTiming fromNavigationTiming(double[] marks, boolean fromCache) {
+            return new PageTiming(
+                between(marks[0], marks[9]),
+                between(marks[0], marks[8]),
+                between(marks[5], marks[7]),
+                between(marks[5], marks[6]),
+                between(marks[3], marks[4]),
+                between(marks[1], marks[2]),
+                fromCache);
+        }
+        
+        private static long between(double start, double end) {
+            return Math.max(0, Math.round(end - start));
+        }
+        
+        public long getPageLoadTime() { return pageLoadTime; }
+        public long getDomReadyTime() { return domReadyTime; }
+        public long getResponseTime() { return responseTime; }
+        public long getTtfb() { return ttfb; }
+        public long getConnectTime() { return connectTime; }
+        public long getDomainLookupTime() { return domainLookupTime; }
+        public boolean isFromCache() { return fromCache; }
+    }
+    
+    /**
+     * Receives one resource entry; the start is epoch milliseconds on the browser clock
+     */
+    public interface ResourceVisitor {
+        void visit(String initiatorType, String url, double startEpochMillis, double durationMillis);
+    }
+    
+    // Drivers the agent is registered in; weakly held, so a quit driver drops out and its slot is never reused
+    private static final Set<WebDriver> REGISTERED_DRIVERS = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+    
+    private final WebDriver driver;
+    private boolean registeredOnNewDocument = false;
+    private int injections = 0;
+    
+    public PageMeasurementAgent(WebDriver driver) {
+        this.driver = driver;
+        registerOnNewDocument();
+    }
+    
+    private void registerOnNewDocument() {
+        if (!(driver instanceof HasCdp)) {
+            return;
+        }
+        if (REGISTERED_DRIVERS.contains(driver)) {
+            registeredOnNewDocument = true;
+            return;
+        }
+        try {
+            ((HasCdp) driver).executeCdpCommand("Page.addScriptToEvaluateOnNewDocument",
+                Collections.singletonMap("source", SOURCE));
+            REGISTERED_DRIVERS.add(driver);
+            registeredOnNewDocument = true;
+        } catch (Exception e) {
+            System.err.println("⚠️ Could not register measurement agent for new documents, injecting on use: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Mark the end of a step in the page and return what the agent buffered since the previous mark
+     */
+    @SuppressWarnings("unchecked")
+    public Flush flush(String stepMark) {
+        if (!(driver instanceof JavascriptExecutor)) {
+            return Flush.EMPTY;
+        }
+        JavascriptExecutor js = (JavascriptExecutor) driver;
+        try {
+            Map<String, Object> result = (Map<String, Object>) js.executeScript(FLUSH, VERSION, stepMark);
+            if (result == null) {
+                // Document without the agent (first use, or opened before registration): install and retry
+                js.executeScript(SOURCE);
+                injections++;
+                result = (Map<String, Object>) js.executeScript(FLUSH, VERSION, stepMark);
+            }
+            return result != null ? new Flush(result) : Flush.EMPTY;
+        } catch (Exception e) {
+            System.err.println("⚠️ Measurement agent flush failed: " + e.getMessage());
+            return Flush.EMPTY;
+        }
+    }
+    
+    public boolean isRegisteredOnNewDocument() { return registeredOnNewDocument; }
+    
+    /**
+     * Number of times the agent had to be injected through executeScript
+     */
+    public int getInjections() { return injections; }
+}
@@ -0,0 +1,148 @@
+package com.yourcompany.utils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Layout constants and varint helpers for the columnar binary metrics file.
+ *
+ * <pre>
+ * header   : magic "APRF", version byte, 3 reserved bytes
+ * dictionary: varint count, then (varint length, UTF-8 bytes) per entry; id 0 is null
+ * columns  : one section per {@link Column}, rows in insertion order
+ * blocks   : varint rows per block, varint block count, then per block and column
+ *            (varint byte offset into the column section, zigzag varint of the previous
+ *            row's value for DELTA columns)
+ * index    : varint scenario count, then per scenario key (scenario id, else name)
+ *            (varint dictionary id, varint row count, delta-varint row numbers)
+ * footer   : long rows, long/long dictionary, long/long per column, long/long blocks,
+ *            long/long index
+ * trailer  : int footer length, magic "APRF"
+ * </pre>
+ *
+ * The block table lets a reader start decoding at any multiple of
+ * {@link #BLOCK_ROWS}, so reading one scenario's rows does not decode the file
+ * from the start.
+ */
+public final class PerformanceBinaryFormat {
+    
+    public static final byte[] MAGIC = {'A', 'P', 'R', 'F'};
+    public static final int VERSION = 4;
+    public static final int HEADER_LENGTH = 8;
+    public static final int TRAILER_LENGTH = 8;
+    
+    // Multiple of 8, so BITS columns start each block on a byte boundary
+    public static final int BLOCK_ROWS = 1024;
+    
+    /**
+     * Columns stored in the file, in on-disk order
+     */
+    public enum Column {
+        TIMESTAMP(Encoding.DELTA),
+        PAGE_LOAD(Encoding.ZIGZAG),
+        DOM_READY(Encoding.ZIGZAG),
+        RESPONSE(Encoding.ZIGZAG),
+        TTFB(Encoding.ZIGZAG),
+        CONNECT(Encoding.ZIGZAG),
+        DOMAIN_LOOKUP(Encoding.ZIGZAG),
+        FROM_CACHE(Encoding.BITS),
+        DEGRADED(Encoding.BITS),
+        SAMPLE_INDEX(Encoding.ZIGZAG),
+        CONCURRENCY(Encoding.ZIGZAG),
+        JS_HEAP_USED(Encoding.ZIGZAG),
+        JS_HEAP_TOTAL(Encoding.ZIGZAG),
+        DOM_NODES(Encoding.ZIGZAG),
+        EVENT_LISTENERS(Encoding.ZIGZAG),
+        RENDERER_CPU(Encoding.ZIGZAG),
+        RENDERER_RSS(Encoding.ZIGZAG),
+        SCENARIO(Encoding.DICTIONARY),
+        SCENARIO_ID(Encoding.DICTIONARY),
+        OUTLINE_ID(Encoding.DICTIONARY),
+        FEATURE(Encoding.DICTIONARY),
+        STEP(Encoding.DICTIONARY),
+        PAGE_URL(Encoding.DICTIONARY),
+        ROUTE(Encoding.DICTIONARY),
+        THROTTLING_PROFILE(Encoding.DICTIONARY),
+        EXAMPLE_PARAMETERS(Encoding.STRING_MAP),
+        SERVER_TIMINGS(Encoding.DOUBLE_MAP),
+        DOCUMENT_SERVER_TIMINGS(Encoding.DOUBLE_MAP);
+        
+        private final Encoding encoding;
+        
+        Column(Encoding encoding) {
+            this.encoding = encoding;
+        }
+        
+        public Encoding getEncoding() { return encoding; }
+        
+        public static Column of(MetricField field) {
+            switch (field) {
+                case PAGE_LOAD: return PAGE_LOAD;
+                case DOM_READY: return DOM_READY;
+                case RESPONSE: return RESPONSE;
+                case TTFB: return TTFB;
+                case CONNECT: return CONNECT;
+                default: return DOMAIN_LOOKUP;
+            }
+        }
+        
+        public static Column of(ResourceField field) {
+            switch (field) {
+                case JS_HEAP_USED: return JS_HEAP_USED;
+                case JS_HEAP_TOTAL: return JS_HEAP_TOTAL;
+                case DOM_NODES: return DOM_NODES;
+                case EVENT_LISTENERS: return EVENT_LISTENERS;
+                case RENDERER_CPU: return RENDERER_CPU;
+                default: return RENDERER_RSS;
+            }
+        }
+    }
+    
+    public enum Encoding {
+        /** zigzag varint of the difference to the previous row */
+        DELTA,
+        /** zigzag varint of the value */
+        ZIGZAG,
+        /** one bit per row, least significant bit first */
+        BITS,
+        /** unsigned varint dictionary id */
+        DICTIONARY,
+        /** varint entry count, then (varint name id, varint value id) per entry */
+        STRING_MAP,
+        /** varint entry count, then (varint name id, 8-byte IEEE 754 double) per entry */
+        DOUBLE_MAP
+    }
+    
+    private PerformanceBinaryFormat() {
+    }
+    
+    public static void writeVarLong(OutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+    
+    public static long readVarLong(ByteBuffer in) {
+        long result = 0;
+        int shift = 0;
+        while (true) {
+            byte b = in.get();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+            shift += 7;
+        }
+    }
+    
+    public static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+    
+    public static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,442 @@
+package com.yourcompany.utils;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.yourcompany.utils.PerformanceBinaryFormat.Column;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+import static com.yourcompany.utils.PerformanceBinaryFormat.readVarLong;
+import static com.yourcompany.utils.PerformanceBinaryFormat.unzigzag;
+
+/**
+ * Memory-mapped reader for binary metrics files.
+ * Each column is mapped on its own, so scanning one metric never touches the others,
+ * and the block table lets row lookups start decoding close to the requested row.
+ *
+ * Usage as a converter: {@code PerformanceBinaryReader <metrics.bin> <performance-metrics.json>}
+ */
+public class PerformanceBinaryReader implements Closeable {
+    
+    private static final Column[] COLUMNS = Column.values();
+    
+    private final FileChannel channel;
+    private final long rowCount;
+    private final List<String> dictionary;
+    private final long[][] columnSections = new long[COLUMNS.length][];
+    private final int blockRows;
+    // [block][column * 2] byte offset, [block][column * 2 + 1] previous DELTA value
+    private final long[][] blocks;
+    private final Map<String, long[]> scenarioIndex;
+    
+    public PerformanceBinaryReader(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, PerformanceBinaryFormat.HEADER_LENGTH);
+            ByteBuffer trailer = channel.map(FileChannel.MapMode.READ_ONLY,
+                size - PerformanceBinaryFormat.TRAILER_LENGTH, PerformanceBinaryFormat.TRAILER_LENGTH);
+            checkMagic(header, file);
+            int version = header.get(4);
+            if (version != PerformanceBinaryFormat.VERSION) {
+                throw new IOException("Unsupported binary metrics version " + version + " in " + file);
+            }
+            int footerLength = trailer.getInt();
+            checkMagic(trailer, file);
+            
+            ByteBuffer footer = channel.map(FileChannel.MapMode.READ_ONLY,
+                size - PerformanceBinaryFormat.TRAILER_LENGTH - footerLength, footerLength);
+            this.rowCount = footer.getLong();
+            long[] dictionarySection = {footer.getLong(), footer.getLong()};
+            for (int i = 0; i < COLUMNS.length; i++) {
+                columnSections[i] = new long[] {footer.getLong(), footer.getLong()};
+            }
+            long[] blockSection = {footer.getLong(), footer.getLong()};
+            long[] indexSection = {footer.getLong(), footer.getLong()};
+            
+            this.dictionary = readDictionary(map(dictionarySection));
+            ByteBuffer blockBuffer = map(blockSection);
+            this.blockRows = (int) readVarLong(blockBuffer);
+            this.blocks = readBlocks(blockBuffer);
+            this.scenarioIndex = readIndex(map(indexSection));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+    
+    public long getRowCount() { return rowCount; }
+    
+    /**
+     * Dictionary value for an id from a {@link PerformanceBinaryFormat.Encoding#DICTIONARY} column
+     */
+    public String dictionaryValue(long id) {
+        return id == 0 ? null : dictionary.get((int) id - 1);
+    }
+    
+    /**
+     * Scenario keys in the index (scenario id, or the name for records without one), sorted
+     */
+    public List<String> getScenarioKeys() {
+        return new ArrayList<>(scenarioIndex.keySet());
+    }
+    
+    /**
+     * Row numbers belonging to a scenario key, from the footer index
+     */
+    public long[] getScenarioRows(String scenarioKey) {
+        long[] rows = scenarioIndex.get(scenarioKey);
+        return rows != null ? rows.clone() : new long[0];
+    }
+    
+    /**
+     * Decode a single column in row order without decoding any other column.
+     * Dictionary columns yield ids, BITS columns 0 or 1 and map columns their entry count.
+     */
+    public void scanColumn(Column column, LongConsumer consumer) throws IOException {
+        ColumnCursor cursor = new ColumnCursor(column, map(columnSections[column.ordinal()]));
+        for (long row = 0; row < rowCount; row++) {
+            consumer.accept(cursor.next());
+            cursor.skipEntries();
+        }
+    }
+    
+    /**
+     * Decode every row back into a {@link PerformanceMetrics}
+     */
+    public void forEach(Consumer<PerformanceMetrics> consumer) throws IOException {
+        RowCursor cursor = new RowCursor();
+        for (long row = 0; row < rowCount; row++) {
+            consumer.accept(cursor.next());
+        }
+    }
+    
+    /**
+     * Decode the given ascending rows. Each lookup starts from the block the row
+     * falls in (or carries on from the previous row), so the rows in between are
+     * skipped rather than decoded into records.
+     */
+    public void forEachRow(long[] rows, Consumer<PerformanceMetrics> consumer) throws IOException {
+        RowCursor cursor = new RowCursor();
+        for (long row : rows) {
+            consumer.accept(cursor.read(row));
+        }
+    }
+    
+    /**
+     * Convert to the JSON shape written by {@link PerformanceStorage#exportToJson(String)}.
+     * allMetrics is one sequential pass; scenarioMetrics reads each scenario's rows
+     * through the index, so the conversion is linear in the number of rows.
+     */
+    public void exportToJson(String outputPath) throws IOException {
+        MetricsAccumulator accumulator = new MetricsAccumulator();
+        forEach(accumulator::add);
+        
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.enable(SerializationFeature.INDENT_OUTPUT);
+        
+        try {
+            AtomicFiles.write(Paths.get(outputPath), out -> {
+                try (JsonGenerator generator = mapper.createGenerator(out, JsonEncoding.UTF8)) {
+                    generator.writeStartObject();
+                    generator.writeNumberField("totalMetrics", rowCount);
+                    generator.writeObjectField("suiteAverages", accumulator.toAverages());
+                    
+                    generator.writeArrayFieldStart("allMetrics");
+                    forEach(m -> writeQuietly(generator, m));
+                    generator.writeEndArray();
+                    
+                    generator.writeObjectFieldStart("scenarioMetrics");
+                    for (Map.Entry<String, long[]> scenario : scenarioIndex.entrySet()) {
+                        generator.writeArrayFieldStart(scenario.getKey());
+                        forEachRow(scenario.getValue(), m -> writeQuietly(generator, m));
+                        generator.writeEndArray();
+                    }
+                    generator.writeEndObject();
+                    
+                    generator.writeEndObject();
+                }
+            });
+        } catch (UncheckedWriteException e) {
+            throw e.getCause();
+        }
+    }
+    
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+    
+    private ByteBuffer map(long[] section) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, section[0], section[1]);
+    }
+    
+    private static void checkMagic(ByteBuffer buffer, Path file) throws IOException {
+        byte[] magic = new byte[PerformanceBinaryFormat.MAGIC.length];
+        buffer.get(magic);
+        if (!Arrays.equals(magic, PerformanceBinaryFormat.MAGIC)) {
+            throw new IOException("Not a binary metrics file: " + file);
+        }
+    }
+    
+    private static List<String> readDictionary(ByteBuffer buffer) {
+        int count = (int) readVarLong(buffer);
+        List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            byte[] bytes = new byte[(int) readVarLong(buffer)];
+            buffer.get(bytes);
+            values.add(new String(bytes, StandardCharsets.UTF_8));
+        }
+        return Collections.unmodifiableList(values);
+    }
+    
+    private static long[][] readBlocks(ByteBuffer buffer) {
+        long[][] table = new long[(int) readVarLong(buffer)][];
+        for (int block = 0; block < table.length; block++) {
+            table[block] = new long[COLUMNS.length * 2];
+            for (int i = 0; i < COLUMNS.length; i++) {
+                table[block][i * 2] = readVarLong(buffer);
+                table[block][i * 2 + 1] = unzigzag(readVarLong(buffer));
+            }
+        }
+        return table;
+    }
+    
+    private Map<String, long[]> readIndex(ByteBuffer buffer) {
+        // Sorted like the scenarioMetrics of a JSON export
+        Map<String, long[]> index = new TreeMap<>();
+        long scenarios = readVarLong(buffer);
+        for (long s = 0; s < scenarios; s++) {
+            String key = dictionaryValue(readVarLong(buffer));
+            long[] rows = new long[(int) readVarLong(buffer)];
+            long row = 0;
+            for (int i = 0; i < rows.length; i++) {
+                row += readVarLong(buffer);
+                rows[i] = row;
+            }
+            if (key != null) {
+                index.put(key, rows);
+            }
+        }
+        return index;
+    }
+    
+    private static void writeQuietly(JsonGenerator generator, PerformanceMetrics metrics) {
+        try {
+            generator.writeObject(metrics);
+        } catch (IOException e) {
+            throw new UncheckedWriteException(e);
+        }
+    }
+    
+    private static final class UncheckedWriteException extends RuntimeException {
+        
+        private static final long serialVersionUID = 1L;
+        
+        UncheckedWriteException(IOException cause) {
+            super(cause);
+        }
+        
+        @Override
+        public synchronized IOException getCause() {
+            return (IOException) super.getCause();
+        }
+    }
+    
+    /**
+     * Decodes whole rows, positioned on any row through the block table
+     */
+    private final class RowCursor {
+        
+        private final ColumnCursor[] cursors = new ColumnCursor[COLUMNS.length];
+        private long row = 0;
+        
+        RowCursor() throws IOException {
+            for (Column column : COLUMNS) {
+                cursors[column.ordinal()] = new ColumnCursor(column, map(columnSections[column.ordinal()]));
+            }
+        }
+        
+        PerformanceMetrics read(long target) {
+            if (target < row || target / blockRows != row / blockRows) {
+                int block = (int) (target / blockRows);
+                for (Column column : COLUMNS) {
+                    int i = column.ordinal();
+                    cursors[i].seek(blocks[block][i * 2], blocks[block][i * 2 + 1]);
+                }
+                row = (long) block * blockRows;
+            }
+            while (row < target) {
+                for (ColumnCursor cursor : cursors) {
+                    cursor.next();
+                    cursor.skipEntries();
+                }
+                row++;
+            }
+            return next();
+        }
+        
+        PerformanceMetrics next() {
+            PerformanceMetrics metrics = new PerformanceMetrics();
+            metrics.setTimestamp(value(Column.TIMESTAMP));
+            metrics.setPageLoadTime(value(Column.PAGE_LOAD));
+            metrics.setDomReadyTime(value(Column.DOM_READY));
+            metrics.setResponseTime(value(Column.RESPONSE));
+            metrics.setTtfb(value(Column.TTFB));
+            metrics.setConnectTime(value(Column.CONNECT));
+            metrics.setDomainLookupTime(value(Column.DOMAIN_LOOKUP));
+            metrics.setFromCache(value(Column.FROM_CACHE) != 0);
+            metrics.setDegraded(value(Column.DEGRADED) != 0);
+            metrics.setSampleIndex((int) value(Column.SAMPLE_INDEX));
+            metrics.setConcurrencyLevel((int) value(Column.CONCURRENCY));
+            metrics.setJsHeapUsedBytes(value(Column.JS_HEAP_USED));
+            metrics.setJsHeapTotalBytes(value(Column.JS_HEAP_TOTAL));
+            metrics.setDomNodes(value(Column.DOM_NODES));
+            metrics.setEventListeners(value(Column.EVENT_LISTENERS));
+            metrics.setRendererCpuMillis(value(Column.RENDERER_CPU));
+            metrics.setRendererRssBytes(value(Column.RENDERER_RSS));
+            metrics.setScenarioName(string(Column.SCENARIO));
+            metrics.setScenarioId(string(Column.SCENARIO_ID));
+            metrics.setOutlineId(string(Column.OUTLINE_ID));
+            metrics.setFeatureName(string(Column.FEATURE));
+            metrics.setStepName(string(Column.STEP));
+            metrics.setPageUrl(string(Column.PAGE_URL));
+            metrics.setRoute(string(Column.ROUTE));
+            metrics.setThrottlingProfile(string(Column.THROTTLING_PROFILE));
+            
+            ColumnCursor parameters = cursors[Column.EXAMPLE_PARAMETERS.ordinal()];
+            long parameterCount = parameters.next();
+            if (parameterCount > 0) {
+                Map<String, String> values = new LinkedHashMap<>();
+                for (long i = 0; i < parameterCount; i++) {
+                    values.put(dictionaryValue(parameters.nextVarLong()), dictionaryValue(parameters.nextVarLong()));
+                }
+                metrics.setExampleParameters(values);
+            }
+            metrics.setServerTimings(timings(Column.SERVER_TIMINGS));
+            metrics.setDocumentServerTimings(timings(Column.DOCUMENT_SERVER_TIMINGS));
+            row++;
+            return metrics;
+        }
+        
+        private long value(Column column) {
+            return cursors[column.ordinal()].next();
+        }
+        
+        private String string(Column column) {
+            return dictionaryValue(cursors[column.ordinal()].next());
+        }
+        
+        private Map<String, Double> timings(Column column) {
+            ColumnCursor timings = cursors[column.ordinal()];
+            long count = timings.next();
+            if (count == 0) {
+                return null;
+            }
+            Map<String, Double> values = new LinkedHashMap<>();
+            for (long i = 0; i < count; i++) {
+                values.put(dictionaryValue(timings.nextVarLong()), timings.nextDouble());
+            }
+            return values;
+        }
+    }
+    
+    /**
+     * Sequential decoder for one column. For map columns {@link #next()} yields the
+     * entry count; the entries follow and are read or skipped by the caller.
+     */
+    private static final class ColumnCursor {
+        
+        private final Column column;
+        private final ByteBuffer buffer;
+        private long previous = 0;
+        private int bits = 0;
+        private int bitIndex = 8;
+        private long pendingEntries = 0;
+        
+        ColumnCursor(Column column, ByteBuffer buffer) {
+            this.column = column;
+            this.buffer = buffer;
+        }
+        
+        void seek(long offset, long previousValue) {
+            buffer.position((int) offset);
+            previous = previousValue;
+            bitIndex = 8;
+            pendingEntries = 0;
+        }
+        
+        long next() {
+            switch (column.getEncoding()) {
+                case DELTA:
+                    previous += unzigzag(readVarLong(buffer));
+                    return previous;
+                case ZIGZAG:
+                    return unzigzag(readVarLong(buffer));
+                case BITS:
+                    if (bitIndex == 8) {
+                        bits = buffer.get() & 0xFF;
+                        bitIndex = 0;
+                    }
+                    return (bits >>> bitIndex++) & 1;
+                case STRING_MAP:
+                case DOUBLE_MAP:
+                    pendingEntries = readVarLong(buffer);
+                    return pendingEntries;
+                default:
+                    return readVarLong(buffer);
+            }
+        }
+        
+        long nextVarLong() {
+            return readVarLong(buffer);
+        }
+        
+        double nextDouble() {
+            return buffer.getDouble();
+        }
+        
+        /**
+         * Skip the entries of the map value just read by {@link #next()}
+         */
+        void skipEntries() {
+            for (; pendingEntries > 0; pendingEntries--) {
+                readVarLong(buffer);
+                if (column.getEncoding() == PerformanceBinaryFormat.Encoding.DOUBLE_MAP) {
+                    buffer.position(buffer.position() + Double.BYTES);
+                } else {
+                    readVarLong(buffer);
+                }
+            }
+        }
+    }
+    
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: PerformanceBinaryReader <metrics.bin> <performance-metrics.json>");
+            System.exit(1);
+        }
+        try (PerformanceBinaryReader reader = new PerformanceBinaryReader(Paths.get(args[0]))) {
+            reader.exportToJson(args[1]);
+            System.out.println(" Converted " + reader.getRowCount() + " metrics to: " + args[1]);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.yourcompany.utils;
+
+import com.yourcompany.utils.PerformanceBinaryFormat.Column;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Writes records over several blocks with {@link PerformanceBinaryWriter} and reads them back with {@link PerformanceBinaryReader}
+ */
+public class PerformanceBinaryRoundTripTest {
+    
+    private static final int ROWS = 2 * PerformanceBinaryFormat.BLOCK_ROWS + PerformanceBinaryFormat.BLOCK_ROWS / 2 + 7;
+    
+    private static String scenarioKey(int i) {
+        // Every third record has no scenario id, so the index falls back to the name
+        return i % 3 == 2 ? "scenario 2" : "f.feature:" + (i % 3);
+    }
+    
+    private static PerformanceMetrics record(int i) {
+        PerformanceMetrics metrics = new PerformanceMetrics();
+        // Timestamps step back now and then, so the delta column holds negative deltas too
+        metrics.setTimestamp(1_700_000_000_000L + 10L * i - (i % 7 == 0 ? 25 : 0));
+        metrics.setPageLoadTime(1000 + i);
+        metrics.setDomReadyTime(800 + i % 50);
+        metrics.setResponseTime(i % 11);
+        metrics.setTtfb(i % 13);
+        metrics.setConnectTime(i % 2 == 0 ? 0 : 17);
+        metrics.setDomainLookupTime(-1);
+        metrics.setFromCache(i % 5 == 0);
+        metrics.setDegraded(i % 9 == 0);
+        metrics.setSampleIndex(i % 4);
+        metrics.setConcurrencyLevel(i % 6);
+        metrics.setJsHeapUsedBytes(1_000_000L * i);
+        metrics.setJsHeapTotalBytes(2_000_000L * i);
+        metrics.setDomNodes(i);
+        metrics.setEventListeners(i % 3 == 0 ? -1 : i);
+        metrics.setRendererCpuMillis(-1);
+        metrics.setRendererRssBytes(i * 4096L);
+        metrics.setScenarioName("scenario " + i % 3);
+        metrics.setScenarioId(i % 3 == 2 ? null : "f.feature:" + (i % 3));
+        metrics.setOutlineId(i % 3 == 1 ? "f.feature:outline" : null);
+        metrics.setFeatureName("Feature f");
+        metrics.setStepName("Step #" + (i % 10));
+        metrics.setPageUrl(i % 2 == 0 ? "https://shop.example/orders/" + i : null);
+        metrics.setRoute(i % 2 == 0 ? "/orders/:id" : null);
+        metrics.setThrottlingProfile(i % 4 == 0 ? "slow-3g" : null);
+        if (i % 3 == 1) {
+            Map<String, String> parameters = new LinkedHashMap<>();
+            parameters.put("user", "u" + i % 5);
+            parameters.put("items", String.valueOf(i % 2));
+            metrics.setExampleParameters(parameters);
+        }
+        if (i % 4 != 3) {
+            Map<String, Double> timings = new LinkedHashMap<>();
+            timings.put("db", i / 4.0);
+            timings.put("app", 1.5);
+            metrics.setServerTimings(timings);
+        }
+        metrics.setDocumentServerTimings(i % 8 == 0 ? Map.of("db", i / 8.0) : Map.of());
+        return metrics;
+    }
+    
+    private static void assertRecord(int i, PerformanceMetrics metrics) {
+        PerformanceMetrics expected = record(i);
+        assertEquals(expected.getTimestamp(), metrics.getTimestamp());
+        for (MetricField field : MetricField.values()) {
+            assertEquals(field.name(), field.valueOf(expected), field.valueOf(metrics));
+        }
+        for (ResourceField field : ResourceField.values()) {
+            assertEquals(field.name(), field.valueOf(expected), field.valueOf(metrics));
+        }
+        assertEquals(expected.isFromCache(), metrics.isFromCache());
+        assertEquals(expected.isDegraded(), metrics.isDegraded());
+        assertEquals(expected.getSampleIndex(), metrics.getSampleIndex());
+        assertEquals(expected.getConcurrencyLevel(), metrics.getConcurrencyLevel());
+        assertEquals(expected.getScenarioName(), metrics.getScenarioName());
+        assertEquals(expected.getScenarioId(), metrics.getScenarioId());
+        assertEquals(expected.getOutlineId(), metrics.getOutlineId());
+        assertEquals(expected.getFeatureName(), metrics.getFeatureName());
+        assertEquals(expected.getStepName(), metrics.getStepName());
+        assertEquals(expected.getPageUrl(), metrics.getPageUrl());
+        assertEquals(expected.getRoute(), metrics.getRoute());
+        assertEquals(expected.getThrottlingProfile(), metrics.getThrottlingProfile());
+        assertEquals(expected.getExampleParameters(), metrics.getExampleParameters());
+        assertEquals(expected.getServerTimings(), metrics.getServerTimings());
+        assertEquals(expected.getDocumentServerTimings(), metrics.getDocumentServerTimings());
+    }
+    
+    private static Path writeRecords() throws IOException {
+        List<PerformanceMetrics> records = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            records.add(record(i));
+        }
+        Path file = Files.createTempDirectory("binary-").resolve("metrics.bin");
+        PerformanceBinaryWriter.writeAll(file, records);
+        return file;
+    }
+    
+    @Test
+    public void everyRowReadsBackInOrder() throws IOException {
+        try (PerformanceBinaryReader reader = new PerformanceBinaryReader(writeRecords())) {
+            assertEquals(ROWS, reader.getRowCount());
+            int[] row = {0};
+            reader.forEach(metrics -> assertRecord(row[0]++, metrics));
+            assertEquals(ROWS, row[0]);
+        }
+    }
+    
+    @Test
+    public void scenarioRowsDecodeFromTheIndex() throws IOException {
+        try (PerformanceBinaryReader reader = new PerformanceBinaryReader(writeRecords())) {
+            assertEquals(Arrays.asList("f.feature:0", "f.feature:1", "scenario 2"), reader.getScenarioKeys());
+            for (String key : reader.getScenarioKeys()) {
+                List<Long> expected = new ArrayList<>();
+                for (int i = 0; i < ROWS; i++) {
+                    if (scenarioKey(i).equals(key)) {
+                        expected.add((long) i);
+                    }
+                }
+                long[] rows = reader.getScenarioRows(key);
+                assertEquals(expected.size(), rows.length);
+                for (int i = 0; i < rows.length; i++) {
+                    assertEquals((long) expected.get(i), rows[i]);
+                }
+                
+                int[] next = {0};
+                reader.forEachRow(rows, metrics -> assertRecord((int) rows[next[0]++], metrics));
+                assertEquals(rows.length, next[0]);
+            }
+            assertEquals(0, reader.getScenarioRows("unknown").length);
+        }
+    }
+    
+    @Test
+    public void sparseRowsStartFromTheirBlock() throws IOException {
+        try (PerformanceBinaryReader reader = new PerformanceBinaryReader(writeRecords())) {
+            // First row, block boundaries on either side, and the last row of the partial block
+            long[] rows = {0, PerformanceBinaryFormat.BLOCK_ROWS - 1, PerformanceBinaryFormat.BLOCK_ROWS,
+                2L * PerformanceBinaryFormat.BLOCK_ROWS + 3, ROWS - 1};
+            int[] next = {0};
+            reader.forEachRow(rows, metrics -> assertRecord((int) rows[next[0]++], metrics));
+            assertEquals(rows.length, next[0]);
+        }
+    }
+    
+    @Test
+    public void dictionaryColumnsScanWithNullAsZero() throws IOException {
+        try (PerformanceBinaryReader reader = new PerformanceBinaryReader(writeRecords())) {
+            int[] row = {0};
+            reader.scanColumn(Column.SCENARIO_ID, id -> {
+                PerformanceMetrics expected = record(row[0]++);
+                if (expected.getScenarioId() == null) {
+                    assertEquals(0, id);
+                    assertNull(reader.dictionaryValue(id));
+                } else {
+                    assertEquals(expected.getScenarioId(), reader.dictionaryValue(id));
+                }
+            });
+            assertEquals(ROWS, row[0]);
+        }
+    }
+}
@@ -0,0 +1,339 @@
+package com.yourcompany.utils;
+
+import com.yourcompany.utils.PerformanceBinaryFormat.Column;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.yourcompany.utils.PerformanceBinaryFormat.writeVarLong;
+import static com.yourcompany.utils.PerformanceBinaryFormat.zigzag;
+
+/**
+ * Writes metrics to the columnar binary format described in {@link PerformanceBinaryFormat}.
+ * Each column is streamed in its encoded form to a temp file in the spill directory
+ * ({@code performance.storage.spillDir}); on close the columns are concatenated into the
+ * target through {@link AtomicFiles}. Only the dictionary, the block table and the
+ * scenario row index (about a byte per row) stay on the heap.
+ *
+ * If a row fails to write, or the caller gives up through {@link #abort()}, the
+ * column files are discarded and the previous export is left in place.
+ */
+public class PerformanceBinaryWriter implements Closeable {
+    
+    private static final Column[] COLUMNS = Column.values();
+    
+    private final Path outputFile;
+    private final ColumnSink[] columns = new ColumnSink[COLUMNS.length];
+    private final Map<String, Integer> dictionary = new LinkedHashMap<>();
+    private final Map<Integer, ScenarioRows> scenarioIndex = new LinkedHashMap<>();
+    private final ByteArrayOutputStream blocks = new ByteArrayOutputStream();
+    
+    private long rowCount = 0;
+    private long blockCount = 0;
+    private boolean closed = false;
+    private boolean failed = false;
+    
+    public PerformanceBinaryWriter(Path outputFile) throws IOException {
+        this.outputFile = outputFile;
+        try {
+            Path directory = MetricsSpillSegment.defaultDirectory();
+            Files.createDirectories(directory);
+            for (Column column : COLUMNS) {
+                columns[column.ordinal()] = new ColumnSink(column, directory);
+            }
+        } catch (IOException e) {
+            deleteColumns();
+            throw e;
+        }
+    }
+    
+    public void write(PerformanceMetrics metrics) throws IOException {
+        try {
+            writeRow(metrics);
+        } catch (IOException | RuntimeException e) {
+            // A partially written row leaves the columns out of step; never publish them
+            failed = true;
+            throw e;
+        }
+    }
+    
+    private void writeRow(PerformanceMetrics metrics) throws IOException {
+        if (rowCount % PerformanceBinaryFormat.BLOCK_ROWS == 0) {
+            for (ColumnSink column : columns) {
+                writeVarLong(blocks, column.size);
+                writeVarLong(blocks, zigzag(column.previous));
+            }
+            blockCount++;
+        }
+        
+        column(Column.TIMESTAMP).writeLong(metrics.getTimestamp());
+        for (MetricField field : MetricField.values()) {
+            columns[Column.of(field).ordinal()].writeLong(field.valueOf(metrics));
+        }
+        column(Column.FROM_CACHE).writeBit(metrics.isFromCache());
+        column(Column.DEGRADED).writeBit(metrics.isDegraded());
+        column(Column.SAMPLE_INDEX).writeLong(metrics.getSampleIndex());
+        column(Column.CONCURRENCY).writeLong(metrics.getConcurrencyLevel());
+        for (ResourceField field : ResourceField.values()) {
+            columns[Column.of(field).ordinal()].writeLong(field.valueOf(metrics));
+        }
+        
+        column(Column.SCENARIO).writeLong(idOf(metrics.getScenarioName()));
+        column(Column.SCENARIO_ID).writeLong(idOf(metrics.getScenarioId()));
+        column(Column.OUTLINE_ID).writeLong(idOf(metrics.getOutlineId()));
+        column(Column.FEATURE).writeLong(idOf(metrics.getFeatureName()));
+        column(Column.STEP).writeLong(idOf(metrics.getStepName()));
+        column(Column.PAGE_URL).writeLong(idOf(metrics.getPageUrl()));
+        column(Column.ROUTE).writeLong(idOf(metrics.getRoute()));
+        column(Column.THROTTLING_PROFILE).writeLong(idOf(metrics.getThrottlingProfile()));
+        
+        ColumnSink parameters = column(Column.EXAMPLE_PARAMETERS);
+        parameters.writeVarLong(metrics.getExampleParameters().size());
+        for (Map.Entry<String, String> parameter : metrics.getExampleParameters().entrySet()) {
+            parameters.writeVarLong(idOf(parameter.getKey()));
+            parameters.writeVarLong(idOf(parameter.getValue()));
+        }
+        writeTimings(column(Column.SERVER_TIMINGS), metrics.getServerTimings());
+        writeTimings(column(Column.DOCUMENT_SERVER_TIMINGS), metrics.getDocumentServerTimings());
+        
+        scenarioIndex.computeIfAbsent(idOf(PerformanceStorage.scenarioKey(metrics)), k -> new ScenarioRows()).add(rowCount);
+        rowCount++;
+    }
+    
+    private ColumnSink column(Column column) {
+        return columns[column.ordinal()];
+    }
+    
+    private void writeTimings(ColumnSink sink, Map<String, Double> timings) throws IOException {
+        sink.writeVarLong(timings.size());
+        for (Map.Entry<String, Double> timing : timings.entrySet()) {
+            sink.writeVarLong(idOf(timing.getKey()));
+            sink.writeDouble(timing.getValue());
+        }
+    }
+    
+    private int idOf(String value) {
+        if (value == null) {
+            return 0;
+        }
+        return dictionary.computeIfAbsent(value, k -> dictionary.size() + 1);
+    }
+    
+    /**
+     * Discard everything written so far without touching the target file
+     */
+    public void abort() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        deleteColumns();
+    }
+    
+    /**
+     * Publish the written rows to the target, unless a write failed, in which
+     * case this behaves like {@link #abort()}
+     */
+    @Override
+    public void close() throws IOException {
+        if (failed) {
+            abort();
+            return;
+        }
+        if (closed) {
+            return;
+        }
+        closed = true;
+        
+        try {
+            for (ColumnSink column : columns) {
+                column.finish();
+            }
+            AtomicFiles.write(outputFile, this::writeFile);
+        } finally {
+            deleteColumns();
+        }
+    }
+    
+    private void writeFile(OutputStream target) throws IOException {
+        DataOutputStream out = new DataOutputStream(target);
+        out.write(PerformanceBinaryFormat.MAGIC);
+        out.writeByte(PerformanceBinaryFormat.VERSION);
+        out.write(new byte[3]);
+        
+        ByteArrayOutputStream footer = new ByteArrayOutputStream();
+        DataOutputStream footerOut = new DataOutputStream(footer);
+        footerOut.writeLong(rowCount);
+        long position = PerformanceBinaryFormat.HEADER_LENGTH;
+        
+        ByteArrayOutputStream dictionarySection = new ByteArrayOutputStream();
+        writeVarLong(dictionarySection, dictionary.size());
+        for (String value : dictionary.keySet()) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(dictionarySection, bytes.length);
+            dictionarySection.write(bytes);
+        }
+        position = writeSection(out, dictionarySection, position, footerOut);
+        
+        for (ColumnSink column : columns) {
+            Files.copy(column.file, out);
+            footerOut.writeLong(position);
+            footerOut.writeLong(column.size);
+            position += column.size;
+        }
+        
+        ByteArrayOutputStream blockSection = new ByteArrayOutputStream();
+        writeVarLong(blockSection, PerformanceBinaryFormat.BLOCK_ROWS);
+        writeVarLong(blockSection, blockCount);
+        blocks.writeTo(blockSection);
+        position = writeSection(out, blockSection, position, footerOut);
+        
+        ByteArrayOutputStream indexSection = new ByteArrayOutputStream();
+        writeVarLong(indexSection, scenarioIndex.size());
+        for (Map.Entry<Integer, ScenarioRows> entry : scenarioIndex.entrySet()) {
+            writeVarLong(indexSection, entry.getKey());
+            writeVarLong(indexSection, entry.getValue().count);
+            entry.getValue().rows.writeTo(indexSection);
+        }
+        writeSection(out, indexSection, position, footerOut);
+        
+        footer.writeTo(out);
+        out.writeInt(footer.size());
+        out.write(PerformanceBinaryFormat.MAGIC);
+        out.flush();
+    }
+    
+    private static long writeSection(DataOutputStream out, ByteArrayOutputStream section,
+                                     long position, DataOutputStream footer) throws IOException {
+        section.writeTo(out);
+        footer.writeLong(position);
+        footer.writeLong(section.size());
+        return position + section.size();
+    }
+    
+    private void deleteColumns() {
+        for (ColumnSink column : columns) {
+            if (column != null) {
+                column.delete();
+            }
+        }
+    }
+    
+    /**
+     * One encoded column, streamed to its own temp file
+     */
+    private static final class ColumnSink {
+        
+        private final Column column;
+        private final Path file;
+        private final DataOutputStream out;
+        private long size = 0;
+        private long previous = 0;
+        private int bits = 0;
+        private int bitCount = 0;
+        
+        ColumnSink(Column column, Path directory) throws IOException {
+            this.column = column;
+            this.file = Files.createTempFile(directory, "performance-binary-", ".column");
+            this.file.toFile().deleteOnExit();
+            this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 16 * 1024));
+        }
+        
+        void writeLong(long value) throws IOException {
+            if (column.getEncoding() == PerformanceBinaryFormat.Encoding.DELTA) {
+                writeVarLong(zigzag(value - previous));
+                previous = value;
+            } else if (column.getEncoding() == PerformanceBinaryFormat.Encoding.ZIGZAG) {
+                writeVarLong(zigzag(value));
+            } else {
+                writeVarLong(value);
+            }
+        }
+        
+        void writeBit(boolean set) throws IOException {
+            if (set) {
+                bits |= 1 << bitCount;
+            }
+            if (++bitCount == 8) {
+                out.write(bits);
+                size++;
+                bits = 0;
+                bitCount = 0;
+            }
+        }
+        
+        void writeVarLong(long value) throws IOException {
+            while ((value & ~0x7FL) != 0) {
+                out.write((int) ((value & 0x7F) | 0x80));
+                size++;
+                value >>>= 7;
+            }
+            out.write((int) value);
+            size++;
+        }
+        
+        void writeDouble(double value) throws IOException {
+            out.writeDouble(value);
+            size += Double.BYTES;
+        }
+        
+        void finish() throws IOException {
+            if (bitCount > 0) {
+                out.write(bits);
+                size++;
+            }
+            out.close();
+        }
+        
+        void delete() {
+            try {
+                out.close();
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                System.err.println(" Error deleting binary metrics column file: " + e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Row numbers of one scenario, delta-varint encoded
+     */
+    private static final class ScenarioRows {
+        
+        private final ByteArrayOutputStream rows = new ByteArrayOutputStream();
+        private long count = 0;
+        private long previousRow = 0;
+        
+        void add(long row) throws IOException {
+            writeVarLong(rows, row - previousRow);
+            previousRow = row;
+            count++;
+        }
+    }
+    
+    /**
+     * Convenience for writing a whole dataset in one go. If writing or reading
+     * the dataset fails, the target keeps its previous content.
+     */
+    public static void writeAll(Path outputFile, Iterable<PerformanceMetrics> metrics) throws IOException {
+        PerformanceBinaryWriter writer = new PerformanceBinaryWriter(outputFile);
+        try {
+            for (PerformanceMetrics m : metrics) {
+                writer.write(m);
+            }
+        } catch (Throwable t) {
+            writer.abort();
+            throw t;
+        }
+        writer.close();
+    }
+}
@@ -1,7 +1,9 @@
 package com.yourcompany.utils;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Data model for performance metrics
@@ -18,11 +20,46 @@ public class PerformanceMetrics {
     private long domainLookupTime;
     private boolean fromCache;
     
+    // Page the step ended on, and its normalized route template
+    private String pageUrl;
+    private String route;
+    
+    // Position within a repeat-measure series (0 for single measurements)
+    private int sampleIndex;
+    
+    // Active virtual users when the step was measured (0 outside load mode)
+    private int concurrencyLevel;
+    
+    // Network/CPU throttling profile the step was measured under (null when unthrottled)
+    private String throttlingProfile;
+    
+    // Recorded while a change-point detector had flagged the environment as degraded
+    private boolean degraded;
+    
+    // Browser resource usage after the step (-1 when not available)
+    private long jsHeapUsedBytes = -1;
+    private long jsHeapTotalBytes = -1;
+    private long domNodes = -1;
+    private long eventListeners = -1;
+    private long rendererCpuMillis = -1;
+    private long rendererRssBytes = -1;
+    
+    // Server-Timing sub-durations (ms) reported for the step's requests, by name
+    private Map<String, Double> serverTimings = Collections.emptyMap();
+    
+    // Server-Timing sub-durations (ms) of the document request alone (empty for steps without a navigation)
+    private Map<String, Double> documentServerTimings = Collections.emptyMap();
+    
     // Scenario information
     private String scenarioName;
     private String featureName;
     private long timestamp;
     
+    // Scenario execution identity (feature URI:line); outline id and example row values for Scenario Outlines
+    private String scenarioId;
+    private String outlineId;
+    private Map<String, String> exampleParameters = Collections.emptyMap();
+    
     public PerformanceMetrics() {
         this.timestamp = System.currentTimeMillis();
     }
@@ -52,20 +89,77 @@ public class PerformanceMetrics {
     public boolean isFromCache() { return fromCache; }
     public void setFromCache(boolean fromCache) { this.fromCache = fromCache; }
     
+    public String getPageUrl() { return pageUrl; }
+    public void setPageUrl(String pageUrl) { this.pageUrl = pageUrl; }
+    
+    public String getRoute() { return route; }
+    public void setRoute(String route) { this.route = route; }
+    
+    public int getSampleIndex() { return sampleIndex; }
+    public void setSampleIndex(int sampleIndex) { this.sampleIndex = sampleIndex; }
+    
+    public int getConcurrencyLevel() { return concurrencyLevel; }
+    public void setConcurrencyLevel(int concurrencyLevel) { this.concurrencyLevel = concurrencyLevel; }
+    
+    public String getThrottlingProfile() { return throttlingProfile; }
+    public void setThrottlingProfile(String throttlingProfile) { this.throttlingProfile = throttlingProfile; }
+    
+    public boolean isDegraded() { return degraded; }
+    public void setDegraded(boolean degraded) { this.degraded = degraded; }
+    
+    public long getJsHeapUsedBytes() { return jsHeapUsedBytes; }
+    public void setJsHeapUsedBytes(long jsHeapUsedBytes) { this.jsHeapUsedBytes = jsHeapUsedBytes; }
+    
+    public long getJsHeapTotalBytes() { return jsHeapTotalBytes; }
+    public void setJsHeapTotalBytes(long jsHeapTotalBytes) { this.jsHeapTotalBytes = jsHeapTotalBytes; }
+    
+    public long getDomNodes() { return domNodes; }
+    public void setDomNodes(long domNodes) { this.domNodes = domNodes; }
+    
+    public long getEventListeners() { return eventListeners; }
+    public void setEventListeners(long eventListeners) { this.eventListeners = eventListeners; }
+    
+    public long getRendererCpuMillis() { return rendererCpuMillis; }
+    public void setRendererCpuMillis(long rendererCpuMillis) { this.rendererCpuMillis = rendererCpuMillis; }
+    
+    public long getRendererRssBytes() { return rendererRssBytes; }
+    public void setRendererRssBytes(long rendererRssBytes) { this.rendererRssBytes = rendererRssBytes; }
+    
+    public Map<String, Double> getServerTimings() { return serverTimings; }
+    public void setServerTimings(Map<String, Double> serverTimings) {
+        this.serverTimings = serverTimings != null ? serverTimings : Collections.emptyMap();
+    }
+    
+    public Map<String, Double> getDocumentServerTimings() { return documentServerTimings; }
+    public void setDocumentServerTimings(Map<String, Double> documentServerTimings) {
+        this.documentServerTimings = documentServerTimings != null ? documentServerTimings : Collections.emptyMap();
+    }
+    
     public String getScenarioName() { return scenarioName; }
     public void setScenarioName(String scenarioName) { this.scenarioName = scenarioName; }
     
     public String getFeatureName() { return featureName; }
     public void setFeatureName(String featureName) { this.featureName = featureName; }
     
+    public String getScenarioId() { return scenarioId; }
+    public void setScenarioId(String scenarioId) { this.scenarioId = scenarioId; }
+    
+    public String getOutlineId() { return outlineId; }
+    public void setOutlineId(String outlineId) { this.outlineId = outlineId; }
+    
+    public Map<String, String> getExampleParameters() { return exampleParameters; }
+    public void setExampleParameters(Map<String, String> exampleParameters) {
+        this.exampleParameters = exampleParameters != null ? exampleParameters : Collections.emptyMap();
+    }
+    
     public long getTimestamp() { return timestamp; }
     public void setTimestamp(long timestamp) { this.timestamp = timestamp; }
     
     @Override
     public String toString() {
         return String.format(
-            "PerformanceMetrics{step='%s', pageLoad=%d, domReady=%d, response=%d, ttfb=%d, connect=%d, domainLookup=%d, cache=%s}",
-            stepName, pageLoadTime, domReadyTime, responseTime, ttfb, connectTime, domainLookupTime, fromCache
+            "PerformanceMetrics{step='%s', route='%s', pageLoad=%d, domReady=%d, response=%d, ttfb=%d, connect=%d, domainLookup=%d, cache=%s}",
+            stepName, route, pageLoadTime, domReadyTime, responseTime, ttfb, connectTime, domainLookupTime, fromCache
         );
     }
 }
\ No newline at end of file
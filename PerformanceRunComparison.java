@@ -0,0 +1,737 @@
+package com.yourcompany.utils;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.io.JsonEOFException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Offline comparison of two or more exported runs. The first file is the
+ * baseline; every other file is diffed against it per scenario and per step
+ * (average delta, percent change and p50/p95/p99 shift for each timing field).
+ *
+ * Inputs are streamed, never loaded. Checkpoint {@code .jsonl} files are split
+ * into line-aligned chunks and {@code performance-metrics.json} exports into
+ * chunks of whole records of their "allMetrics" array (found by a byte scan that
+ * only tracks nesting and strings); the chunks are parsed in parallel on a
+ * fork-join pool. {@code .bin} files go through {@link PerformanceBinaryReader}. Only the running aggregates
+ * are kept, and at most one chunk per pool thread is in flight before it is
+ * merged, so memory depends on the number of distinct steps, not file size.
+ * A checkpoint file cut off mid-record (the run was killed while appending)
+ * is read up to its last complete record. Runs are labeled by their path
+ * relative to the inputs' common directory.
+ *
+ * Usage: {@code PerformanceRunComparison [--out <dir>] [--threshold <percent>] <baseline> <candidate>...}
+ */
+public class PerformanceRunComparison {
+    
+    private static final long CHUNK_SIZE = Long.getLong("performance.compare.chunkBytes", 64L * 1024 * 1024);
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final MetricField[] FIELDS = MetricField.values();
+    
+    /**
+     * Aggregates of one run, overall and per scenario execution and step. Executions
+     * are collected like storage keys them ({@link PerformanceStorage#scenarioKey}),
+     * then matched across runs by {@link #byIdentity()}.
+     */
+    public static final class RunAggregate {
+        
+        private final String label;
+        private final MetricsAccumulator suite = new MetricsAccumulator();
+        private final Map<String, ScenarioAggregate> scenarios = new TreeMap<>();
+        
+        RunAggregate(String label) {
+            this.label = label;
+        }
+        
+        void add(PerformanceMetrics metrics) {
+            suite.add(metrics);
+            String scenarioKey = String.valueOf(PerformanceStorage.scenarioKey(metrics));
+            scenarios.computeIfAbsent(scenarioKey, k -> new ScenarioAggregate(metrics)).add(metrics);
+        }
+        
+        void merge(RunAggregate other) {
+            suite.merge(other.suite);
+            other.scenarios.forEach((key, scenario) -> scenarios.merge(key, scenario, ScenarioAggregate::merge));
+        }
+        
+        /**
+         * Executions keyed by feature URI, scenario name and example parameters, which survive
+         * edits that shift lines. Executions sharing all three are told apart by line order:
+         * the first keeps the plain key, later ones get " #2", " #3"...
+         */
+        Map<String, ScenarioAggregate> byIdentity() {
+            Map<String, List<ScenarioAggregate>> groups = new TreeMap<>();
+            scenarios.values().forEach(scenario -> groups.computeIfAbsent(scenario.identity, k -> new ArrayList<>()).add(scenario));
+            Map<String, ScenarioAggregate> keyed = new TreeMap<>();
+            groups.forEach((identity, group) -> {
+                group.sort(Comparator.comparingInt(scenario -> scenario.line));
+                for (int i = 0; i < group.size(); i++) {
+                    keyed.put(i == 0 ? identity : identity + " #" + (i + 1), group.get(i));
+                }
+            });
+            return keyed;
+        }
+        
+        public String getLabel() { return label; }
+        
+        public long getCount() { return suite.getCount(); }
+    }
+    
+    /**
+     * One scenario execution (an outline row counts on its own) with its per-step aggregates
+     */
+    static final class ScenarioAggregate {
+        
+        private final String identity;
+        private final int line;
+        private final MetricsAccumulator total = new MetricsAccumulator();
+        private final Map<String, MetricsAccumulator> steps = new TreeMap<>();
+        
+        ScenarioAggregate(PerformanceMetrics first) {
+            String id = first.getScenarioId();
+            int separator = id != null ? id.lastIndexOf(':') : -1;
+            StringBuilder identity = new StringBuilder();
+            if (separator > 0 && id.substring(separator + 1).matches("\\d+")) {
+                identity.append(id, 0, separator).append(" :: ");
+                line = Integer.parseInt(id.substring(separator + 1));
+            } else {
+                line = 0;
+            }
+            identity.append(first.getScenarioName());
+            if (!first.getExampleParameters().isEmpty()) {
+                identity.append(' ').append(new TreeMap<>(first.getExampleParameters()));
+            }
+            this.identity = identity.toString();
+        }
+        
+        void add(PerformanceMetrics metrics) {
+            total.add(metrics);
+            steps.computeIfAbsent(String.valueOf(metrics.getStepName()), k -> new MetricsAccumulator()).add(metrics);
+        }
+        
+        ScenarioAggregate merge(ScenarioAggregate other) {
+            total.merge(other.total);
+            other.steps.forEach((step, accumulator) -> steps.computeIfAbsent(step, k -> new MetricsAccumulator()).merge(accumulator));
+            return this;
+        }
+    }
+    
+    private final ForkJoinPool pool;
+    private final double regressionThreshold;
+    
+    public PerformanceRunComparison(ForkJoinPool pool, double regressionThreshold) {
+        this.pool = pool;
+        this.regressionThreshold = regressionThreshold;
+    }
+    
+    // ═══════════════════════════════════════════════════
+    // Loading
+    // ═══════════════════════════════════════════════════
+    
+    /**
+     * Aggregate every file in parallel; the result order matches {@code files}
+     */
+    public List<RunAggregate> load(List<Path> files) {
+        List<RecursiveTask<RunAggregate>> tasks = new ArrayList<>();
+        for (Path file : files) {
+            tasks.add(new FileTask(pool, file, label(file, files)));
+        }
+        tasks.forEach(pool::execute);
+        
+        List<RunAggregate> runs = new ArrayList<>();
+        for (RecursiveTask<RunAggregate> task : tasks) {
+            runs.add(task.join());
+        }
+        return runs;
+    }
+    
+    /**
+     * Path of {@code file} relative to the common directory of all {@code files}, so
+     * {@code run1/performance-metrics.json} and {@code run2/performance-metrics.json} stay apart
+     */
+    static String label(Path file, List<Path> files) {
+        Path common = files.get(0).toAbsolutePath().normalize().getParent();
+        for (Path other : files) {
+            Path directory = other.toAbsolutePath().normalize().getParent();
+            while (common != null && (directory == null || !directory.startsWith(common))) {
+                common = common.getParent();
+            }
+        }
+        Path absolute = file.toAbsolutePath().normalize();
+        return (common != null ? common.relativize(absolute) : absolute).toString().replace('\\', '/');
+    }
+    
+    private static final class FileTask extends RecursiveTask<RunAggregate> {
+        
+        private static final long serialVersionUID = 1L;
+        
+        // Explicit, as join() may run this task on the caller's thread, outside any pool
+        private final transient ForkJoinPool pool;
+        private final Path file;
+        private final String label;
+        
+        FileTask(ForkJoinPool pool, Path file, String label) {
+            this.pool = pool;
+            this.file = file;
+            this.label = label;
+        }
+        
+        @Override
+        protected RunAggregate compute() {
+            String name = file.getFileName().toString();
+            try {
+                if (name.endsWith(".jsonl")) {
+                    return computeChunks(splitLines(file, CHUNK_SIZE), false);
+                }
+                if (!name.endsWith(".bin")) {
+                    return computeChunks(splitExport(file, CHUNK_SIZE), true);
+                }
+                
+                RunAggregate run = new RunAggregate(label);
+                try (PerformanceBinaryReader reader = new PerformanceBinaryReader(file)) {
+                    reader.forEach(run::add);
+                }
+                return run;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read " + file, e);
+            }
+        }
+        
+        /**
+         * Parse the chunks with a window of one per pool thread, merging each as the oldest completes
+         */
+        private RunAggregate computeChunks(List<long[]> ranges, boolean arrayElements) {
+            int window = Math.max(1, pool.getParallelism());
+            Deque<ChunkTask> inFlight = new ArrayDeque<>();
+            RunAggregate run = new RunAggregate(label);
+            int next = 0;
+            while (next < ranges.size() || !inFlight.isEmpty()) {
+                while (next < ranges.size() && inFlight.size() < window) {
+                    long[] range = ranges.get(next++);
+                    ChunkTask chunk = new ChunkTask(file, range[0], range[1], next == ranges.size(), arrayElements);
+                    pool.execute(chunk);
+                    inFlight.addLast(chunk);
+                }
+                run.merge(inFlight.removeFirst().join());
+            }
+            return run;
+        }
+    }
+    
+    /**
+     * Byte range [start, end) of a .jsonl file, parsed as a sequence of root-level records,
+     * or of an export's records array, holding comma-separated records
+     */
+    private static final class ChunkTask extends RecursiveTask<RunAggregate> {
+        
+        private static final long serialVersionUID = 1L;
+        
+        private final Path file;
+        private final long start;
+        private final long end;
+        private final boolean last;
+        private final boolean arrayElements;
+        
+        ChunkTask(Path file, long start, long end, boolean last, boolean arrayElements) {
+            this.file = file;
+            this.start = start;
+            this.end = end;
+            this.last = last;
+            this.arrayElements = arrayElements;
+        }
+        
+        @Override
+        protected RunAggregate compute() {
+            RunAggregate run = new RunAggregate(file.getFileName().toString());
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+                 InputStream in = new BufferedInputStream(limit(Channels.newInputStream(channel.position(start)), end - start), 64 * 1024);
+                 JsonParser parser = JSON_FACTORY.createParser(arrayElements ? bracketed(in) : in)) {
+                JsonToken token;
+                while ((token = parser.nextToken()) != null) {
+                    if (token == JsonToken.START_OBJECT) {
+                        run.add(readRecord(parser));
+                    }
+                }
+            } catch (JsonEOFException e) {
+                if (!last || arrayElements) {
+                    throw new UncheckedIOException("Failed to read " + file + " at offset " + start, e);
+                }
+                // The writer was killed mid-append: the complete records before it still count
+                System.err.println("⚠️ Skipping truncated last record of " + file.getFileName());
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read " + file + " at offset " + start, e);
+            }
+            return run;
+        }
+    }
+    
+    /**
+     * Split a file into ranges of roughly {@code chunkSize} bytes that each end just after a newline
+     */
+    static List<long[]> splitLines(Path file, long chunkSize) throws IOException {
+        List<long[]> ranges = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer buffer = ByteBuffer.allocate(8192);
+            long start = 0;
+            while (start < size) {
+                long end = Math.min(size, start + chunkSize);
+                // Advance to the byte after the next newline
+                while (end < size) {
+                    buffer.clear();
+                    int read = channel.read(buffer, end);
+                    if (read <= 0) {
+                        end = size;
+                        break;
+                    }
+                    int newline = -1;
+                    for (int i = 0; i < read; i++) {
+                        if (buffer.get(i) == '\n') {
+                            newline = i;
+                            break;
+                        }
+                    }
+                    if (newline >= 0) {
+                        end += newline + 1;
+                        break;
+                    }
+                    end += read;
+                }
+                ranges.add(new long[] {start, end});
+                start = end;
+            }
+        }
+        return ranges;
+    }
+    
+    /**
+     * Split the "allMetrics" array of a storage export into ranges of whole records of roughly
+     * {@code chunkSize} bytes. The array is located with the parser (it comes before the large
+     * "scenarioMetrics" section, which repeats it and is not read); record boundaries are then
+     * found byte by byte, tracking only nesting depth and string literals.
+     */
+    static List<long[]> splitExport(Path file, long chunkSize) throws IOException {
+        long arrayStart = -1;
+        try (JsonParser parser = JSON_FACTORY.createParser(Files.newInputStream(file))) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Not a performance metrics export: " + file);
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if ("allMetrics".equals(field) && value == JsonToken.START_ARRAY) {
+                    arrayStart = parser.getTokenLocation().getByteOffset() + 1;
+                    break;
+                }
+                parser.skipChildren();
+            }
+        }
+        List<long[]> ranges = new ArrayList<>();
+        if (arrayStart < 0) {
+            return ranges;
+        }
+        
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+             InputStream in = new BufferedInputStream(Channels.newInputStream(channel.position(arrayStart)), 64 * 1024)) {
+            long position = arrayStart;
+            long chunkStart = -1;
+            long lastRecordEnd = -1;
+            int depth = 0;
+            boolean inString = false;
+            int b;
+            while ((b = in.read()) >= 0) {
+                if (inString) {
+                    if (b == '\\') {
+                        in.read();
+                        position++;
+                    } else if (b == '"') {
+                        inString = false;
+                    }
+                } else if (b == '"') {
+                    inString = true;
+                } else if (b == '{' || b == '[') {
+                    if (depth++ == 0 && chunkStart < 0) {
+                        chunkStart = position;
+                    }
+                } else if (b == '}' || b == ']') {
+                    if (--depth < 0) {
+                        break;
+                    }
+                    if (depth == 0) {
+                        lastRecordEnd = position + 1;
+                        if (lastRecordEnd - chunkStart >= chunkSize) {
+                            ranges.add(new long[] {chunkStart, lastRecordEnd});
+                            chunkStart = -1;
+                        }
+                    }
+                }
+                position++;
+            }
+            if (depth >= 0) {
+                throw new IOException("Unterminated allMetrics array in " + file);
+            }
+            if (chunkStart >= 0) {
+                ranges.add(new long[] {chunkStart, lastRecordEnd});
+            }
+        }
+        return ranges;
+    }
+    
+    // A chunk of array elements, "{...}, {...}", read as one JSON array
+    private static InputStream bracketed(InputStream in) {
+        return new SequenceInputStream(new SequenceInputStream(
+            new ByteArrayInputStream(new byte[] {'['}), in), new ByteArrayInputStream(new byte[] {']'}));
+    }
+    
+    private static InputStream limit(InputStream in, long length) {
+        return new InputStream() {
+            private long remaining = length;
+            
+            @Override
+            public int read() throws IOException {
+                if (remaining <= 0) {
+                    return -1;
+                }
+                int value = in.read();
+                if (value >= 0) {
+                    remaining--;
+                }
+                return value;
+            }
+            
+            @Override
+            public int read(byte[] buffer, int offset, int len) throws IOException {
+                if (remaining <= 0) {
+                    return -1;
+                }
+                int read = in.read(buffer, offset, (int) Math.min(len, remaining));
+                if (read > 0) {
+                    remaining -= read;
+                }
+                return read;
+            }
+            
+            @Override
+            public void close() throws IOException {
+                in.close();
+            }
+        };
+    }
+    
+    /**
+     * Read the fields the comparison needs from one metrics object; the parser is on START_OBJECT
+     */
+    private static PerformanceMetrics readRecord(JsonParser parser) throws IOException {
+        PerformanceMetrics metrics = new PerformanceMetrics();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "stepName":
+                    metrics.setStepName(parser.getValueAsString());
+                    break;
+                case "scenarioName":
+                    metrics.setScenarioName(parser.getValueAsString());
+                    break;
+                case "scenarioId":
+                    metrics.setScenarioId(parser.getValueAsString());
+                    break;
+                case "exampleParameters":
+                    metrics.setExampleParameters(readStrings(parser));
+                    break;
+                case "pageLoadTime":
+                    metrics.setPageLoadTime(parser.getValueAsLong());
+                    break;
+                case "domReadyTime":
+                    metrics.setDomReadyTime(parser.getValueAsLong());
+                    break;
+                case "responseTime":
+                    metrics.setResponseTime(parser.getValueAsLong());
+                    break;
+                case "ttfb":
+                    metrics.setTtfb(parser.getValueAsLong());
+                    break;
+                case "connectTime":
+                    metrics.setConnectTime(parser.getValueAsLong());
+                    break;
+                case "domainLookupTime":
+                    metrics.setDomainLookupTime(parser.getValueAsLong());
+                    break;
+                case "fromCache":
+                    metrics.setFromCache(value == JsonToken.VALUE_TRUE);
+                    break;
+                default:
+                    parser.skipChildren();
+                    break;
+            }
+        }
+        return metrics;
+    }
+    
+    private static Map<String, String> readStrings(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return null;
+        }
+        Map<String, String> values = new LinkedHashMap<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            parser.nextToken();
+            values.put(name, parser.getValueAsString());
+        }
+        return values;
+    }
+    
+    // ═══════════════════════════════════════════════════
+    // Diffing
+    // ═══════════════════════════════════════════════════
+    
+    /**
+     * Diff every candidate against the baseline (the first run)
+     */
+    public Map<String, Object> compare(List<RunAggregate> runs) {
+        RunAggregate baseline = runs.get(0);
+        Map<String, ScenarioAggregate> baselineScenarios = baseline.byIdentity();
+        
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("baseline", baseline.getLabel());
+        result.put("baselineSteps", baseline.getCount());
+        result.put("regressionThresholdPercent", regressionThreshold);
+        
+        List<Map<String, Object>> comparisons = new ArrayList<>();
+        for (RunAggregate candidate : runs.subList(1, runs.size())) {
+            Map<String, Object> comparison = new LinkedHashMap<>();
+            comparison.put("candidate", candidate.getLabel());
+            comparison.put("candidateSteps", candidate.getCount());
+            comparison.put("suite", diff(baseline.suite, candidate.suite));
+            Map<String, ScenarioAggregate> candidateScenarios = candidate.byIdentity();
+            comparison.put("scenarios", diffAll(totals(baselineScenarios), totals(candidateScenarios)));
+            comparison.put("steps", diffAll(steps(baselineScenarios), steps(candidateScenarios)));
+            comparisons.add(comparison);
+        }
+        result.put("comparisons", comparisons);
+        return result;
+    }
+    
+    private static Map<String, MetricsAccumulator> totals(Map<String, ScenarioAggregate> scenarios) {
+        Map<String, MetricsAccumulator> totals = new TreeMap<>();
+        scenarios.forEach((key, scenario) -> totals.put(key, scenario.total));
+        return totals;
+    }
+    
+    private static Map<String, MetricsAccumulator> steps(Map<String, ScenarioAggregate> scenarios) {
+        Map<String, MetricsAccumulator> steps = new TreeMap<>();
+        scenarios.forEach((key, scenario) -> scenario.steps.forEach((step, accumulator) -> steps.put(key + " / " + step, accumulator)));
+        return steps;
+    }
+    
+    private Map<String, Map<String, Object>> diffAll(Map<String, MetricsAccumulator> baseline, Map<String, MetricsAccumulator> candidate) {
+        Map<String, Map<String, Object>> diffs = new LinkedHashMap<>();
+        TreeSet<String> keys = new TreeSet<>(baseline.keySet());
+        keys.addAll(candidate.keySet());
+        for (String key : keys) {
+            diffs.put(key, diff(baseline.getOrDefault(key, new MetricsAccumulator()), candidate.getOrDefault(key, new MetricsAccumulator())));
+        }
+        return diffs;
+    }
+    
+    private Map<String, Object> diff(MetricsAccumulator baseline, MetricsAccumulator candidate) {
+        Map<String, Object> diff = new LinkedHashMap<>();
+        diff.put("baselineSteps", baseline.getCount());
+        diff.put("candidateSteps", candidate.getCount());
+        if (baseline.getCount() == 0 || candidate.getCount() == 0) {
+            diff.put("status", baseline.getCount() == 0 ? "added" : "removed");
+            return diff;
+        }
+        
+        Map<String, Double> baselineAverages = baseline.toAverages();
+        Map<String, Double> candidateAverages = candidate.toAverages();
+        boolean regressed = false;
+        
+        Map<String, Map<String, Double>> fields = new LinkedHashMap<>();
+        for (MetricField field : FIELDS) {
+            double before = baselineAverages.get(field.getAverageKey());
+            double after = candidateAverages.get(field.getAverageKey());
+            LatencyHistogram beforeHistogram = baseline.getHistogram(field);
+            LatencyHistogram afterHistogram = candidate.getHistogram(field);
+            
+            Map<String, Double> entry = new LinkedHashMap<>();
+            entry.put("baseline", before);
+            entry.put("candidate", after);
+            entry.put("delta", after - before);
+            entry.put("percentChange", before > 0 ? (after - before) / before * 100 : 0.0);
+            entry.put("p50Shift", afterHistogram.valueAtQuantile(0.50) - beforeHistogram.valueAtQuantile(0.50));
+            entry.put("p95Shift", afterHistogram.valueAtQuantile(0.95) - beforeHistogram.valueAtQuantile(0.95));
+            entry.put("p99Shift", afterHistogram.valueAtQuantile(0.99) - beforeHistogram.valueAtQuantile(0.99));
+            fields.put(field.getAverageKey(), entry);
+            
+            if (field == MetricField.PAGE_LOAD && entry.get("percentChange") > regressionThreshold) {
+                regressed = true;
+            }
+        }
+        diff.put("status", regressed ? "regressed" : "ok");
+        diff.put("fields", fields);
+        return diff;
+    }
+    
+    // ═══════════════════════════════════════════════════
+    // Rendering
+    // ═══════════════════════════════════════════════════
+    
+    @SuppressWarnings("unchecked")
+    public static String toText(Map<String, Object> result) {
+        StringBuilder text = new StringBuilder();
+        for (Map<String, Object> comparison : (List<Map<String, Object>>) result.get("comparisons")) {
+            text.append("═══════════════════════════════════════════════════\n");
+            text.append(String.format("  %s  →  %s\n", result.get("baseline"), comparison.get("candidate")));
+            text.append("═══════════════════════════════════════════════════\n");
+            appendTextRow(text, "SUITE", (Map<String, Object>) comparison.get("suite"));
+            text.append("\n  SCENARIOS\n");
+            ((Map<String, Map<String, Object>>) comparison.get("scenarios")).forEach((key, diff) -> appendTextRow(text, key, diff));
+            text.append("\n  STEPS\n");
+            ((Map<String, Map<String, Object>>) comparison.get("steps")).forEach((key, diff) -> appendTextRow(text, key, diff));
+            text.append('\n');
+        }
+        return text.toString();
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static void appendTextRow(StringBuilder text, String key, Map<String, Object> diff) {
+        Map<String, Map<String, Double>> fields = (Map<String, Map<String, Double>>) diff.get("fields");
+        if (fields == null) {
+            text.append(String.format("  %-50s %s\n", key, diff.get("status")));
+            return;
+        }
+        Map<String, Double> pageLoad = fields.get(MetricField.PAGE_LOAD.getAverageKey());
+        Map<String, Double> ttfb = fields.get(MetricField.TTFB.getAverageKey());
+        text.append(String.format("  %-50s %s page load %6.0f → %6.0f ms (%+.1f%%, p95 %+.0f ms) | TTFB %+.1f%%\n",
+            key, "regressed".equals(diff.get("status")) ? "❌" : "✅",
+            pageLoad.get("baseline"), pageLoad.get("candidate"), pageLoad.get("percentChange"),
+            pageLoad.get("p95Shift"), ttfb.get("percentChange")));
+    }
+    
+    @SuppressWarnings("unchecked")
+    public static String toHtml(Map<String, Object> result) {
+        StringBuilder html = new StringBuilder();
+        html.append("<!DOCTYPE html><html><head>");
+        html.append("<meta charset='UTF-8'>");
+        html.append("<style>");
+        html.append("body { font-family: 'Segoe UI', sans-serif; margin: 0; padding: 20px; background: #f5f7fa; }");
+        html.append("h1 { color: #1e3c72; } h2 { color: #2a5298; margin-top: 30px; }");
+        html.append("table { border-collapse: collapse; width: 100%; background: white; margin-bottom: 20px; }");
+        html.append("th, td { padding: 8px 12px; border-bottom: 1px solid #e0e0e0; text-align: right; }");
+        html.append("th { background: #1e3c72; color: white; } td:first-child, th:first-child { text-align: left; }");
+        html.append(".regressed { background: #ffebee; } .improved { color: #2e7d32; } .worse { color: #c62828; }");
+        html.append("</style>");
+        html.append("</head><body>");
+        html.append("<h1>📊 Performance Run Comparison</h1>");
+        html.append(String.format("<p><strong>Baseline:</strong> %s (%s steps)</p>", escape(result.get("baseline")), result.get("baselineSteps")));
+        
+        for (Map<String, Object> comparison : (List<Map<String, Object>>) result.get("comparisons")) {
+            html.append(String.format("<h2>%s (%s steps)</h2>", escape(comparison.get("candidate")), comparison.get("candidateSteps")));
+            Map<String, Map<String, Object>> suite = new LinkedHashMap<>();
+            suite.put("Suite", (Map<String, Object>) comparison.get("suite"));
+            appendHtmlTable(html, "Suite", suite);
+            appendHtmlTable(html, "Scenario", (Map<String, Map<String, Object>>) comparison.get("scenarios"));
+            appendHtmlTable(html, "Step", (Map<String, Map<String, Object>>) comparison.get("steps"));
+        }
+        html.append("</body></html>");
+        return html.toString();
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static void appendHtmlTable(StringBuilder html, String title, Map<String, Map<String, Object>> diffs) {
+        html.append("<table><tr><th>").append(title).append("</th>");
+        html.append("<th>Baseline Page Load</th><th>Candidate Page Load</th><th>Δ</th><th>Δ %</th>");
+        html.append("<th>p50 Shift</th><th>p95 Shift</th><th>p99 Shift</th><th>TTFB Δ %</th><th>Response Δ %</th></tr>");
+        diffs.forEach((key, diff) -> {
+            Map<String, Map<String, Double>> fields = (Map<String, Map<String, Double>>) diff.get("fields");
+            html.append("<tr").append("regressed".equals(diff.get("status")) ? " class='regressed'" : "").append(">");
+            html.append("<td>").append(escape(key)).append("</td>");
+            if (fields == null) {
+                html.append("<td colspan='9'>").append(diff.get("status")).append("</td></tr>");
+                return;
+            }
+            Map<String, Double> pageLoad = fields.get(MetricField.PAGE_LOAD.getAverageKey());
+            html.append(String.format("<td>%.0f ms</td><td>%.0f ms</td>", pageLoad.get("baseline"), pageLoad.get("candidate")));
+            html.append(signedCell(pageLoad.get("delta"), " ms"));
+            html.append(signedCell(pageLoad.get("percentChange"), "%"));
+            html.append(signedCell(pageLoad.get("p50Shift"), " ms"));
+            html.append(signedCell(pageLoad.get("p95Shift"), " ms"));
+            html.append(signedCell(pageLoad.get("p99Shift"), " ms"));
+            html.append(signedCell(fields.get(MetricField.TTFB.getAverageKey()).get("percentChange"), "%"));
+            html.append(signedCell(fields.get(MetricField.RESPONSE.getAverageKey()).get("percentChange"), "%"));
+            html.append("</tr>");
+        });
+        html.append("</table>");
+    }
+    
+    private static String signedCell(double value, String unit) {
+        String css = value > 0 ? "worse" : value < 0 ? "improved" : "";
+        return String.format("<td class='%s'>%+.1f%s</td>", css, value, unit);
+    }
+    
+    private static String escape(Object value) {
+        return String.valueOf(value).replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+    
+    public static void main(String[] args) throws IOException {
+        Path outputDir = Paths.get("target/performance-comparison");
+        double threshold = 10.0;
+        List<Path> files = new ArrayList<>();
+        
+        for (int i = 0; i < args.length; i++) {
+            if ("--out".equals(args[i]) && i + 1 < args.length) {
+                outputDir = Paths.get(args[++i]);
+            } else if ("--threshold".equals(args[i]) && i + 1 < args.length) {
+                threshold = Double.parseDouble(args[++i]);
+            } else {
+                files.add(Paths.get(args[i]));
+            }
+        }
+        if (files.size() < 2) {
+            System.err.println("Usage: PerformanceRunComparison [--out <dir>] [--threshold <percent>] <baseline> <candidate>...");
+            System.exit(1);
+        }
+        
+        PerformanceRunComparison comparison = new PerformanceRunComparison(ForkJoinPool.commonPool(), threshold);
+        Map<String, Object> result = comparison.compare(comparison.load(files));
+        
+        System.out.print(toText(result));
+        
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.enable(SerializationFeature.INDENT_OUTPUT);
+        AtomicFiles.write(outputDir.resolve("comparison.json"), mapper.writeValueAsBytes(result));
+        AtomicFiles.write(outputDir.resolve("comparison.html"), toHtml(result).getBytes(StandardCharsets.UTF_8));
+        System.out.println("✅ Comparison written to: " + outputDir.toAbsolutePath());
+    }
+}
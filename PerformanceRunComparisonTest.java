@@ -0,0 +1,123 @@
+package com.yourcompany.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compares small exported runs written to a temp directory
+ */
+public class PerformanceRunComparisonTest {
+    
+    private static PerformanceMetrics metrics(String scenarioId, String name, String step, long pageLoad, String... parameters) {
+        PerformanceMetrics metrics = new PerformanceMetrics();
+        metrics.setScenarioId(scenarioId);
+        metrics.setScenarioName(name);
+        metrics.setStepName(step);
+        metrics.setPageLoadTime(pageLoad);
+        Map<String, String> example = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < parameters.length; i += 2) {
+            example.put(parameters[i], parameters[i + 1]);
+        }
+        metrics.setExampleParameters(example);
+        return metrics;
+    }
+    
+    private static Path export(Path file, List<PerformanceMetrics> records) throws IOException {
+        Map<String, Object> export = new LinkedHashMap<>();
+        export.put("totalMetrics", records.size());
+        export.put("allMetrics", records);
+        // Repeats the records, as the storage export does; must not be counted twice
+        export.put("scenarioMetrics", Map.of("any", records));
+        Files.createDirectories(file.getParent());
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), export);
+        return file;
+    }
+    
+    @Test
+    @SuppressWarnings("unchecked")
+    public void scenariosAreMatchedAcrossLineShiftsAndRunsAreLabeledByPath() throws IOException {
+        Path directory = Files.createTempDirectory("comparison-");
+        List<PerformanceMetrics> before = new ArrayList<>();
+        before.add(metrics("features/login.feature:5", "Login", "open", 100));
+        before.add(metrics("features/login.feature:12", "Search {string}", "search", 200, "term", "shoes"));
+        before.add(metrics("features/login.feature:13", "Search {string}", "search", 300, "term", "hats"));
+        // The run after: a step was added above every scenario, shifting all lines
+        List<PerformanceMetrics> after = new ArrayList<>();
+        after.add(metrics("features/login.feature:6", "Login", "open", 110));
+        after.add(metrics("features/login.feature:13", "Search {string}", "search", 220, "term", "shoes"));
+        after.add(metrics("features/login.feature:14", "Search {string}", "search", 330, "term", "hats"));
+        
+        PerformanceRunComparison comparison = new PerformanceRunComparison(ForkJoinPool.commonPool(), 50);
+        Map<String, Object> result = comparison.compare(comparison.load(List.of(
+            export(directory.resolve("run1/performance-metrics.json"), before),
+            export(directory.resolve("run2/performance-metrics.json"), after))));
+        
+        assertEquals("run1/performance-metrics.json", result.get("baseline"));
+        assertEquals(3L, result.get("baselineSteps"));
+        Map<String, Object> candidate = ((List<Map<String, Object>>) result.get("comparisons")).get(0);
+        assertEquals("run2/performance-metrics.json", candidate.get("candidate"));
+        
+        Map<String, Map<String, Object>> scenarios = (Map<String, Map<String, Object>>) candidate.get("scenarios");
+        assertEquals(List.of(
+            "features/login.feature :: Login",
+            "features/login.feature :: Search {string} {term=hats}",
+            "features/login.feature :: Search {string} {term=shoes}"), new ArrayList<>(scenarios.keySet()));
+        scenarios.values().forEach(diff -> assertEquals("ok", diff.get("status")));
+    }
+    
+    @Test
+    public void sameNamedScenariosOfOneFeatureAreToldApartByLineOrder() throws IOException {
+        Path directory = Files.createTempDirectory("comparison-");
+        List<PerformanceMetrics> records = List.of(
+            metrics("a.feature:3", "Checkout", "pay", 100),
+            metrics("a.feature:9", "Checkout", "pay", 900));
+        
+        PerformanceRunComparison comparison = new PerformanceRunComparison(ForkJoinPool.commonPool(), 10);
+        PerformanceRunComparison.RunAggregate run = comparison.load(List.of(
+            export(directory.resolve("performance-metrics.json"), records))).get(0);
+        
+        Map<String, PerformanceRunComparison.ScenarioAggregate> keyed = run.byIdentity();
+        assertEquals(List.of("a.feature :: Checkout", "a.feature :: Checkout #2"), new ArrayList<>(keyed.keySet()));
+    }
+    
+    @Test
+    public void exportIsSplitIntoChunksOfWholeRecords() throws IOException {
+        Path directory = Files.createTempDirectory("comparison-");
+        List<PerformanceMetrics> records = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            // Braces and escaped quotes inside strings must not move the record boundaries
+            records.add(metrics("f.feature:" + i, "Scenario \"{" + i + "}\"", "step ]" + i, 100 + i));
+        }
+        Path file = export(directory.resolve("performance-metrics.json"), records);
+        
+        List<long[]> ranges = PerformanceRunComparison.splitExport(file, 1024);
+        assertTrue("chunks: " + ranges.size(), ranges.size() > 5);
+        byte[] content = Files.readAllBytes(file);
+        for (int i = 0; i < ranges.size(); i++) {
+            long[] range = ranges.get(i);
+            assertEquals('{', content[(int) range[0]]);
+            assertEquals('}', content[(int) range[1] - 1]);
+            if (i > 0) {
+                assertTrue(range[0] > ranges.get(i - 1)[1]);
+            }
+        }
+        
+        PerformanceRunComparison comparison = new PerformanceRunComparison(ForkJoinPool.commonPool(), 10);
+        PerformanceRunComparison.RunAggregate run = comparison.load(List.of(file)).get(0);
+        assertEquals(50, run.getCount());
+        assertEquals(50, run.byIdentity().size());
+    }
+}
@@ -1,185 +1,824 @@
 package com.yourcompany.utils;
 
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 
-import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.stream.Collectors;
 
 /**
- * Thread-safe storage for performance metrics across all tests
+ * Thread-safe storage for performance metrics across all tests.
+ *
+ * Aggregates are maintained incrementally, so averages and histograms are exact
+ * for the whole run. Raw records are retained in memory only for the most recent
+ * {@code performance.storage.maxInMemory} steps (default 10000); older records are
+ * spilled to an on-disk segment and streamed back when the full dataset is needed.
  */
 public class PerformanceStorage {
     
-    private static final Map<String, List<PerformanceMetrics>> scenarioMetrics = new ConcurrentHashMap<>();
-    private static final List<PerformanceMetrics> allMetrics = new CopyOnWriteArrayList<>();
+    private static final int MAX_IN_MEMORY = Integer.getInteger("performance.storage.maxInMemory", 10_000);
+    
+    private static final MetricsAccumulator suiteAccumulator = new MetricsAccumulator();
+    private static final Map<String, MetricsAccumulator> scenarioAccumulators = new ConcurrentHashMap<>();
+    
+    // Cold/warm streams exclude each scenario's first N (warm-up) steps
+    private static final int DEFAULT_WARMUP_STEPS = Integer.getInteger("performance.warmup.steps", 0);
+    private static final ColdWarmAccumulator suiteColdWarm = new ColdWarmAccumulator();
+    private static final Map<String, ColdWarmAccumulator> scenarioColdWarm = new ConcurrentHashMap<>();
+    private static final Map<String, int[]> scenarioWarmup = new ConcurrentHashMap<>();
+    
+    // Per-route aggregates and the slowest individual steps
+    private static final int TOP_K = Integer.getInteger("performance.topK", 10);
+    private static final Map<String, MetricsAccumulator> routeAccumulators = new ConcurrentHashMap<>();
+    // Routes past the cap (e.g. ids the normalizer did not recognise) share one accumulator
+    private static final int MAX_ROUTES = Integer.getInteger("performance.routes.maxDistinct", 500);
+    static final String OTHER_ROUTE = "other";
+    private static volatile boolean routeCapReported = false;
+    private static final TopKTracker<PerformanceMetrics> slowestSteps = new TopKTracker<>(TOP_K);
+    
+    // Scenario Outline roll-ups, keyed by outline id, and per example parameter value
+    private static final Map<String, MetricsAccumulator> outlineAccumulators = new ConcurrentHashMap<>();
+    private static final Map<String, String> outlineNames = new ConcurrentHashMap<>();
+    private static final Map<String, Set<String>> outlineRows = new ConcurrentHashMap<>();
+    private static final Map<String, Map<String, Map<String, MetricsAccumulator>>> parameterAccumulators = new ConcurrentHashMap<>();
+    
+    // Aggregates per concurrency level, only populated by the virtual-user load mode
+    private static final Map<Integer, MetricsAccumulator> concurrencyAccumulators = new ConcurrentHashMap<>();
+    
+    // Aggregates per throttling profile, only populated for throttled measurements
+    private static final Map<String, MetricsAccumulator> profileAccumulators = new ConcurrentHashMap<>();
+    
+    // Browser resource growth per scenario execution (leak trends)
+    private static final Map<String, ResourceTrends> scenarioResourceTrends = new ConcurrentHashMap<>();
+    
+    // Server-Timing sub-durations per entry name; the named entry, if present, is the backend total
+    private static final String SERVER_TIMING_TOTAL = System.getProperty("performance.serverTiming.totalName", "total");
+    private static final Map<String, DoubleSummaryStatistics> serverTimingStatistics = new ConcurrentHashMap<>();
+    
+    // Latest repeat-measure series per logical step ("scenario key / step")
+    private static final Map<String, Map<String, Object>> repeatedSteps = new ConcurrentHashMap<>();
+    
+    // Mid-run environment degradation, fed in record order under retentionLock
+    private static final DegradationMonitor degradationMonitor = new DegradationMonitor();
+    
+    // Raw record retention, guarded by retentionLock
+    private static final Object retentionLock = new Object();
+    private static final Deque<PerformanceMetrics> recentMetrics = new ArrayDeque<>();
+    // Indexes spilled records by scenario key on disk, so one scenario's records are read without the rest
+    private static MetricsSpillSegment spillSegment;
+    private static boolean spillDisabled = false;
+    private static long totalMetrics = 0;
     
     /**
      * Add performance metrics for a step
      */
     public static void addMetrics(PerformanceMetrics metrics) {
-        allMetrics.add(metrics);
+        suiteAccumulator.add(metrics);
+        
+        String scenarioKey = scenarioKey(metrics);
+        scenarioAccumulators.computeIfAbsent(scenarioKey, k -> new MetricsAccumulator()).add(metrics);
+        addColdWarm(scenarioKey, metrics);
+        scenarioResourceTrends.computeIfAbsent(scenarioKey, k -> new ResourceTrends()).add(metrics);
+        
+        if (metrics.getOutlineId() != null) {
+            addOutline(scenarioKey, metrics);
+        }
         
-        String scenarioKey = metrics.getScenarioName();
-        scenarioMetrics.computeIfAbsent(scenarioKey, k -> new CopyOnWriteArrayList<>()).add(metrics);
+        if (metrics.getRoute() == null && metrics.getPageUrl() != null) {
+            metrics.setRoute(RouteNormalizer.normalizeUrl(metrics.getPageUrl()));
+        }
+        if (metrics.getRoute() != null) {
+            routeAccumulators.computeIfAbsent(routeKey(metrics.getRoute()), k -> new MetricsAccumulator()).add(metrics);
+        }
+        metrics.getServerTimings().forEach((name, duration) -> {
+            DoubleSummaryStatistics statistics = serverTimingStatistics.computeIfAbsent(name, k -> new DoubleSummaryStatistics());
+            synchronized (statistics) {
+                statistics.accept(duration);
+            }
+        });
+        if (metrics.getConcurrencyLevel() > 0) {
+            concurrencyAccumulators.computeIfAbsent(metrics.getConcurrencyLevel(), k -> new MetricsAccumulator()).add(metrics);
+        }
+        if (metrics.getThrottlingProfile() != null) {
+            profileAccumulators.computeIfAbsent(metrics.getThrottlingProfile(), k -> new MetricsAccumulator()).add(metrics);
+        }
+        slowestSteps.offer(metrics, metrics.getPageLoadTime());
+        
+        synchronized (retentionLock) {
+            if (DegradationMonitor.isEnabled()) {
+                metrics.setDegraded(degradationMonitor.update(totalMetrics, metrics));
+            }
+            recentMetrics.addLast(metrics);
+            totalMetrics++;
+            
+            while (recentMetrics.size() > MAX_IN_MEMORY && !spillDisabled) {
+                spill(recentMetrics.peekFirst());
+            }
+        }
+        
+        // Host-wide live view across forks (lock-free, outside retentionLock)
+        if (SharedAggregateRegion.isEnabled()) {
+            SharedAggregateRegion region = SharedAggregateRegion.getDefault();
+            if (region != null) {
+                region.add(metrics);
+            }
+        }
     }
     
     /**
-     * Get all metrics for a specific scenario
+     * Key scenario-level aggregates are stored under: the execution id (feature URI
+     * and line, unique per example row) when the hooks set one, else the scenario name
      */
-    public static List<PerformanceMetrics> getScenarioMetrics(String scenarioName) {
-        return scenarioMetrics.getOrDefault(scenarioName, Collections.emptyList());
+    public static String scenarioKey(PerformanceMetrics metrics) {
+        return metrics.getScenarioId() != null ? metrics.getScenarioId() : metrics.getScenarioName();
     }
     
     /**
-     * Get all metrics across all scenarios
+     * Aggregate key for a route: the route itself until {@code performance.routes.maxDistinct}
+     * routes are tracked, then {@link #OTHER_ROUTE} for any new one. The cap may be
+     * overshot by a few routes added concurrently.
      */
-    public static List<PerformanceMetrics> getAllMetrics() {
-        return new ArrayList<>(allMetrics);
+    private static String routeKey(String route) {
+        if (routeAccumulators.size() < MAX_ROUTES || routeAccumulators.containsKey(route)) {
+            return route;
+        }
+        if (!routeCapReported) {
+            routeCapReported = true;
+            System.err.println("⚠️  More than " + MAX_ROUTES + " distinct routes, folding new ones into \"" + OTHER_ROUTE
+                + "\" (add templates via performance.routes or raise performance.routes.maxDistinct)");
+        }
+        return OTHER_ROUTE;
+    }
+    
+    private static void addOutline(String scenarioKey, PerformanceMetrics metrics) {
+        String outlineId = metrics.getOutlineId();
+        outlineAccumulators.computeIfAbsent(outlineId, k -> new MetricsAccumulator()).add(metrics);
+        outlineNames.putIfAbsent(outlineId, String.valueOf(metrics.getScenarioName()));
+        outlineRows.computeIfAbsent(outlineId, k -> ConcurrentHashMap.newKeySet()).add(scenarioKey);
+        
+        Map<String, Map<String, MetricsAccumulator>> parameters =
+            parameterAccumulators.computeIfAbsent(outlineId, k -> new ConcurrentHashMap<>());
+        metrics.getExampleParameters().forEach((name, value) ->
+            parameters.computeIfAbsent(name, k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(value, k -> new MetricsAccumulator())
+                .add(metrics));
     }
     
     /**
-     * Calculate average metrics for entire suite
+     * Mark the start of a scenario execution. The first {@code warmupSteps} steps
+     * recorded for it are left out of the cold/warm statistics (a negative value
+     * uses {@code performance.warmup.steps}).
      */
-    public static Map<String, Double> calculateSuiteAverages() {
-        if (allMetrics.isEmpty()) {
-            return Collections.emptyMap();
-        }
-        
-        Map<String, Double> averages = new HashMap<>();
-        
-        averages.put("avgPageLoadTime", allMetrics.stream()
-            .mapToLong(PerformanceMetrics::getPageLoadTime)
-            .average()
-            .orElse(0.0));
-        
-        averages.put("avgDomReadyTime", allMetrics.stream()
-            .mapToLong(PerformanceMetrics::getDomReadyTime)
-            .average()
-            .orElse(0.0));
+    public static void beginScenario(String scenarioKey, int warmupSteps) {
+        int warmup = warmupSteps >= 0 ? warmupSteps : DEFAULT_WARMUP_STEPS;
+        // {remaining warm-up steps}
+        scenarioWarmup.put(scenarioKey, new int[] {warmup});
         
-        averages.put("avgResponseTime", allMetrics.stream()
-            .mapToLong(PerformanceMetrics::getResponseTime)
-            .average()
-            .orElse(0.0));
-        
-        averages.put("avgTtfb", allMetrics.stream()
-            .mapToLong(PerformanceMetrics::getTtfb)
-            .average()
-            .orElse(0.0));
-        
-        averages.put("avgConnectTime", allMetrics.stream()
-            .mapToLong(PerformanceMetrics::getConnectTime)
-            .average()
-            .orElse(0.0));
-        
-        averages.put("avgDomainLookupTime", allMetrics.stream()
-            .mapToLong(PerformanceMetrics::getDomainLookupTime)
-            .average()
-            .orElse(0.0));
+        // Resource trends describe one browser session, so start over for each execution
+        scenarioResourceTrends.computeIfAbsent(scenarioKey, k -> new ResourceTrends()).reset();
+    }
+    
+    private static void addColdWarm(String scenarioKey, PerformanceMetrics metrics) {
+        ColdWarmAccumulator scenarioStreams = scenarioColdWarm.computeIfAbsent(scenarioKey, k -> new ColdWarmAccumulator());
         
-        averages.put("totalSteps", (double) allMetrics.size());
-        averages.put("cachedSteps", (double) allMetrics.stream().filter(PerformanceMetrics::isFromCache).count());
+        int[] remaining = scenarioWarmup.computeIfAbsent(scenarioKey, k -> new int[] {DEFAULT_WARMUP_STEPS});
+        boolean warmup;
+        synchronized (remaining) {
+            warmup = remaining[0] > 0;
+            if (warmup) {
+                remaining[0]--;
+            }
+        }
         
-        return averages;
+        if (warmup) {
+            suiteColdWarm.recordExcludedWarmup();
+            scenarioStreams.recordExcludedWarmup();
+        } else {
+            suiteColdWarm.add(metrics);
+            scenarioStreams.add(metrics);
+        }
+    }
+    
+    // Caller holds retentionLock
+    private static void spill(PerformanceMetrics oldest) {
+        try {
+            if (spillSegment == null) {
+                spillSegment = new MetricsSpillSegment(MetricsSpillSegment.defaultDirectory());
+            }
+            spillSegment.append(oldest, scenarioKey(oldest));
+            recentMetrics.removeFirst();
+        } catch (IOException e) {
+            // Keep the record in memory rather than lose it
+            spillDisabled = true;
+            System.err.println(" Error spilling metrics to disk, retaining in memory: " + e.getMessage());
+        }
     }
     
     /**
-     * Calculate average metrics for a specific scenario
+     * Record a repeat-measured step. The aggregates get one logical value for the step,
+     * the sample with the median page load (so all its fields come from one real
+     * measurement); the samples themselves are kept only in the step's series, with
+     * the series statistics (mean, median, CV, 95% CI).
      */
-    public static Map<String, Double> calculateScenarioAverages(String scenarioName) {
-        List<PerformanceMetrics> metrics = getScenarioMetrics(scenarioName);
-        
-        if (metrics.isEmpty()) {
-            return Collections.emptyMap();
+    public static SampleStatistics addSampleSeries(List<PerformanceMetrics> samples) {
+        if (samples.isEmpty()) {
+            return SampleStatistics.of(new long[0]);
         }
         
-        Map<String, Double> averages = new HashMap<>();
-        
-        averages.put("avgPageLoadTime", metrics.stream()
-            .mapToLong(PerformanceMetrics::getPageLoadTime)
-            .average()
-            .orElse(0.0));
-        
-        averages.put("avgDomReadyTime", metrics.stream()
-            .mapToLong(PerformanceMetrics::getDomReadyTime)
-            .average()
-            .orElse(0.0));
+        long[] pageLoads = new long[samples.size()];
+        for (int i = 0; i < samples.size(); i++) {
+            pageLoads[i] = samples.get(i).getPageLoadTime();
+        }
+        PerformanceMetrics median = recordedSample(samples);
+        addMetrics(median);
         
-        averages.put("avgResponseTime", metrics.stream()
-            .mapToLong(PerformanceMetrics::getResponseTime)
-            .average()
-            .orElse(0.0));
+        PerformanceMetrics first = samples.get(0);
+        SampleStatistics statistics = SampleStatistics.of(pageLoads);
         
-        averages.put("avgTtfb", metrics.stream()
-            .mapToLong(PerformanceMetrics::getTtfb)
-            .average()
-            .orElse(0.0));
+        Map<String, Object> series = new LinkedHashMap<>();
+        series.put("scenario", first.getScenarioName());
+        series.put("step", first.getStepName());
+        series.put("recordedSample", median.getSampleIndex());
+        series.put("pageLoadTime", statistics.toMap());
+        series.put("pageLoadSamples", pageLoads);
+        repeatedSteps.put(scenarioKey(first) + " / " + first.getStepName(), series);
         
-        averages.put("avgConnectTime", metrics.stream()
-            .mapToLong(PerformanceMetrics::getConnectTime)
-            .average()
-            .orElse(0.0));
+        return statistics;
+    }
+    
+    /**
+     * The sample {@link #addSampleSeries} records for a series: the one with the
+     * median page load (the lower one for an even count, first sample on ties)
+     */
+    public static PerformanceMetrics recordedSample(List<PerformanceMetrics> samples) {
+        List<PerformanceMetrics> byPageLoad = new ArrayList<>(samples);
+        byPageLoad.sort(Comparator.comparingLong(PerformanceMetrics::getPageLoadTime));
+        return byPageLoad.get((byPageLoad.size() - 1) / 2);
+    }
+    
+    /**
+     * Repeat-measure series statistics per logical step
+     */
+    public static Map<String, Map<String, Object>> getRepeatedSteps() {
+        return new TreeMap<>(repeatedSteps);
+    }
+    
+    /**
+     * Get all metrics for a specific scenario (by {@link #scenarioKey})
+     */
+    public static List<PerformanceMetrics> getScenarioMetrics(String scenarioKey) {
+        if (!scenarioAccumulators.containsKey(scenarioKey)) {
+            return Collections.emptyList();
+        }
         
-        averages.put("avgDomainLookupTime", metrics.stream()
-            .mapToLong(PerformanceMetrics::getDomainLookupTime)
-            .average()
-            .orElse(0.0));
+        List<PerformanceMetrics> metrics = new ArrayList<>();
+        uncheckedSnapshot().scenario(scenarioKey).forEach(metrics::add);
+        return metrics;
+    }
+    
+    /**
+     * Get all metrics across all scenarios, in insertion order.
+     * Spilled records are streamed from disk, so iterate rather than copy.
+     */
+    public static Iterable<PerformanceMetrics> getAllMetrics() {
+        return uncheckedSnapshot();
+    }
+    
+    /**
+     * Number of metrics recorded so far (in memory and spilled)
+     */
+    public static long getTotalMetrics() {
+        synchronized (retentionLock) {
+            return totalMetrics;
+        }
+    }
+    
+    /**
+     * Metrics recorded at or after the given position (0-based insertion index).
+     * Used for incremental checkpoints: only the records past the position are
+     * copied, and the segment is read only if the position has already been spilled.
+     *
+     * @throws IOException if spilled records could not be flushed for reading
+     */
+    public static Iterable<PerformanceMetrics> getMetricsSince(long fromIndex) throws IOException {
+        return snapshot(fromIndex).from(fromIndex);
+    }
+    
+    private static MetricsSnapshot snapshot() throws IOException {
+        return snapshot(0);
+    }
+    
+    private static MetricsSnapshot uncheckedSnapshot() {
+        try {
+            return snapshot();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Spilled metrics unavailable", e);
+        }
+    }
+    
+    /**
+     * Snapshot holding the in-memory records from position {@code fromIndex} on
+     * (all of them if it is already spilled); earlier ones are not reachable through it.
+     * Fails rather than hand out a snapshot that silently skips the spilled records.
+     */
+    private static MetricsSnapshot snapshot(long fromIndex) throws IOException {
+        synchronized (retentionLock) {
+            long spillLimit = 0;
+            if (spillSegment != null) {
+                spillLimit = spillSegment.flush();
+            }
+            long spilledCount = totalMetrics - recentMetrics.size();
+            long firstRecent = Math.max(spilledCount, Math.min(fromIndex, totalMetrics));
+            
+            // Copy the tail from the newest end, so a checkpoint costs the delta only
+            PerformanceMetrics[] tail = new PerformanceMetrics[(int) (totalMetrics - firstRecent)];
+            Iterator<PerformanceMetrics> newestFirst = recentMetrics.descendingIterator();
+            for (int i = tail.length - 1; i >= 0; i--) {
+                tail[i] = newestFirst.next();
+            }
+            return new MetricsSnapshot(spillSegment, spillLimit, spilledCount, firstRecent,
+                Arrays.asList(tail), totalMetrics);
+        }
+    }
+    
+    /**
+     * Calculate average metrics for entire suite
+     */
+    public static Map<String, Double> calculateSuiteAverages() {
+        return suiteAccumulator.toAverages();
+    }
+    
+    /**
+     * Calculate average metrics for a specific scenario (by {@link #scenarioKey})
+     */
+    public static Map<String, Double> calculateScenarioAverages(String scenarioKey) {
+        MetricsAccumulator accumulator = scenarioAccumulators.get(scenarioKey);
+        return accumulator != null ? accumulator.toAverages() : Collections.emptyMap();
+    }
+    
+    /**
+     * Cold and warm aggregate streams for the suite, with median, MAD and trimmed mean
+     */
+    public static Map<String, Object> calculateSuiteColdWarmStatistics() {
+        return suiteColdWarm.toStatistics();
+    }
+    
+    /**
+     * Cold and warm aggregate streams for a specific scenario
+     */
+    public static Map<String, Object> calculateScenarioColdWarmStatistics(String scenarioKey) {
+        ColdWarmAccumulator streams = scenarioColdWarm.get(scenarioKey);
+        return streams != null ? streams.toStatistics() : Collections.emptyMap();
+    }
+    
+    /**
+     * Average metrics per normalized route, across all scenarios
+     */
+    public static Map<String, Map<String, Double>> calculateRouteAverages() {
+        Map<String, Map<String, Double>> averages = new TreeMap<>();
+        routeAccumulators.forEach((route, accumulator) -> averages.put(route, accumulator.toAverages()));
+        return averages;
+    }
+    
+    /**
+     * Routes with the highest average page load, slowest first.
+     * Route means move as samples arrive, so the ranking is taken over the
+     * route accumulators with a bounded heap when asked for.
+     */
+    public static List<Map<String, Object>> getSlowestRoutes(int k) {
+        TopKTracker<Map<String, Object>> slowest = new TopKTracker<>(k);
+        routeAccumulators.forEach((route, accumulator) -> {
+            Map<String, Double> averages = accumulator.toAverages();
+            if (averages.isEmpty()) {
+                return;
+            }
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("route", route);
+            entry.put("steps", accumulator.getCount());
+            entry.put("avgPageLoadTime", averages.get("avgPageLoadTime"));
+            entry.put("p95PageLoadTime", accumulator.getHistogram(MetricField.PAGE_LOAD).valueAtQuantile(0.95));
+            slowest.offer(entry, averages.get("avgPageLoadTime"));
+        });
+        return slowest.snapshot();
+    }
+    
+    /**
+     * Per-step growth of heap, DOM nodes, listeners and renderer usage for a scenario
+     */
+    public static Map<String, Map<String, Double>> calculateScenarioResourceTrends(String scenarioKey) {
+        ResourceTrends trends = scenarioResourceTrends.get(scenarioKey);
+        return trends != null ? trends.toMap() : Collections.emptyMap();
+    }
+    
+    /**
+     * Resource growth trends of every scenario that reported resource usage
+     */
+    public static Map<String, Map<String, Map<String, Double>>> calculateResourceTrends() {
+        Map<String, Map<String, Map<String, Double>>> trends = new TreeMap<>();
+        scenarioResourceTrends.forEach((scenario, scenarioTrends) -> {
+            Map<String, Map<String, Double>> fields = scenarioTrends.toMap();
+            if (!fields.isEmpty()) {
+                trends.put(scenario, fields);
+            }
+        });
+        return trends;
+    }
+    
+    /**
+     * Roll-up per Scenario Outline: averages over all example rows, and the same
+     * aggregates split by each Examples column value so data sets can be compared
+     */
+    public static Map<String, Map<String, Object>> calculateOutlineStatistics() {
+        Map<String, Map<String, Object>> outlines = new TreeMap<>();
+        outlineAccumulators.forEach((outlineId, accumulator) -> {
+            Map<String, Object> outline = new LinkedHashMap<>();
+            outline.put("name", outlineNames.get(outlineId));
+            outline.put("exampleRows", outlineRows.getOrDefault(outlineId, Collections.emptySet()).size());
+            outline.put("averages", accumulator.toAverages());
+            
+            Map<String, Map<String, Map<String, Object>>> parameters = new TreeMap<>();
+            parameterAccumulators.getOrDefault(outlineId, Collections.emptyMap()).forEach((name, values) ->
+                parameters.put(name, calculateParameterComparison(outlineId, name)));
+            outline.put("parameters", parameters);
+            outlines.put(outlineId, outline);
+        });
+        return outlines;
+    }
+    
+    /**
+     * Steps, average and p95 page load and average TTFB per value of one example
+     * parameter of an outline, slowest value first
+     */
+    public static Map<String, Map<String, Object>> calculateParameterComparison(String outlineId, String parameter) {
+        Map<String, MetricsAccumulator> values = parameterAccumulators
+            .getOrDefault(outlineId, Collections.emptyMap())
+            .getOrDefault(parameter, Collections.emptyMap());
         
-        averages.put("totalSteps", (double) metrics.size());
-        averages.put("cachedSteps", (double) metrics.stream().filter(PerformanceMetrics::isFromCache).count());
+        List<Map.Entry<String, Map<String, Object>>> entries = new ArrayList<>();
+        values.forEach((value, accumulator) -> {
+            Map<String, Double> averages = accumulator.toAverages();
+            if (averages.isEmpty()) {
+                return;
+            }
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("steps", accumulator.getCount());
+            entry.put("avgPageLoadTime", averages.get("avgPageLoadTime"));
+            entry.put("p95PageLoadTime", accumulator.getHistogram(MetricField.PAGE_LOAD).valueAtQuantile(0.95));
+            entry.put("avgTtfb", averages.get("avgTtfb"));
+            entries.add(new AbstractMap.SimpleEntry<>(value, entry));
+        });
+        entries.sort((a, b) -> Double.compare((Double) b.getValue().get("avgPageLoadTime"), (Double) a.getValue().get("avgPageLoadTime")));
         
-        return averages;
+        Map<String, Map<String, Object>> comparison = new LinkedHashMap<>();
+        entries.forEach(entry -> comparison.put(entry.getKey(), entry.getValue()));
+        return comparison;
+    }
+    
+    /**
+     * Averages and page load p95 per concurrency level, lowest level first
+     */
+    public static Map<Integer, Map<String, Object>> calculateConcurrencyStatistics() {
+        Map<Integer, Map<String, Object>> statistics = new TreeMap<>();
+        concurrencyAccumulators.forEach((level, accumulator) -> {
+            Map<String, Object> entry = new LinkedHashMap<>(accumulator.toAverages());
+            entry.put("p95PageLoadTime", accumulator.getHistogram(MetricField.PAGE_LOAD).valueAtQuantile(0.95));
+            statistics.put(level, entry);
+        });
+        return statistics;
+    }
+    
+    /**
+     * Averages and page load p95 per throttling profile, by profile name
+     */
+    public static Map<String, Map<String, Object>> calculateProfileStatistics() {
+        Map<String, Map<String, Object>> statistics = new TreeMap<>();
+        profileAccumulators.forEach((profile, accumulator) -> {
+            Map<String, Object> entry = new LinkedHashMap<>(accumulator.toAverages());
+            entry.put("p95PageLoadTime", accumulator.getHistogram(MetricField.PAGE_LOAD).valueAtQuantile(0.95));
+            statistics.put(profile, entry);
+        });
+        return statistics;
+    }
+    
+    /**
+     * True while any monitored field is in a degraded window
+     */
+    public static boolean isDegraded() {
+        return degradationMonitor.isDegraded();
+    }
+    
+    /**
+     * Number of degraded windows opened so far, closed ones included
+     */
+    public static long getDegradationWindowCount() {
+        return degradationMonitor.getWindowCount();
+    }
+    
+    /**
+     * Degraded windows detected so far; indexes are record positions in the export
+     */
+    public static List<Map<String, Object>> getDegradationWindows() {
+        return degradationMonitor.getWindows();
+    }
+    
+    /**
+     * Individual steps with the highest page load, slowest first
+     */
+    public static List<PerformanceMetrics> getSlowestSteps() {
+        return slowestSteps.snapshot();
     }
     
     /**
-     * Export all metrics to JSON file
+     * Backend time of a step from the document request's Server-Timing entries:
+     * the total entry ({@code performance.serverTiming.totalName}) if the backend
+     * sends one, otherwise the sum of the document's entries. Entries of
+     * subresources overlap the page load and are not part of it.
+     */
+    public static double backendTime(PerformanceMetrics metrics) {
+        Map<String, Double> timings = metrics.getDocumentServerTimings();
+        Double total = timings.get(SERVER_TIMING_TOTAL);
+        if (total != null) {
+            return total;
+        }
+        return timings.values().stream().mapToDouble(Double::doubleValue).sum();
+    }
+    
+    /**
+     * Count, average and maximum of every Server-Timing entry name
+     */
+    public static Map<String, Map<String, Double>> calculateServerTimingStatistics() {
+        Map<String, Map<String, Double>> result = new TreeMap<>();
+        serverTimingStatistics.forEach((name, statistics) -> {
+            Map<String, Double> entry = new LinkedHashMap<>();
+            synchronized (statistics) {
+                entry.put("count", (double) statistics.getCount());
+                entry.put("avg", statistics.getAverage());
+                entry.put("max", statistics.getMax());
+            }
+            result.put(name, entry);
+        });
+        return result;
+    }
+    
+    /**
+     * Frontend versus backend split of the slowest steps whose document request reported Server-Timing entries
+     */
+    public static List<Map<String, Object>> getSlowestStepBreakdown() {
+        List<Map<String, Object>> breakdown = new ArrayList<>();
+        for (PerformanceMetrics step : getSlowestSteps()) {
+            if (step.getDocumentServerTimings().isEmpty()) {
+                continue;
+            }
+            double backend = backendTime(step);
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("scenario", step.getScenarioName());
+            entry.put("step", step.getStepName());
+            entry.put("pageLoadTime", step.getPageLoadTime());
+            entry.put("backendTime", backend);
+            entry.put("frontendTime", Math.max(0, step.getPageLoadTime() - backend));
+            entry.put("serverTimings", step.getDocumentServerTimings());
+            breakdown.add(entry);
+        }
+        return breakdown;
+    }
+    
+    /**
+     * Exact histogram of one field across the suite
+     */
+    public static LatencyHistogram getSuiteHistogram(MetricField field) {
+        return suiteAccumulator.getHistogram(field);
+    }
+    
+    /**
+     * Exact histogram of one field for a specific scenario
+     */
+    public static LatencyHistogram getScenarioHistogram(String scenarioKey, MetricField field) {
+        MetricsAccumulator accumulator = scenarioAccumulators.get(scenarioKey);
+        return accumulator != null ? accumulator.getHistogram(field) : new LatencyHistogram();
+    }
+    
+    /**
+     * Export all metrics to JSON file.
+     * Records are streamed straight to the file in one sequential pass, then once
+     * more grouped by scenario through the segment's on-disk index, so heap use does
+     * not depend on the number of steps and each record is decoded at most twice. The file is replaced
+     * atomically, so an interrupted export leaves the previous one intact.
      */
     public static void exportToJson(String outputPath) {
         try {
             ObjectMapper mapper = new ObjectMapper();
             mapper.enable(SerializationFeature.INDENT_OUTPUT);
             
-            File outputFile = new File(outputPath);
-            outputFile.getParentFile().mkdirs();
-            
-            Map<String, Object> export = new HashMap<>();
-            export.put("totalMetrics", allMetrics.size());
-            export.put("suiteAverages", calculateSuiteAverages());
-            export.put("allMetrics", allMetrics);
-            export.put("scenarioMetrics", scenarioMetrics);
+            MetricsSnapshot snapshot = snapshot();
             
-            mapper.writeValue(outputFile, export);
+            AtomicFiles.write(Paths.get(outputPath), out -> {
+                try (JsonGenerator generator = mapper.createGenerator(out, JsonEncoding.UTF8)) {
+                    generator.writeStartObject();
+                    generator.writeNumberField("totalMetrics", snapshot.size());
+                    generator.writeObjectField("suiteAverages", calculateSuiteAverages());
+                    
+                    generator.writeArrayFieldStart("allMetrics");
+                    for (PerformanceMetrics m : snapshot) {
+                        generator.writeObject(m);
+                    }
+                    generator.writeEndArray();
+                    
+                    generator.writeObjectFieldStart("scenarioMetrics");
+                    for (String scenarioKey : new TreeSet<>(scenarioAccumulators.keySet())) {
+                        generator.writeArrayFieldStart(scenarioKey);
+                        for (PerformanceMetrics m : snapshot.scenario(scenarioKey)) {
+                            generator.writeObject(m);
+                        }
+                        generator.writeEndArray();
+                    }
+                    generator.writeEndObject();
+                    
+                    generator.writeEndObject();
+                }
+            });
             
             System.out.println(" Performance metrics exported to: " + outputPath);
-            
+        
         } catch (IOException e) {
             System.err.println(" Error exporting metrics: " + e.getMessage());
             e.printStackTrace();
         }
     }
     
+    /**
+     * Export all metrics to the compact columnar format (see {@link PerformanceBinaryFormat}).
+     * Read back with {@link PerformanceBinaryReader}, which can also convert to the JSON shape.
+     */
+    public static void exportToBinary(String outputPath) {
+        try {
+            PerformanceBinaryWriter.writeAll(Paths.get(outputPath), snapshot());
+            
+            System.out.println(" Performance metrics exported to: " + outputPath);
+        
+        } catch (IOException e) {
+            System.err.println(" Error exporting binary metrics: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+    
     /**
      * Clear all stored metrics (useful for test cleanup)
      */
     public static void clear() {
-        allMetrics.clear();
-        scenarioMetrics.clear();
+        synchronized (retentionLock) {
+            recentMetrics.clear();
+            totalMetrics = 0;
+            spillDisabled = false;
+            if (spillSegment != null) {
+                spillSegment.delete();
+                spillSegment = null;
+            }
+        }
+        suiteAccumulator.reset();
+        scenarioAccumulators.clear();
+        suiteColdWarm.reset();
+        scenarioColdWarm.clear();
+        scenarioWarmup.clear();
+        routeAccumulators.clear();
+        routeCapReported = false;
+        concurrencyAccumulators.clear();
+        profileAccumulators.clear();
+        degradationMonitor.reset();
+        outlineAccumulators.clear();
+        outlineNames.clear();
+        outlineRows.clear();
+        parameterAccumulators.clear();
+        scenarioResourceTrends.clear();
+        serverTimingStatistics.clear();
+        slowestSteps.clear();
+        repeatedSteps.clear();
     }
     
     /**
      * Get statistics summary
      */
     public static Map<String, Object> getStatistics() {
+        // Step count, averages and percentiles all describe the same state of the suite stream
+        MetricsAccumulator suite = suiteAccumulator.copy();
+        
         Map<String, Object> stats = new HashMap<>();
-        stats.put("totalSteps", allMetrics.size());
-        stats.put("totalScenarios", scenarioMetrics.size());
-        stats.put("averages", calculateSuiteAverages());
+        stats.put("totalSteps", suite.getCount());
+        stats.put("totalScenarios", scenarioAccumulators.size());
+        stats.put("averages", suite.toAverages());
+        stats.put("percentiles", suite.toPercentiles());
+        stats.put("coldWarm", calculateSuiteColdWarmStatistics());
+        stats.put("totalRoutes", routeAccumulators.size());
+        stats.put("slowestRoutes", getSlowestRoutes(TOP_K));
+        stats.put("slowestSteps", getSlowestSteps());
+        stats.put("repeatedSteps", getRepeatedSteps());
+        stats.put("concurrency", calculateConcurrencyStatistics());
+        stats.put("profiles", calculateProfileStatistics());
+        stats.put("degradationWindows", getDegradationWindows());
+        stats.put("outlines", calculateOutlineStatistics());
+        stats.put("resourceTrends", calculateResourceTrends());
+        stats.put("serverTimings", calculateServerTimingStatistics());
+        stats.put("slowestStepBreakdown", getSlowestStepBreakdown());
         
         return stats;
     }
-}
\ No newline at end of file
+    
+    /**
+     * Point-in-time view of the dataset: spilled records up to a flushed offset,
+     * followed by a copy of the in-memory tail. A snapshot taken for a checkpoint
+     * copies only the tail from its start position ({@code firstRecent}); full
+     * snapshots copy every in-memory record.
+     */
+    private static final class MetricsSnapshot implements Iterable<PerformanceMetrics> {
+        
+        private final MetricsSpillSegment segment;
+        private final long spillLimit;
+        private final long spilledCount;
+        private final long firstRecent;
+        private final List<PerformanceMetrics> recent;
+        private final long size;
+        private Map<String, List<PerformanceMetrics>> recentByScenario;
+        
+        MetricsSnapshot(MetricsSpillSegment segment, long spillLimit, long spilledCount,
+                        long firstRecent, List<PerformanceMetrics> recent, long size) {
+            this.segment = segment;
+            this.spillLimit = spillLimit;
+            this.spilledCount = spilledCount;
+            this.firstRecent = firstRecent;
+            this.recent = recent;
+            this.size = size;
+        }
+        
+        long size() { return size; }
+        
+        Iterable<PerformanceMetrics> from(long fromIndex) {
+            if (fromIndex >= spilledCount) {
+                int offset = (int) Math.min(Math.max(fromIndex - firstRecent, 0), recent.size());
+                return recent.subList(offset, recent.size());
+            }
+            return () -> {
+                Iterator<PerformanceMetrics> all = iterator();
+                for (long i = 0; i < fromIndex && all.hasNext(); i++) {
+                    all.next();
+                }
+                return all;
+            };
+        }
+        
+        /**
+         * Records of one scenario key in insertion order: spilled ones by offset,
+         * then the in-memory tail, grouped once per snapshot
+         */
+        Iterable<PerformanceMetrics> scenario(String scenarioKey) {
+            if (recentByScenario == null) {
+                recentByScenario = new HashMap<>();
+                for (PerformanceMetrics m : recent) {
+                    recentByScenario.computeIfAbsent(scenarioKey(m), k -> new ArrayList<>()).add(m);
+                }
+            }
+            List<PerformanceMetrics> inMemory = recentByScenario.getOrDefault(scenarioKey, Collections.emptyList());
+            if (segment == null || spillLimit == 0) {
+                return inMemory;
+            }
+            return () -> {
+                Iterator<PerformanceMetrics> spilled = segment.iterator(scenarioKey, spillLimit);
+                Iterator<PerformanceMetrics> tail = inMemory.iterator();
+                return new Iterator<PerformanceMetrics>() {
+                    @Override
+                    public boolean hasNext() {
+                        return spilled.hasNext() || tail.hasNext();
+                    }
+                    
+                    @Override
+                    public PerformanceMetrics next() {
+                        return spilled.hasNext() ? spilled.next() : tail.next();
+                    }
+                };
+            };
+        }
+        
+        @Override
+        public Iterator<PerformanceMetrics> iterator() {
+            if (segment == null || spillLimit == 0) {
+                return recent.iterator();
+            }
+            Iterator<PerformanceMetrics> spilled = segment.iterator(spillLimit);
+            Iterator<PerformanceMetrics> inMemory = recent.iterator();
+            return new Iterator<PerformanceMetrics>() {
+                @Override
+                public boolean hasNext() {
+                    return spilled.hasNext() || inMemory.hasNext();
+                }
+                
+                @Override
+                public PerformanceMetrics next() {
+                    return spilled.hasNext() ? spilled.next() : inMemory.next();
+                }
+            };
+        }
+    }
+}
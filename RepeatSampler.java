@@ -0,0 +1,140 @@
+package com.yourcompany.hooks;
+
+import com.yourcompany.utils.PerformanceMetrics;
+import com.yourcompany.utils.SampleStatistics;
+import io.cucumber.java.Scenario;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chromium.HasCdp;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Opt-in repeat-measure mode for noisy steps.
+ *
+ * A measured navigation is re-triggered (page reload) until the 95% confidence
+ * interval of its page load time is within {@code performance.repeat.targetCi}
+ * of the mean (default 10%), or {@code maxSamples} is reached. Enabled per scenario
+ * with {@code @repeat-measure} / {@code @repeat-measure:N} or globally with
+ * {@code performance.repeat.enabled=true}. {@code @repeat-measure-cold} (or
+ * {@code performance.repeat.cold=true}) clears the browser cache before each re-sample.
+ */
+public class RepeatSampler {
+    
+    /**
+     * Sampling settings resolved for one scenario
+     */
+    public static final class Config {
+        
+        private final boolean enabled;
+        private final int minSamples;
+        private final int maxSamples;
+        private final double targetRelativeHalfWidth;
+        private final boolean coldCache;
+        
+        public Config(boolean enabled, int minSamples, int maxSamples, double targetRelativeHalfWidth, boolean coldCache) {
+            this.enabled = enabled;
+            this.minSamples = Math.max(2, minSamples);
+            this.maxSamples = Math.max(this.minSamples, maxSamples);
+            this.targetRelativeHalfWidth = targetRelativeHalfWidth;
+            this.coldCache = coldCache;
+        }
+        
+        public static Config forScenario(Scenario scenario) {
+            boolean enabled = Boolean.getBoolean("performance.repeat.enabled");
+            boolean coldCache = Boolean.getBoolean("performance.repeat.cold");
+            int maxSamples = Integer.getInteger("performance.repeat.maxSamples", 10);
+            
+            for (String tag : scenario.getSourceTagNames()) {
+                if (tag.equals("@repeat-measure")) {
+                    enabled = true;
+                } else if (tag.startsWith("@repeat-measure:")) {
+                    enabled = true;
+                    try {
+                        maxSamples = Integer.parseInt(tag.substring("@repeat-measure:".length()));
+                    } catch (NumberFormatException e) {
+                        scenario.log("⚠️ Invalid repeat-measure tag: " + tag);
+                    }
+                } else if (tag.equals("@repeat-measure-cold")) {
+                    enabled = true;
+                    coldCache = true;
+                }
+            }
+            
+            return new Config(
+                enabled,
+                Integer.getInteger("performance.repeat.minSamples", 3),
+                maxSamples,
+                Double.parseDouble(System.getProperty("performance.repeat.targetCi", "0.10")),
+                coldCache
+            );
+        }
+        
+        public boolean isEnabled() { return enabled; }
+        
+        public boolean isColdCache() { return coldCache; }
+    }
+    
+    private final Config config;
+    
+    public RepeatSampler(Config config) {
+        this.config = config;
+    }
+    
+    /**
+     * Collect samples for one logical step, starting from the measurement already taken.
+     * {@code resample} re-triggers the navigation and returns the new measurement (or null).
+     */
+    public List<PerformanceMetrics> sample(PerformanceMetrics first, Supplier<PerformanceMetrics> resample) {
+        List<PerformanceMetrics> samples = new ArrayList<>();
+        samples.add(first);
+        
+        while (samples.size() < config.maxSamples) {
+            if (samples.size() >= config.minSamples
+                    && statistics(samples).getRelativeHalfWidth95() <= config.targetRelativeHalfWidth) {
+                break; // CI is narrow enough
+            }
+            PerformanceMetrics next = resample.get();
+            if (next == null) {
+                break;
+            }
+            samples.add(next);
+        }
+        
+        for (int i = 0; i < samples.size(); i++) {
+            samples.get(i).setSampleIndex(i);
+        }
+        return Collections.unmodifiableList(samples);
+    }
+    
+    public static SampleStatistics statistics(List<PerformanceMetrics> samples) {
+        long[] pageLoads = new long[samples.size()];
+        for (int i = 0; i < pageLoads.length; i++) {
+            pageLoads[i] = samples.get(i).getPageLoadTime();
+        }
+        return SampleStatistics.of(pageLoads);
+    }
+    
+    /**
+     * Reload the current page, optionally with an empty cache, and wait for it to finish loading
+     */
+    public static void retrigger(WebDriver driver, boolean coldCache) throws InterruptedException {
+        if (coldCache && driver instanceof HasCdp) {
+            ((HasCdp) driver).executeCdpCommand("Network.clearBrowserCache", Collections.emptyMap());
+        }
+        driver.navigate().refresh();
+        
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (System.currentTimeMillis() < deadline) {
+            Object state = ((JavascriptExecutor) driver).executeScript("return document.readyState");
+            if ("complete".equals(state)) {
+                break;
+            }
+            Thread.sleep(50);
+        }
+        Thread.sleep(200);
+    }
+}
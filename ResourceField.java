@@ -0,0 +1,31 @@
+package com.yourcompany.utils;
+
+import java.util.function.ToLongFunction;
+
+/**
+ * Browser resource fields sampled per step. A negative value means the
+ * browser or platform could not provide the field.
+ */
+public enum ResourceField {
+    
+    JS_HEAP_USED("jsHeapUsedBytes", PerformanceMetrics::getJsHeapUsedBytes),
+    JS_HEAP_TOTAL("jsHeapTotalBytes", PerformanceMetrics::getJsHeapTotalBytes),
+    DOM_NODES("domNodes", PerformanceMetrics::getDomNodes),
+    EVENT_LISTENERS("eventListeners", PerformanceMetrics::getEventListeners),
+    RENDERER_CPU("rendererCpuMillis", PerformanceMetrics::getRendererCpuMillis),
+    RENDERER_RSS("rendererRssBytes", PerformanceMetrics::getRendererRssBytes);
+    
+    private final String key;
+    private final ToLongFunction<PerformanceMetrics> extractor;
+    
+    ResourceField(String key, ToLongFunction<PerformanceMetrics> extractor) {
+        this.key = key;
+        this.extractor = extractor;
+    }
+    
+    public String getKey() { return key; }
+    
+    public long valueOf(PerformanceMetrics metrics) {
+        return extractor.applyAsLong(metrics);
+    }
+}
@@ -0,0 +1,59 @@
+package com.yourcompany.utils;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Growth trend of each browser resource field over the steps of one scenario.
+ * A steadily positive heap or DOM node slope is the signature of a leak that a
+ * single end-of-scenario number would hide.
+ */
+public class ResourceTrends {
+    
+    private static final ResourceField[] FIELDS = ResourceField.values();
+    
+    private final Map<ResourceField, TrendAccumulator> trends = new EnumMap<>(ResourceField.class);
+    private long steps;
+    
+    public ResourceTrends() {
+        for (ResourceField field : FIELDS) {
+            trends.put(field, new TrendAccumulator());
+        }
+    }
+    
+    public synchronized void add(PerformanceMetrics metrics) {
+        long step = steps++;
+        for (ResourceField field : FIELDS) {
+            long value = field.valueOf(metrics);
+            if (value >= 0) {
+                trends.get(field).add(step, value);
+            }
+        }
+    }
+    
+    public synchronized void reset() {
+        steps = 0;
+        trends.values().forEach(TrendAccumulator::reset);
+    }
+    
+    /**
+     * Slope per step plus first/last values for every field seen at least twice
+     */
+    public synchronized Map<String, Map<String, Double>> toMap() {
+        Map<String, Map<String, Double>> result = new LinkedHashMap<>();
+        for (ResourceField field : FIELDS) {
+            TrendAccumulator trend = trends.get(field);
+            if (trend.getCount() < 2) {
+                continue;
+            }
+            Map<String, Double> entry = new LinkedHashMap<>();
+            entry.put("samples", (double) trend.getCount());
+            entry.put("first", trend.getFirst());
+            entry.put("last", trend.getLast());
+            entry.put("slopePerStep", trend.getSlope());
+            result.put(field.getKey(), entry);
+        }
+        return result;
+    }
+}
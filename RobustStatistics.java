@@ -0,0 +1,94 @@
+package com.yourcompany.utils;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Outlier-resistant statistics read from a {@link LatencyHistogram}:
+ * median, median absolute deviation and trimmed mean.
+ * Works on bucket counts only, so no raw samples are needed.
+ */
+public final class RobustStatistics {
+    
+    public static final double DEFAULT_TRIM_FRACTION =
+        Double.parseDouble(System.getProperty("performance.stats.trimFraction", "0.1"));
+    
+    private RobustStatistics() {
+    }
+    
+    public static double median(LatencyHistogram histogram) {
+        return histogram.valueAtQuantile(0.5);
+    }
+    
+    /**
+     * Median absolute deviation from the median (unscaled)
+     */
+    public static double medianAbsoluteDeviation(LatencyHistogram histogram) {
+        long total = histogram.getTotalCount();
+        if (total == 0) {
+            return 0.0;
+        }
+        double median = median(histogram);
+        
+        int used = 0;
+        double[][] deviations = new double[LatencyHistogram.BUCKET_COUNT][];
+        for (int i = 0; i < LatencyHistogram.BUCKET_COUNT; i++) {
+            long count = histogram.getCount(i);
+            if (count > 0) {
+                deviations[used++] = new double[] {Math.abs(LatencyHistogram.bucketMidpoint(i) - median), count};
+            }
+        }
+        double[][] sorted = Arrays.copyOf(deviations, used);
+        Arrays.sort(sorted, (a, b) -> Double.compare(a[0], b[0]));
+        
+        long rank = (total + 1) / 2;
+        long seen = 0;
+        for (double[] deviation : sorted) {
+            seen += (long) deviation[1];
+            if (seen >= rank) {
+                return deviation[0];
+            }
+        }
+        return sorted[used - 1][0];
+    }
+    
+    /**
+     * Mean after dropping {@code trimFraction} of the samples from each tail
+     */
+    public static double trimmedMean(LatencyHistogram histogram, double trimFraction) {
+        long total = histogram.getTotalCount();
+        if (total == 0) {
+            return 0.0;
+        }
+        long trim = (long) Math.floor(total * trimFraction);
+        long keepFrom = trim;
+        long keepTo = total - trim;
+        if (keepTo <= keepFrom) {
+            return median(histogram);
+        }
+        
+        double sum = 0;
+        long position = 0;
+        for (int i = 0; i < LatencyHistogram.BUCKET_COUNT && position < keepTo; i++) {
+            long count = histogram.getCount(i);
+            if (count == 0) {
+                continue;
+            }
+            long kept = Math.min(position + count, keepTo) - Math.max(position, keepFrom);
+            if (kept > 0) {
+                sum += kept * LatencyHistogram.bucketMidpoint(i);
+            }
+            position += count;
+        }
+        return sum / (keepTo - keepFrom);
+    }
+    
+    public static Map<String, Double> summarize(LatencyHistogram histogram) {
+        Map<String, Double> stats = new LinkedHashMap<>();
+        stats.put("median", median(histogram));
+        stats.put("mad", medianAbsoluteDeviation(histogram));
+        stats.put("trimmedMean", trimmedMean(histogram, DEFAULT_TRIM_FRACTION));
+        return stats;
+    }
+}
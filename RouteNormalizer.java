@@ -0,0 +1,266 @@
+package com.yourcompany.utils;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Normalizes page URLs to route templates, e.g. {@code /orders/8812 -> /orders/{id}}.
+ *
+ * Route templates come from {@code performance.routes} (comma separated) and/or
+ * {@code performance.routes.file} (one per line) and are compiled into a segment trie;
+ * literal segments win over {@code {placeholders}}. Paths no template matches fall back to
+ * generic rules (numbers, UUIDs and long hex tokens become placeholders).
+ * Results are kept in a bounded LRU cache ({@code performance.routes.cacheSize}).
+ * Hash-routed pages ({@code /#/orders/1}, {@code /#!/orders/1}) take their route from
+ * the fragment.
+ */
+public class RouteNormalizer {
+    
+    private static final Pattern NUMERIC = Pattern.compile("\\d+");
+    private static final Pattern UUID = Pattern.compile("[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}");
+    private static final Pattern HASH = Pattern.compile("(?=.*\\d)[0-9a-fA-F]{16,}");
+    private static final Pattern DOCUMENT = Pattern.compile("/[^/]+\\.html?$");
+    
+    private static final boolean KEEP_QUERY = Boolean.getBoolean("performance.pageUrl.keepQuery");
+    
+    private static final RouteNormalizer DEFAULT = new RouteNormalizer(
+        loadConfiguredTemplates(), Integer.getInteger("performance.routes.cacheSize", 1024));
+    
+    private final TrieNode root = new TrieNode();
+    private final Map<String, String> cache;
+    
+    public RouteNormalizer(List<String> templates, int cacheSize) {
+        for (String template : templates) {
+            addTemplate(template);
+        }
+        this.cache = new LinkedHashMap<String, String>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+    
+    public static RouteNormalizer getDefault() {
+        return DEFAULT;
+    }
+    
+    public static String normalizeUrl(String url) {
+        return DEFAULT.normalize(url);
+    }
+    
+    /**
+     * Page URL as it may be exported. Query strings and fragments often carry session ids
+     * or tokens (OAuth implicit flows return them in the fragment), so user info, the query
+     * and any fragment other than a hash route are dropped; a hash route keeps its path
+     * only. {@code performance.pageUrl.keepQuery=true} exports URLs unchanged.
+     */
+    public static String sanitizeUrl(String url) {
+        if (url == null || KEEP_QUERY) {
+            return url;
+        }
+        try {
+            URI uri = URI.create(url);
+            if (uri.isOpaque()) {
+                return uri.getScheme() + ":" + uri.getRawSchemeSpecificPart().split("[?#]", 2)[0];
+            }
+            StringBuilder sanitized = new StringBuilder();
+            if (uri.getScheme() != null) {
+                sanitized.append(uri.getScheme()).append(':');
+            }
+            String authority = uri.getRawAuthority();
+            if (authority != null) {
+                sanitized.append("//").append(authority.substring(authority.lastIndexOf('@') + 1));
+            }
+            if (uri.getRawPath() != null) {
+                sanitized.append(uri.getRawPath());
+            }
+            String fragment = uri.getRawFragment();
+            String hashRoute = hashRoute(fragment);
+            if (hashRoute != null) {
+                sanitized.append(fragment.startsWith("!") ? "#!" : "#").append(hashRoute);
+            }
+            return sanitized.toString();
+        } catch (IllegalArgumentException e) {
+            // Not a valid URI; keep everything before the query or fragment
+            return url.split("[?#]", 2)[0];
+        }
+    }
+    
+    public String normalize(String url) {
+        if (url == null || url.isEmpty()) {
+            return null;
+        }
+        synchronized (cache) {
+            String cached = cache.get(url);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        
+        String route = normalizePath(extractPath(url));
+        
+        synchronized (cache) {
+            cache.put(url, route);
+        }
+        return route;
+    }
+    
+    private void addTemplate(String template) {
+        String trimmed = template.trim();
+        if (trimmed.isEmpty()) {
+            return;
+        }
+        TrieNode node = root;
+        for (String segment : splitPath(trimmed)) {
+            if (segment.startsWith("{") && segment.endsWith("}")) {
+                if (node.parameter == null) {
+                    node.parameter = new TrieNode();
+                }
+                node = node.parameter;
+            } else {
+                node = node.literals.computeIfAbsent(segment, k -> new TrieNode());
+            }
+        }
+        node.template = "/" + String.join("/", splitPath(trimmed));
+    }
+    
+    private String normalizePath(String path) {
+        List<String> segments = splitPath(path);
+        String template = match(root, segments, 0);
+        if (template != null) {
+            return template;
+        }
+        
+        StringBuilder route = new StringBuilder();
+        for (String segment : segments) {
+            route.append('/').append(genericSegment(segment));
+        }
+        return route.length() == 0 ? "/" : route.toString();
+    }
+    
+    private static String match(TrieNode node, List<String> segments, int index) {
+        if (index == segments.size()) {
+            return node.template;
+        }
+        TrieNode literal = node.literals.get(segments.get(index));
+        if (literal != null) {
+            String template = match(literal, segments, index + 1);
+            if (template != null) {
+                return template;
+            }
+        }
+        return node.parameter != null ? match(node.parameter, segments, index + 1) : null;
+    }
+    
+    private static String genericSegment(String segment) {
+        if (NUMERIC.matcher(segment).matches()) {
+            return "{id}";
+        }
+        if (UUID.matcher(segment).matches()) {
+            return "{uuid}";
+        }
+        if (HASH.matcher(segment).matches()) {
+            return "{hash}";
+        }
+        return segment;
+    }
+    
+    private static String extractPath(String url) {
+        String path = null;
+        String fragment = null;
+        try {
+            URI uri = URI.create(url);
+            path = uri.getRawPath();
+            fragment = uri.getRawFragment();
+        } catch (IllegalArgumentException e) {
+            // Not a valid URI; strip query and fragment by hand
+        }
+        if (path == null) {
+            path = url;
+            int cut = path.indexOf('#');
+            if (cut >= 0) {
+                fragment = path.substring(cut + 1);
+                path = path.substring(0, cut);
+            }
+            cut = path.indexOf('?');
+            if (cut >= 0) path = path.substring(0, cut);
+            int scheme = path.indexOf("://");
+            if (scheme >= 0) {
+                int slash = path.indexOf('/', scheme + 3);
+                path = slash >= 0 ? path.substring(slash) : "/";
+            }
+        }
+        
+        // Hash router: the document path (minus index.html) is only the app's base
+        String hashRoute = hashRoute(fragment);
+        if (hashRoute != null) {
+            path = DOCUMENT.matcher(path).replaceFirst("") + hashRoute;
+        }
+        return path;
+    }
+    
+    /**
+     * Route held in a fragment ({@code /orders/1} from {@code #/orders/1?tab=2} or
+     * {@code #!/orders/1}), or null for a plain anchor
+     */
+    private static String hashRoute(String fragment) {
+        if (fragment == null) {
+            return null;
+        }
+        String route = fragment.startsWith("!") ? fragment.substring(1) : fragment;
+        if (!route.startsWith("/")) {
+            return null;
+        }
+        int query = route.indexOf('?');
+        return query >= 0 ? route.substring(0, query) : route;
+    }
+    
+    private static List<String> splitPath(String path) {
+        List<String> segments = new ArrayList<>();
+        for (String segment : path.split("/")) {
+            if (!segment.isEmpty()) {
+                segments.add(segment);
+            }
+        }
+        return segments;
+    }
+    
+    private static List<String> loadConfiguredTemplates() {
+        List<String> templates = new ArrayList<>();
+        String inline = System.getProperty("performance.routes");
+        if (inline != null) {
+            for (String template : inline.split(",")) {
+                templates.add(template);
+            }
+        }
+        String file = System.getProperty("performance.routes.file");
+        if (file != null) {
+            try {
+                for (String line : Files.readAllLines(Paths.get(file), StandardCharsets.UTF_8)) {
+                    if (!line.trim().startsWith("#")) {
+                        templates.add(line);
+                    }
+                }
+            } catch (IOException e) {
+                System.err.println(" Error reading route templates: " + e.getMessage());
+            }
+        }
+        return templates;
+    }
+    
+    private static final class TrieNode {
+        private final Map<String, TrieNode> literals = new HashMap<>();
+        private TrieNode parameter;
+        private String template;
+    }
+}
@@ -0,0 +1,98 @@
+package com.yourcompany.utils;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Summary statistics for a small set of repeated samples of one logical step:
+ * mean, median, coefficient of variation and a 95% confidence interval
+ * (Student's t for small sample sizes).
+ */
+public final class SampleStatistics {
+    
+    // Two-sided 95% t critical values for 1..30 degrees of freedom
+    private static final double[] T_95 = {
+        12.706, 4.303, 3.182, 2.776, 2.571, 2.447, 2.365, 2.306, 2.262, 2.228,
+        2.201, 2.179, 2.160, 2.145, 2.131, 2.120, 2.110, 2.101, 2.093, 2.086,
+        2.080, 2.074, 2.069, 2.064, 2.060, 2.056, 2.052, 2.048, 2.045, 2.042
+    };
+    
+    private final int count;
+    private final double mean;
+    private final double median;
+    private final double standardDeviation;
+    
+    private SampleStatistics(int count, double mean, double median, double standardDeviation) {
+        this.count = count;
+        this.mean = mean;
+        this.median = median;
+        this.standardDeviation = standardDeviation;
+    }
+    
+    public static SampleStatistics of(long[] samples) {
+        int n = samples.length;
+        if (n == 0) {
+            return new SampleStatistics(0, 0, 0, 0);
+        }
+        
+        // Welford's running mean/variance
+        double mean = 0;
+        double m2 = 0;
+        for (int i = 0; i < n; i++) {
+            double delta = samples[i] - mean;
+            mean += delta / (i + 1);
+            m2 += delta * (samples[i] - mean);
+        }
+        double standardDeviation = n > 1 ? Math.sqrt(m2 / (n - 1)) : 0;
+        
+        long[] sorted = samples.clone();
+        Arrays.sort(sorted);
+        double median = n % 2 == 1 ? sorted[n / 2] : (sorted[n / 2 - 1] + sorted[n / 2]) / 2.0;
+        
+        return new SampleStatistics(n, mean, median, standardDeviation);
+    }
+    
+    public int getCount() { return count; }
+    
+    public double getMean() { return mean; }
+    
+    public double getMedian() { return median; }
+    
+    public double getStandardDeviation() { return standardDeviation; }
+    
+    public double getCoefficientOfVariation() {
+        return mean != 0 ? standardDeviation / mean : 0;
+    }
+    
+    /**
+     * Half width of the 95% confidence interval of the mean
+     */
+    public double getHalfWidth95() {
+        if (count < 2) {
+            return Double.POSITIVE_INFINITY;
+        }
+        int degreesOfFreedom = count - 1;
+        double t = degreesOfFreedom <= T_95.length ? T_95[degreesOfFreedom - 1] : 1.96;
+        return t * standardDeviation / Math.sqrt(count);
+    }
+    
+    /**
+     * CI half width relative to the mean; sampling stops once this is small enough
+     */
+    public double getRelativeHalfWidth95() {
+        return mean != 0 ? getHalfWidth95() / Math.abs(mean) : Double.POSITIVE_INFINITY;
+    }
+    
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("samples", count);
+        map.put("mean", mean);
+        map.put("median", median);
+        map.put("coefficientOfVariation", getCoefficientOfVariation());
+        double halfWidth = getHalfWidth95();
+        map.put("ci95Low", Double.isInfinite(halfWidth) ? null : mean - halfWidth);
+        map.put("ci95High", Double.isInfinite(halfWidth) ? null : mean + halfWidth);
+        return map;
+    }
+}
@@ -0,0 +1,147 @@
+package com.yourcompany.utils;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Wall-clock duration of every scenario across runs, keyed by scenario id
+ * ({@code <feature uri>:<line>}), for {@link ScenarioScheduler} to plan the
+ * next run from. Each entry keeps the last duration and an exponentially
+ * weighted average ({@code performance.schedule.alpha}, default 0.3) so one
+ * slow run does not reshuffle the whole schedule.
+ *
+ * Durations are collected in memory and merged into the history file once at
+ * the end of the suite. Forks on the same host serialize the merge through a
+ * lock file next to it. The file lives outside {@code target/} by default
+ * ({@code performance-history/scenario-durations.json}) so it survives
+ * {@code mvn clean}; set {@code performance.schedule.history} to move it or
+ * {@code performance.schedule.history.enabled=false} to stop recording.
+ */
+public class ScenarioDurationHistory {
+    
+    private static final ScenarioDurationHistory DEFAULT = new ScenarioDurationHistory(
+        Paths.get(System.getProperty("performance.schedule.history", "performance-history/scenario-durations.json")),
+        Double.parseDouble(System.getProperty("performance.schedule.alpha", "0.3")));
+    
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    
+    /**
+     * Recorded durations of one scenario
+     */
+    public static final class Entry {
+        
+        private String outlineId;
+        private double averageMillis;
+        private long lastMillis;
+        private long lastRecordedAt;
+        private int runs;
+        
+        public String getOutlineId() { return outlineId; }
+        public void setOutlineId(String outlineId) { this.outlineId = outlineId; }
+        
+        public double getAverageMillis() { return averageMillis; }
+        public void setAverageMillis(double averageMillis) { this.averageMillis = averageMillis; }
+        
+        public long getLastMillis() { return lastMillis; }
+        public void setLastMillis(long lastMillis) { this.lastMillis = lastMillis; }
+        
+        public long getLastRecordedAt() { return lastRecordedAt; }
+        public void setLastRecordedAt(long lastRecordedAt) { this.lastRecordedAt = lastRecordedAt; }
+        
+        public int getRuns() { return runs; }
+        public void setRuns(int runs) { this.runs = runs; }
+    }
+    
+    private final Path file;
+    private final double alpha;
+    private final Map<String, Entry> pending = new ConcurrentHashMap<>();
+    
+    public ScenarioDurationHistory(Path file, double alpha) {
+        this.file = file;
+        this.alpha = alpha;
+    }
+    
+    public static ScenarioDurationHistory getDefault() {
+        return DEFAULT;
+    }
+    
+    public static boolean isEnabled() {
+        return Boolean.parseBoolean(System.getProperty("performance.schedule.history.enabled", "true"));
+    }
+    
+    public Path getFile() {
+        return file;
+    }
+    
+    /**
+     * Remember a finished scenario's duration for the next flush
+     */
+    public void record(String scenarioId, String outlineId, long durationMillis) {
+        Entry entry = new Entry();
+        entry.outlineId = outlineId;
+        entry.lastMillis = durationMillis;
+        entry.lastRecordedAt = System.currentTimeMillis();
+        entry.averageMillis = durationMillis;
+        entry.runs = 1;
+        pending.put(scenarioId, entry);
+    }
+    
+    /**
+     * Merge the durations recorded since the last flush into the history file
+     */
+    public synchronized void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Map<String, Entry> recorded = new LinkedHashMap<>(pending);
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            Path lockFile = file.resolveSibling(file.getFileName() + ".lock");
+            try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                FileLock lock = channel.lock();
+                try {
+                    Map<String, Entry> history = load(file);
+                    recorded.forEach((id, update) -> history.merge(id, update, this::mergeEntry));
+                    AtomicFiles.write(file, MAPPER.writeValueAsBytes(history));
+                } finally {
+                    lock.release();
+                }
+            }
+            // A scenario recorded again during the merge keeps its newer entry for the next flush
+            recorded.forEach(pending::remove);
+            System.out.println("✅ Scenario durations recorded: " + recorded.size() + " → " + file.toAbsolutePath());
+        } catch (IOException e) {
+            System.err.println("❌ Failed to update scenario duration history: " + e.getMessage());
+        }
+    }
+    
+    private Entry mergeEntry(Entry previous, Entry update) {
+        update.runs = previous.runs + 1;
+        update.averageMillis = alpha * update.lastMillis + (1 - alpha) * previous.averageMillis;
+        return update;
+    }
+    
+    /**
+     * Read a history file; empty when it does not exist yet
+     */
+    public static Map<String, Entry> load(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return new TreeMap<>();
+        }
+        Map<String, Entry> history = MAPPER.readValue(file.toFile(), new TypeReference<TreeMap<String, Entry>>() { });
+        return history != null ? history : new TreeMap<>();
+    }
+}
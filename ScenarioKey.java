@@ -0,0 +1,63 @@
+package com.yourcompany.hooks;
+
+import io.cucumber.java.Scenario;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Identity of one scenario execution: feature URI plus line. For a Scenario
+ * Outline the line is that of the example row, and the key also carries the
+ * outline it belongs to and the row's parameter values from the Examples table,
+ * looked up in {@link GherkinExamplesIndex} (so localized keywords resolve too).
+ *
+ * Replays of an {@code @load} scenario on virtual-user threads get their own key
+ * ({@code <feature uri>:<line>}{@value #LOAD_SUFFIX}) and no outline, so loaded
+ * samples never mix into the single-session aggregates of the scenario or its outline.
+ */
+public class ScenarioKey {
+    
+    public static final String LOAD_SUFFIX = "#load";
+    
+    private final String id;
+    private final String outlineId;
+    private final Map<String, String> parameters;
+    
+    private ScenarioKey(String id, String outlineId, Map<String, String> parameters) {
+        this.id = id;
+        this.outlineId = outlineId;
+        this.parameters = parameters;
+    }
+    
+    public static ScenarioKey of(Scenario scenario) {
+        String uri = scenario.getUri().toString();
+        int line = scenario.getLine();
+        
+        GherkinExamplesIndex.ExampleRow row = GherkinExamplesIndex.getDefault().find(scenario.getUri(), line);
+        if (VirtualUserLoadRunner.isVirtualUser()) {
+            return new ScenarioKey(uri + ":" + line + LOAD_SUFFIX, null,
+                row != null ? row.getParameters() : Collections.emptyMap());
+        }
+        if (row == null) {
+            return new ScenarioKey(uri + ":" + line, null, Collections.emptyMap());
+        }
+        return new ScenarioKey(uri + ":" + line, uri + ":" + row.getOutlineLine(), row.getParameters());
+    }
+    
+    /**
+     * Storage key of this execution ({@code <feature uri>:<line>}, plus {@link #LOAD_SUFFIX} for a replay)
+     */
+    public String getId() { return id; }
+    
+    /**
+     * Storage key of the outline ({@code <feature uri>:<outline line>}), or null for a plain scenario
+     */
+    public String getOutlineId() { return outlineId; }
+    
+    public Map<String, String> getParameters() { return parameters; }
+    
+    @Override
+    public String toString() {
+        return parameters.isEmpty() ? id : id + " " + parameters;
+    }
+}
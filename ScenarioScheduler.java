@@ -0,0 +1,470 @@
+package com.yourcompany.utils;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.yourcompany.hooks.GherkinFeatures;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Splits the feature files into balanced worker lists from the durations in
+ * {@link ScenarioDurationHistory}, so the run does not end waiting on one
+ * straggler runner.
+ *
+ * Work units are scenarios (a Scenario Outline counts as one unit with the
+ * summed duration of its example rows) or, with {@code --by feature}, whole
+ * feature files, found with the same Gherkin parser the run uses. Units are
+ * assigned longest-first to the least loaded worker (LPT). Units without
+ * history are estimated at the median known duration of their kind (outline
+ * or single scenario); with no history at all the default (file) order is split into contiguous
+ * slices instead.
+ *
+ * Each worker gets a rerun-format file ({@code worker-N.txt}) for
+ * {@code -Dcucumber.features=@target/performance-schedule/worker-N.txt}.
+ * {@code cucumber.features} is read once per JVM, so threads inside one
+ * surefire fork cannot take different lists: a worker is one JVM, and
+ * {@code --workers} should be the number of JVMs that run in parallel. Wire
+ * them as one surefire/failsafe execution per worker, each setting
+ * {@code cucumber.features} in its {@code systemPropertyVariables}, or as one
+ * {@code mvn test -Dcucumber.features=@...} per CI job. Executions of one
+ * Maven module run one after another, so only the separate builds overlap.
+ * {@code schedule.json} keeps the predicted loads, and {@code --report} compares
+ * them with the durations recorded by the run that used the schedule.
+ *
+ * Usage: {@code ScenarioScheduler [--features <dir>] [--workers <n>] [--by scenario|feature]
+ * [--history <file>] [--out <dir>] [--report]}
+ */
+public class ScenarioScheduler {
+    
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    
+    /**
+     * One schedulable piece of work: a set of lines in one feature file
+     */
+    public static final class WorkUnit {
+        
+        private final String featurePath;
+        private final List<Integer> lines;
+        private final boolean outline;
+        private final List<String> tags;
+        private double predictedMillis;
+        private boolean estimated;
+        
+        WorkUnit(String featurePath, List<Integer> lines) {
+            this(featurePath, lines, false, Collections.emptyList());
+        }
+        
+        WorkUnit(String featurePath, List<Integer> lines, boolean outline, List<String> tags) {
+            this.featurePath = featurePath;
+            this.lines = lines;
+            this.outline = outline;
+            this.tags = tags;
+        }
+        
+        public String getFeaturePath() { return featurePath; }
+        public List<Integer> getLines() { return lines; }
+        public boolean isOutline() { return outline; }
+        public List<String> getTags() { return tags; }
+        public double getPredictedMillis() { return predictedMillis; }
+        public boolean isEstimated() { return estimated; }
+        
+        @Override
+        public String toString() {
+            return featurePath + lines.stream().map(line -> ":" + line).collect(Collectors.joining());
+        }
+    }
+    
+    /**
+     * Units assigned to one runner slot
+     */
+    public static final class Worker {
+        
+        private final int index;
+        private final List<WorkUnit> units = new ArrayList<>();
+        private double predictedMillis;
+        
+        Worker(int index) {
+            this.index = index;
+        }
+        
+        void add(WorkUnit unit) {
+            units.add(unit);
+            predictedMillis += unit.predictedMillis;
+        }
+        
+        public int getIndex() { return index; }
+        public List<WorkUnit> getUnits() { return units; }
+        public double getPredictedMillis() { return predictedMillis; }
+        
+        /**
+         * Rerun-format content: one line per feature file, {@code path:line:line...}
+         */
+        public String toRerunFile() {
+            Map<String, List<Integer>> byFeature = new LinkedHashMap<>();
+            for (WorkUnit unit : units) {
+                byFeature.computeIfAbsent(unit.featurePath, k -> new ArrayList<>()).addAll(unit.lines);
+            }
+            StringBuilder rerun = new StringBuilder();
+            byFeature.forEach((path, lines) -> {
+                rerun.append(path);
+                lines.stream().sorted().forEach(line -> rerun.append(':').append(line));
+                rerun.append('\n');
+            });
+            return rerun.toString();
+        }
+    }
+    
+    // ═══════════════════════════════════════════════════════════════
+    // Discovery
+    // ═══════════════════════════════════════════════════════════════
+    
+    /**
+     * Scenario and outline lines of every feature file under {@code featuresDir}, in file order.
+     * Feature files are parsed, so localized keywords and Rule blocks count and doc strings do not.
+     */
+    public static List<WorkUnit> discover(Path featuresDir) throws IOException {
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(featuresDir)) {
+            files = walk.filter(path -> path.toString().endsWith(".feature")).sorted().collect(Collectors.toList());
+        }
+        List<WorkUnit> units = new ArrayList<>();
+        for (Path file : files) {
+            String featurePath = file.toString().replace('\\', '/');
+            for (GherkinFeatures.ScenarioDefinition scenario : GherkinFeatures.scenarios(GherkinFeatures.parse(file))) {
+                List<Integer> unitLines = new ArrayList<>();
+                unitLines.add(scenario.getLine());
+                units.add(new WorkUnit(featurePath, unitLines, scenario.isOutline(), scenario.getTags()));
+            }
+        }
+        return units;
+    }
+    
+    /**
+     * Merge the units of each feature file into one unit
+     */
+    public static List<WorkUnit> groupByFeature(List<WorkUnit> units) {
+        Map<String, WorkUnit> features = new LinkedHashMap<>();
+        for (WorkUnit unit : units) {
+            WorkUnit feature = features.computeIfAbsent(unit.featurePath, path -> new WorkUnit(path, new ArrayList<>(), false, new ArrayList<>()));
+            feature.lines.addAll(unit.lines);
+            unit.tags.stream().filter(tag -> !feature.tags.contains(tag)).forEach(feature.tags::add);
+            feature.predictedMillis += unit.predictedMillis;
+            feature.estimated |= unit.estimated;
+        }
+        return new ArrayList<>(features.values());
+    }
+    
+    // ═══════════════════════════════════════════════════════════════
+    // Prediction
+    // ═══════════════════════════════════════════════════════════════
+    
+    /**
+     * Fill in each unit's duration from the history; returns false when none of the units has any.
+     * {@code useLast} takes the last recorded duration instead of the running average.
+     */
+    public static boolean predict(List<WorkUnit> units, Map<String, ScenarioDurationHistory.Entry> history, boolean useLast) {
+        // History ids are "<uri>:<line>"; an outline row also contributes to "<uri>:<outline line>"
+        Map<String, Map<Integer, Double>> durationsByPath = new LinkedHashMap<>();
+        history.forEach((id, entry) -> {
+            double duration = useLast ? entry.getLastMillis() : entry.getAverageMillis();
+            String key = entry.getOutlineId() != null ? entry.getOutlineId() : id;
+            int separator = key.lastIndexOf(':');
+            String path = featurePathOf(key.substring(0, separator));
+            int line = Integer.parseInt(key.substring(separator + 1));
+            durationsByPath.computeIfAbsent(path, k -> new TreeMap<>()).merge(line, duration, Double::sum);
+        });
+        
+        // An outline runs every example row, so it is estimated from other outlines when there are any
+        Map<Boolean, List<Double>> known = new LinkedHashMap<>();
+        List<WorkUnit> unknown = new ArrayList<>();
+        for (WorkUnit unit : units) {
+            Map<Integer, Double> durations = findDurations(durationsByPath, unit.featurePath);
+            Double duration = durations != null ? durations.get(unit.lines.get(0)) : null;
+            if (duration != null) {
+                unit.predictedMillis = duration;
+                known.computeIfAbsent(unit.outline, k -> new ArrayList<>()).add(duration);
+            } else {
+                unknown.add(unit);
+            }
+        }
+        if (known.isEmpty()) {
+            return false;
+        }
+        
+        List<Double> all = new ArrayList<>();
+        known.values().forEach(all::addAll);
+        for (WorkUnit unit : unknown) {
+            unit.predictedMillis = median(known.getOrDefault(unit.outline, all));
+            unit.estimated = true;
+        }
+        return true;
+    }
+    
+    private static double median(List<Double> durations) {
+        List<Double> sorted = new ArrayList<>(durations);
+        sorted.sort(Double::compare);
+        return sorted.get(sorted.size() / 2);
+    }
+    
+    private static Map<Integer, Double> findDurations(Map<String, Map<Integer, Double>> durationsByPath, String featurePath) {
+        // Recorded URIs are absolute or classpath-relative; match on the longest common path suffix,
+        // combining every recorded form of the file that matches equally well
+        Map<Integer, Double> best = null;
+        int bestLength = 0;
+        for (Map.Entry<String, Map<Integer, Double>> candidate : durationsByPath.entrySet()) {
+            int length = commonSuffixSegments(candidate.getKey(), featurePath);
+            if (length > bestLength) {
+                best = new TreeMap<>(candidate.getValue());
+                bestLength = length;
+            } else if (length == bestLength && best != null) {
+                for (Map.Entry<Integer, Double> line : candidate.getValue().entrySet()) {
+                    best.merge(line.getKey(), line.getValue(), Math::max);
+                }
+            }
+        }
+        return best;
+    }
+    
+    private static int commonSuffixSegments(String a, String b) {
+        String[] left = a.split("/");
+        String[] right = b.split("/");
+        int count = 0;
+        while (count < left.length && count < right.length
+            && left[left.length - 1 - count].equals(right[right.length - 1 - count])) {
+            count++;
+        }
+        return count;
+    }
+    
+    private static String featurePathOf(String uri) {
+        String path = uri.replaceFirst("^(classpath|file):", "");
+        return path.replaceFirst("^/+", "/");
+    }
+    
+    // ═══════════════════════════════════════════════════════════════
+    // Scheduling
+    // ═══════════════════════════════════════════════════════════════
+    
+    /**
+     * Longest processing time first: each unit, longest first, goes to the least loaded worker
+     */
+    public static List<Worker> scheduleLongestFirst(List<WorkUnit> units, int workerCount) {
+        List<Worker> workers = createWorkers(workerCount);
+        PriorityQueue<Worker> byLoad = new PriorityQueue<>(
+            Comparator.comparingDouble(Worker::getPredictedMillis).thenComparingInt(Worker::getIndex));
+        byLoad.addAll(workers);
+        
+        List<WorkUnit> longestFirst = new ArrayList<>(units);
+        longestFirst.sort(Comparator.comparingDouble(WorkUnit::getPredictedMillis).reversed());
+        for (WorkUnit unit : longestFirst) {
+            Worker worker = byLoad.poll();
+            worker.add(unit);
+            byLoad.offer(worker);
+        }
+        return workers;
+    }
+    
+    /**
+     * Contiguous slices of the default order, for runs without any history
+     */
+    public static List<Worker> scheduleInOrder(List<WorkUnit> units, int workerCount) {
+        List<Worker> workers = createWorkers(workerCount);
+        int perWorker = (units.size() + workerCount - 1) / Math.max(1, workerCount);
+        for (int i = 0; i < units.size(); i++) {
+            workers.get(i / Math.max(1, perWorker)).add(units.get(i));
+        }
+        return workers;
+    }
+    
+    private static List<Worker> createWorkers(int workerCount) {
+        List<Worker> workers = new ArrayList<>();
+        for (int i = 1; i <= workerCount; i++) {
+            workers.add(new Worker(i));
+        }
+        return workers;
+    }
+    
+    public static double makespan(List<Worker> workers) {
+        return workers.stream().mapToDouble(Worker::getPredictedMillis).max().orElse(0);
+    }
+    
+    // ═══════════════════════════════════════════════════════════════
+    // Output
+    // ═══════════════════════════════════════════════════════════════
+    
+    static Map<String, Object> toScheduleJson(String strategy, String unitKind, List<Worker> workers) {
+        double total = workers.stream().mapToDouble(Worker::getPredictedMillis).sum();
+        Map<String, Object> schedule = new LinkedHashMap<>();
+        schedule.put("createdAt", System.currentTimeMillis());
+        schedule.put("strategy", strategy);
+        schedule.put("unit", unitKind);
+        schedule.put("workers", workers.size());
+        schedule.put("predictedMakespanMs", Math.round(makespan(workers)));
+        // A perfect split could not finish before the average load
+        schedule.put("lowerBoundMs", Math.round(total / Math.max(1, workers.size())));
+        List<Map<String, Object>> assignments = new ArrayList<>();
+        for (Worker worker : workers) {
+            Map<String, Object> assignment = new LinkedHashMap<>();
+            assignment.put("worker", worker.getIndex());
+            assignment.put("file", "worker-" + worker.getIndex() + ".txt");
+            assignment.put("predictedMs", Math.round(worker.getPredictedMillis()));
+            assignment.put("units", worker.getUnits().stream().map(WorkUnit::toString).collect(Collectors.toList()));
+            assignment.put("estimatedUnits", worker.getUnits().stream().filter(WorkUnit::isEstimated).count());
+            assignments.add(assignment);
+        }
+        schedule.put("assignments", assignments);
+        return schedule;
+    }
+    
+    /**
+     * Predicted against actual load per worker, using the durations recorded by the run that used the schedule
+     */
+    @SuppressWarnings("unchecked")
+    static Map<String, Object> compareWithActual(Map<String, Object> schedule, Map<String, ScenarioDurationHistory.Entry> history) {
+        long createdAt = ((Number) schedule.get("createdAt")).longValue();
+        Map<String, ScenarioDurationHistory.Entry> latestRun = new LinkedHashMap<>();
+        history.forEach((id, entry) -> {
+            if (entry.getLastRecordedAt() >= createdAt) {
+                latestRun.put(id, entry);
+            }
+        });
+        
+        List<Map<String, Object>> workers = new ArrayList<>();
+        double actualMakespan = 0;
+        for (Map<String, Object> assignment : (List<Map<String, Object>>) schedule.get("assignments")) {
+            List<WorkUnit> units = new ArrayList<>();
+            for (String unit : (List<String>) assignment.get("units")) {
+                units.add(parseUnit(unit));
+            }
+            // Split multi-line units so each line is looked up on its own
+            List<WorkUnit> lines = new ArrayList<>();
+            units.forEach(unit -> unit.lines.forEach(line -> lines.add(new WorkUnit(unit.featurePath, List.of(line)))));
+            boolean measured = predict(lines, latestRun, true);
+            double actual = measured ? lines.stream().filter(unit -> !unit.isEstimated()).mapToDouble(WorkUnit::getPredictedMillis).sum() : 0;
+            long missing = measured ? lines.stream().filter(WorkUnit::isEstimated).count() : lines.size();
+            actualMakespan = Math.max(actualMakespan, actual);
+            
+            Map<String, Object> worker = new LinkedHashMap<>();
+            worker.put("worker", assignment.get("worker"));
+            worker.put("predictedMs", assignment.get("predictedMs"));
+            worker.put("actualMs", Math.round(actual));
+            worker.put("unmeasuredUnits", missing);
+            workers.add(worker);
+        }
+        
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("strategy", schedule.get("strategy"));
+        report.put("predictedMakespanMs", schedule.get("predictedMakespanMs"));
+        report.put("actualMakespanMs", Math.round(actualMakespan));
+        report.put("workers", workers);
+        return report;
+    }
+    
+    private static WorkUnit parseUnit(String unit) {
+        String[] parts = unit.split(":");
+        int firstLine = parts.length;
+        while (firstLine > 1 && parts[firstLine - 1].matches("\\d+")) {
+            firstLine--;
+        }
+        String path = String.join(":", Arrays.copyOfRange(parts, 0, firstLine));
+        List<Integer> lines = new ArrayList<>();
+        for (int i = firstLine; i < parts.length; i++) {
+            lines.add(Integer.parseInt(parts[i]));
+        }
+        return new WorkUnit(path, lines);
+    }
+    
+    @SuppressWarnings("unchecked")
+    public static void main(String[] args) throws IOException {
+        Path featuresDir = Paths.get("src/test/resources/features");
+        Path historyFile = ScenarioDurationHistory.getDefault().getFile();
+        Path outputDir = Paths.get("target/performance-schedule");
+        int workerCount = 4;
+        boolean byFeature = false;
+        boolean report = false;
+        
+        for (int i = 0; i < args.length; i++) {
+            if ("--features".equals(args[i]) && i + 1 < args.length) {
+                featuresDir = Paths.get(args[++i]);
+            } else if ("--workers".equals(args[i]) && i + 1 < args.length) {
+                workerCount = Integer.parseInt(args[++i]);
+            } else if ("--by".equals(args[i]) && i + 1 < args.length) {
+                byFeature = "feature".equals(args[++i]);
+            } else if ("--history".equals(args[i]) && i + 1 < args.length) {
+                historyFile = Paths.get(args[++i]);
+            } else if ("--out".equals(args[i]) && i + 1 < args.length) {
+                outputDir = Paths.get(args[++i]);
+            } else if ("--report".equals(args[i])) {
+                report = true;
+            } else {
+                System.err.println("Usage: ScenarioScheduler [--features <dir>] [--workers <n>] [--by scenario|feature] "
+                    + "[--history <file>] [--out <dir>] [--report]");
+                System.exit(1);
+            }
+        }
+        
+        Map<String, ScenarioDurationHistory.Entry> history = ScenarioDurationHistory.load(historyFile);
+        
+        if (report) {
+            Path scheduleFile = outputDir.resolve("schedule.json");
+            Map<String, Object> schedule = MAPPER.readValue(scheduleFile.toFile(), new TypeReference<Map<String, Object>>() { });
+            Map<String, Object> result = compareWithActual(schedule, history);
+            System.out.println(String.format("📊 Makespan: predicted %s ms, actual %s ms (%s)",
+                result.get("predictedMakespanMs"), result.get("actualMakespanMs"), result.get("strategy")));
+            for (Map<String, Object> worker : (List<Map<String, Object>>) result.get("workers")) {
+                System.out.println(String.format("   worker-%s: predicted %s ms, actual %s ms, %s unmeasured",
+                    worker.get("worker"), worker.get("predictedMs"), worker.get("actualMs"), worker.get("unmeasuredUnits")));
+            }
+            AtomicFiles.write(outputDir.resolve("schedule-report.json"), MAPPER.writeValueAsBytes(result));
+            return;
+        }
+        
+        List<WorkUnit> units = discover(featuresDir);
+        boolean hasHistory = predict(units, history, false);
+        if (byFeature) {
+            units = groupByFeature(units);
+        }
+        
+        List<Worker> workers;
+        String strategy;
+        if (hasHistory) {
+            workers = scheduleLongestFirst(units, workerCount);
+            strategy = "longest-first";
+        } else {
+            System.out.println("⚠️ No duration history at " + historyFile.toAbsolutePath() + ", keeping the default order");
+            workers = scheduleInOrder(units, workerCount);
+            strategy = "default-order";
+        }
+        
+        for (Worker worker : workers) {
+            AtomicFiles.write(outputDir.resolve("worker-" + worker.getIndex() + ".txt"),
+                worker.toRerunFile().getBytes(StandardCharsets.UTF_8));
+        }
+        Map<String, Object> schedule = toScheduleJson(strategy, byFeature ? "feature" : "scenario", workers);
+        AtomicFiles.write(outputDir.resolve("schedule.json"), MAPPER.writeValueAsBytes(schedule));
+        
+        System.out.println(String.format("✅ %d units on %d workers (%s), predicted makespan %s ms (lower bound %s ms)",
+            units.size(), workers.size(), strategy, schedule.get("predictedMakespanMs"), schedule.get("lowerBoundMs")));
+        for (Worker worker : workers) {
+            System.out.println(String.format("   worker-%d: %d units, %.0f ms", worker.getIndex(),
+                worker.getUnits().size(), worker.getPredictedMillis()));
+        }
+        System.out.println("   Run each worker in its own JVM with -Dcucumber.features=@" + outputDir.resolve("worker-<n>.txt"));
+    }
+}
@@ -0,0 +1,146 @@
+package com.yourcompany.hooks;
+
+import com.yourcompany.utils.OtlpTraceExporter;
+import com.yourcompany.utils.PerformanceMetrics;
+import com.yourcompany.utils.RouteNormalizer;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.yourcompany.utils.OtlpTraceExporter.newSpanId;
+import static com.yourcompany.utils.OtlpTraceExporter.span;
+
+/**
+ * Builds the span tree of one scenario execution: the scenario span, a child
+ * span per measured step and grandchild spans for the navigation phases
+ * ({@link NavigationPhases}) and resource entries of that step, with the
+ * document's Server-Timing entries nested under the request phase.
+ *
+ * Phases and resources are placed on the browser clock from the measurement
+ * agent's flush, so they line up with each other; a step span covers its
+ * children and the scenario span covers its steps. Like {@link WaterfallRecorder}
+ * the builder lives in a thread local between the scenario and step hooks.
+ */
+public class ScenarioTraceBuilder {
+    
+    private static final ThreadLocal<ScenarioTraceBuilder> CURRENT = new ThreadLocal<>();
+    
+    private final String traceId = OtlpTraceExporter.newTraceId();
+    private final String scenarioSpanId = newSpanId();
+    private final List<Map<String, Object>> spans = new ArrayList<>();
+    private String featureName;
+    private int steps = 0;
+    private double earliest = Double.MAX_VALUE;
+    private double latest = -Double.MAX_VALUE;
+    
+    /**
+     * Start building the trace of the scenario running on this thread
+     */
+    public static ScenarioTraceBuilder start() {
+        ScenarioTraceBuilder builder = new ScenarioTraceBuilder();
+        CURRENT.set(builder);
+        return builder;
+    }
+    
+    /**
+     * Builder of the current scenario, or null when tracing is disabled
+     */
+    public static ScenarioTraceBuilder current() {
+        return CURRENT.get();
+    }
+    
+    /**
+     * Detach and return the current builder (null if none was started)
+     */
+    public static ScenarioTraceBuilder finish() {
+        ScenarioTraceBuilder builder = CURRENT.get();
+        CURRENT.remove();
+        return builder;
+    }
+    
+    /**
+     * Add a step span with its navigation phases and the resources loaded since the previous step.
+     * A step without either (nothing reached the page) spans its page load before the metrics were taken.
+     */
+    public void addStep(PerformanceMetrics metrics, PageMeasurementAgent.Flush flush) {
+        String stepSpanId = newSpanId();
+        List<Map<String, Object>> children = new ArrayList<>();
+        double[] bounds = {Double.MAX_VALUE, -Double.MAX_VALUE};
+        
+        for (NavigationPhases.Phase phase : flush.getNavigationPhases()) {
+            String phaseSpanId = newSpanId();
+            children.add(child(stepSpanId, phaseSpanId, phase.getKind().getLabel(), phase.getStart(), phase.getEnd(), new LinkedHashMap<>(), bounds));
+            
+            // The document's Server-Timing entries happen while its request waits for the first byte
+            if (phase.getKind() == NavigationPhases.Kind.REQUEST) {
+                for (Map.Entry<String, Double> timing : metrics.getDocumentServerTimings().entrySet()) {
+                    Map<String, Object> serverAttributes = new LinkedHashMap<>();
+                    serverAttributes.put("server_timing.name", timing.getKey());
+                    children.add(child(phaseSpanId, newSpanId(), "server: " + timing.getKey(),
+                        phase.getStart(), phase.getStart() + timing.getValue(), serverAttributes, bounds));
+                }
+            }
+        }
+        
+        flush.forEachResource((initiatorType, url, start, duration) -> {
+            Map<String, Object> resourceAttributes = new LinkedHashMap<>();
+            resourceAttributes.put("url.full", RouteNormalizer.sanitizeUrl(url));
+            resourceAttributes.put("resource.initiator_type", initiatorType);
+            children.add(child(stepSpanId, newSpanId(), initiatorType + " " + RouteNormalizer.normalizeUrl(url),
+                start, start + duration, resourceAttributes, bounds));
+        });
+        
+        double start = children.isEmpty() ? NavigationPhases.stepStart(metrics) : bounds[0];
+        double end = children.isEmpty() ? NavigationPhases.stepEnd(metrics) : bounds[1];
+        
+        Map<String, Object> attributes = new LinkedHashMap<>();
+        attributes.put("step.name", metrics.getStepName());
+        if (metrics.getPageUrl() != null) {
+            attributes.put("url.full", metrics.getPageUrl());
+        }
+        if (metrics.getRoute() != null) {
+            attributes.put("http.route", metrics.getRoute());
+        }
+        attributes.put("perf.from_cache", metrics.isFromCache());
+        attributes.put("perf.page_load_ms", metrics.getPageLoadTime());
+        attributes.put("perf.ttfb_ms", metrics.getTtfb());
+        if (metrics.getConcurrencyLevel() > 0) {
+            attributes.put("perf.concurrency", metrics.getConcurrencyLevel());
+        }
+        spans.add(span(traceId, stepSpanId, scenarioSpanId, metrics.getStepName(), start, end, attributes));
+        spans.addAll(children);
+        featureName = metrics.getFeatureName();
+        steps++;
+        earliest = Math.min(earliest, start);
+        latest = Math.max(latest, end);
+    }
+    
+    private Map<String, Object> child(String parentSpanId, String spanId, String name, double start, double end,
+                                      Map<String, Object> attributes, double[] bounds) {
+        bounds[0] = Math.min(bounds[0], start);
+        bounds[1] = Math.max(bounds[1], end);
+        return span(traceId, spanId, parentSpanId, name, start, end, attributes);
+    }
+    
+    /**
+     * Close the tree with the scenario span and return every span built. The scenario span is
+     * widened to its steps if the browser clock runs slightly ahead of or behind the test's.
+     */
+    public List<Map<String, Object>> build(String scenarioName, long startMillis, long endMillis, String status) {
+        Map<String, Object> attributes = new LinkedHashMap<>();
+        attributes.put("scenario.name", scenarioName);
+        if (featureName != null) {
+            attributes.put("feature.name", featureName);
+        }
+        attributes.put("scenario.status", status);
+        attributes.put("scenario.steps", steps);
+        
+        List<Map<String, Object>> result = new ArrayList<>(spans.size() + 1);
+        result.add(span(traceId, scenarioSpanId, null, scenarioName,
+            Math.min(startMillis, earliest), Math.max(endMillis, latest), attributes));
+        result.addAll(spans);
+        return result;
+    }
+}
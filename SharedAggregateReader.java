@@ -0,0 +1,83 @@
+package com.yourcompany.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+
+/**
+ * Standalone viewer for the host-wide {@link SharedAggregateRegion}. Maps the
+ * region read-only, so it can watch a running suite without touching the forks.
+ *
+ * Usage: {@code SharedAggregateReader [--file <path>] [--watch <seconds>] [--json]}
+ */
+public class SharedAggregateReader {
+    
+    @SuppressWarnings("unchecked")
+    static String toText(Map<String, Object> snapshot) {
+        StringBuilder text = new StringBuilder();
+        long runStarted = (Long) snapshot.get("runStarted");
+        long lastUpdate = (Long) snapshot.get("lastUpdate");
+        text.append("═══════════════════════════════════════════════════\n");
+        text.append("  LIVE SUITE PERFORMANCE (all forks on this host)\n");
+        text.append("═══════════════════════════════════════════════════\n");
+        text.append(String.format("  Writers:        %s%n", snapshot.get("writers")));
+        text.append(String.format("  Running for:    %d s%n", (System.currentTimeMillis() - runStarted) / 1000));
+        text.append(String.format("  Last update:    %s%n",
+            lastUpdate == 0 ? "never" : ((System.currentTimeMillis() - lastUpdate) / 1000) + " s ago"));
+        text.append(String.format("  Steps:          %d (%d cached, %d degraded)%n",
+            snapshot.get("totalSteps"), snapshot.get("cachedSteps"), snapshot.get("degradedSteps")));
+        text.append("\n");
+        text.append(String.format("  %-22s %8s %8s %8s %8s %8s %8s %8s%n", "Metric", "Count", "Avg", "Min", "p50", "p95", "p99", "Max"));
+        Map<String, Map<String, Double>> fields = (Map<String, Map<String, Double>>) snapshot.get("fields");
+        fields.forEach((name, field) -> text.append(String.format("  %-22s %8.0f %8.0f %8.0f %8.0f %8.0f %8.0f %8.0f%n",
+            name, field.get("count"), field.get("avg"), field.get("min"), field.get("p50"),
+            field.get("p95"), field.get("p99"), field.get("max"))));
+        return text.toString();
+    }
+    
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Path file = SharedAggregateRegion.defaultFile();
+        long watchSeconds = 0;
+        boolean json = false;
+        
+        for (int i = 0; i < args.length; i++) {
+            if ("--file".equals(args[i]) && i + 1 < args.length) {
+                file = Paths.get(args[++i]);
+            } else if ("--watch".equals(args[i]) && i + 1 < args.length) {
+                watchSeconds = Long.parseLong(args[++i]);
+            } else if ("--json".equals(args[i])) {
+                json = true;
+            } else {
+                System.err.println("Usage: SharedAggregateReader [--file <path>] [--watch <seconds>] [--json]");
+                System.exit(1);
+            }
+        }
+        if (!Files.exists(file)) {
+            System.err.println("❌ No shared aggregate at " + file.toAbsolutePath()
+                + " (run the suite with -Dperformance.shared.enabled=true)");
+            System.exit(1);
+        }
+        
+        SharedAggregateRegion region = SharedAggregateRegion.openReadOnly(file);
+        ObjectMapper mapper = new ObjectMapper();
+        do {
+            Map<String, Object> snapshot = region.snapshot();
+            if (json) {
+                System.out.println(mapper.writeValueAsString(snapshot));
+            } else {
+                if (watchSeconds > 0) {
+                    // Redraw in place
+                    System.out.print("\033[H\033[2J");
+                }
+                System.out.print(toText(snapshot));
+            }
+            if (watchSeconds > 0) {
+                Thread.sleep(watchSeconds * 1000);
+            }
+        } while (watchSeconds > 0);
+    }
+}
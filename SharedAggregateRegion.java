@@ -0,0 +1,343 @@
+package com.yourcompany.utils;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Host-wide live aggregate shared by every test fork through one memory-mapped
+ * file ({@code performance.shared.file}, default
+ * {@code target/performance-shared/aggregate.bin}). Enable with
+ * {@code performance.shared.enabled=true}; read it from another process with
+ * {@link SharedAggregateReader}.
+ *
+ * The layout is fixed: a header with run totals, a table of writer PIDs, then
+ * one block per {@link MetricField} holding count, sum, max, min and the
+ * {@link LatencyHistogram} bucket counts. Every slot is a native-order long
+ * updated through a {@code byteBufferViewVarHandle} with atomic adds (and CAS
+ * for min/max), so the hot path takes no lock and serializes nothing.
+ *
+ * The file lock is only taken when a fork attaches or detaches. A fork that
+ * attaches while no live writer is registered starts a new run and zeroes the
+ * aggregates; writers that died without detaching are detected by PID.
+ */
+public class SharedAggregateRegion {
+    
+    static final long MAGIC = 0x5045524641474731L; // "PERFAGG1"
+    static final int VERSION = 1;
+    
+    // Header
+    static final int MAGIC_OFFSET = 0;
+    static final int VERSION_OFFSET = 8;
+    static final int FIELD_COUNT_OFFSET = 16;
+    static final int BUCKET_COUNT_OFFSET = 24;
+    static final int RUN_STARTED_OFFSET = 32;
+    static final int LAST_UPDATE_OFFSET = 40;
+    static final int TOTAL_STEPS_OFFSET = 48;
+    static final int CACHED_STEPS_OFFSET = 56;
+    static final int DEGRADED_STEPS_OFFSET = 64;
+    static final int HEADER_SIZE = 128;
+    
+    // Writer PID table
+    static final int MAX_WRITERS = 64;
+    static final int WRITERS_OFFSET = HEADER_SIZE;
+    static final int DATA_OFFSET = WRITERS_OFFSET + MAX_WRITERS * 8;
+    
+    // Per-field block; min is stored as Long.MAX_VALUE - min so a zeroed slot means "no value"
+    static final int COUNT = 0;
+    static final int SUM = 8;
+    static final int MAX = 16;
+    static final int MIN_COMPLEMENT = 24;
+    static final int BUCKETS = 32;
+    static final int FIELD_BLOCK_SIZE = BUCKETS + LatencyHistogram.BUCKET_COUNT * 8;
+    
+    static final MetricField[] FIELDS = MetricField.values();
+    static final int SIZE = DATA_OFFSET + FIELDS.length * FIELD_BLOCK_SIZE;
+    
+    private static final VarHandle LONG = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    
+    // Set once the default region is attached, for detachDefault to release
+    private static volatile SharedAggregateRegion attachedDefault;
+    
+    private final Path file;
+    private final MappedByteBuffer buffer;
+    private int writerSlot = -1;
+    
+    private SharedAggregateRegion(Path file, MappedByteBuffer buffer) {
+        this.file = file;
+        this.buffer = buffer;
+    }
+    
+    public static boolean isEnabled() {
+        return Boolean.getBoolean("performance.shared.enabled");
+    }
+    
+    public static Path defaultFile() {
+        return Paths.get(System.getProperty("performance.shared.file", "target/performance-shared/aggregate.bin"));
+    }
+    
+    /**
+     * Attached on first use by class initialization, so every later read is a plain field load
+     */
+    private static final class DefaultRegion {
+        static final SharedAggregateRegion INSTANCE = attachDefault();
+    }
+    
+    /**
+     * This fork's attached region, or null if it could not be opened (tried once)
+     */
+    public static SharedAggregateRegion getDefault() {
+        return DefaultRegion.INSTANCE;
+    }
+    
+    private static SharedAggregateRegion attachDefault() {
+        try {
+            SharedAggregateRegion region = attach(defaultFile());
+            attachedDefault = region;
+            System.out.println("✅ Shared performance aggregate attached: " + region.file.toAbsolutePath());
+            return region;
+        } catch (IOException | IllegalStateException e) {
+            System.err.println("⚠️ Shared performance aggregate unavailable: " + e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Release this fork's writer slot if the default region was attached (never attaches it)
+     */
+    public static void detachDefault() {
+        SharedAggregateRegion region = attachedDefault;
+        if (region != null) {
+            region.detach();
+        }
+    }
+    
+    /**
+     * Map the region read-write and register this process as a writer
+     */
+    public static SharedAggregateRegion attach(Path file) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            FileLock lock = channel.lock();
+            try {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, SIZE);
+                SharedAggregateRegion region = new SharedAggregateRegion(file, buffer);
+                region.register();
+                return region;
+            } finally {
+                lock.release();
+            }
+        }
+    }
+    
+    /**
+     * Map an existing region read-only, for readers
+     */
+    public static SharedAggregateRegion openReadOnly(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < SIZE) {
+                throw new IllegalStateException("Region too small: " + channel.size() + " bytes");
+            }
+            SharedAggregateRegion region = new SharedAggregateRegion(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, SIZE));
+            region.checkLayout();
+            return region;
+        }
+    }
+    
+    // Caller holds the file lock
+    private void register() {
+        boolean compatible = get(MAGIC_OFFSET) == MAGIC && layoutMatches();
+        
+        long pid = ProcessHandle.current().pid();
+        int free = -1;
+        boolean liveWriters = false;
+        for (int slot = 0; slot < MAX_WRITERS; slot++) {
+            long writer = get(WRITERS_OFFSET + slot * 8);
+            if (writer != 0 && writer != pid && ProcessHandle.of(writer).map(ProcessHandle::isAlive).orElse(false)) {
+                liveWriters = true;
+            } else {
+                // Empty, ours from before, or a writer that died without detaching
+                LONG.setVolatile(buffer, WRITERS_OFFSET + slot * 8, 0L);
+                if (free < 0) {
+                    free = slot;
+                }
+            }
+        }
+        
+        if (!compatible && liveWriters) {
+            throw new IllegalStateException("Region in use with another layout (version " + get(VERSION_OFFSET) + "): " + file);
+        }
+        if (!compatible || !liveWriters) {
+            // First writer of a new run: start from zero, hidden from readers until the magic is back
+            LONG.setVolatile(buffer, MAGIC_OFFSET, 0L);
+            for (int offset = HEADER_SIZE; offset < SIZE; offset += 8) {
+                if (offset < WRITERS_OFFSET || offset >= DATA_OFFSET) {
+                    LONG.setVolatile(buffer, offset, 0L);
+                }
+            }
+            for (int offset = VERSION_OFFSET; offset < HEADER_SIZE; offset += 8) {
+                LONG.setVolatile(buffer, offset, 0L);
+            }
+            LONG.setVolatile(buffer, VERSION_OFFSET, (long) VERSION);
+            LONG.setVolatile(buffer, FIELD_COUNT_OFFSET, (long) FIELDS.length);
+            LONG.setVolatile(buffer, BUCKET_COUNT_OFFSET, (long) LatencyHistogram.BUCKET_COUNT);
+            LONG.setVolatile(buffer, RUN_STARTED_OFFSET, System.currentTimeMillis());
+            LONG.setRelease(buffer, MAGIC_OFFSET, MAGIC);
+        }
+        
+        if (free >= 0) {
+            writerSlot = free;
+            LONG.setVolatile(buffer, WRITERS_OFFSET + free * 8, pid);
+        } else {
+            System.err.println("⚠️ Shared aggregate writer table full, this fork is not tracked as live");
+        }
+    }
+    
+    private boolean layoutMatches() {
+        return get(VERSION_OFFSET) == VERSION && get(FIELD_COUNT_OFFSET) == FIELDS.length
+            && get(BUCKET_COUNT_OFFSET) == LatencyHistogram.BUCKET_COUNT;
+    }
+    
+    private void checkLayout() {
+        if (get(MAGIC_OFFSET) != MAGIC) {
+            throw new IllegalStateException("Region not initialized: " + file);
+        }
+        if (!layoutMatches()) {
+            throw new IllegalStateException("Region layout mismatch (version " + get(VERSION_OFFSET) + "): " + file);
+        }
+    }
+    
+    /**
+     * Release this process's writer slot
+     */
+    public synchronized void detach() {
+        if (writerSlot < 0) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            FileLock lock = channel.lock();
+            try {
+                LONG.setVolatile(buffer, WRITERS_OFFSET + writerSlot * 8, 0L);
+                writerSlot = -1;
+            } finally {
+                lock.release();
+            }
+        } catch (IOException e) {
+            System.err.println("⚠️ Failed to detach from shared aggregate: " + e.getMessage());
+        }
+    }
+    
+    // ═══════════════════════════════════════════════════════════════
+    // Hot path
+    // ═══════════════════════════════════════════════════════════════
+    
+    /**
+     * Fold one step into the shared aggregate
+     */
+    public void add(PerformanceMetrics metrics) {
+        LONG.getAndAdd(buffer, TOTAL_STEPS_OFFSET, 1L);
+        if (metrics.isFromCache()) {
+            LONG.getAndAdd(buffer, CACHED_STEPS_OFFSET, 1L);
+        }
+        if (metrics.isDegraded()) {
+            LONG.getAndAdd(buffer, DEGRADED_STEPS_OFFSET, 1L);
+        }
+        for (int i = 0; i < FIELDS.length; i++) {
+            long value = FIELDS[i].valueOf(metrics);
+            if (value < 0) {
+                continue;
+            }
+            int block = DATA_OFFSET + i * FIELD_BLOCK_SIZE;
+            LONG.getAndAdd(buffer, block + COUNT, 1L);
+            LONG.getAndAdd(buffer, block + SUM, value);
+            updateMax(block + MAX, value);
+            updateMax(block + MIN_COMPLEMENT, Long.MAX_VALUE - value);
+            LONG.getAndAdd(buffer, block + BUCKETS + LatencyHistogram.bucketIndex(value) * 8, 1L);
+        }
+        LONG.setOpaque(buffer, LAST_UPDATE_OFFSET, System.currentTimeMillis());
+    }
+    
+    private void updateMax(int offset, long value) {
+        long current = (long) LONG.getVolatile(buffer, offset);
+        while (value > current) {
+            long witness = (long) LONG.compareAndExchange(buffer, offset, current, value);
+            if (witness == current) {
+                return;
+            }
+            current = witness;
+        }
+    }
+    
+    private long get(int offset) {
+        return (long) LONG.getVolatile(buffer, offset);
+    }
+    
+    // ═══════════════════════════════════════════════════════════════
+    // Reading
+    // ═══════════════════════════════════════════════════════════════
+    
+    /**
+     * Current totals, PIDs of live writers and per-field count/avg/min/max/percentiles.
+     * Slots are read one by one while writers keep adding, so fields can be a few steps apart.
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("runStarted", get(RUN_STARTED_OFFSET));
+        snapshot.put("lastUpdate", get(LAST_UPDATE_OFFSET));
+        snapshot.put("totalSteps", get(TOTAL_STEPS_OFFSET));
+        snapshot.put("cachedSteps", get(CACHED_STEPS_OFFSET));
+        snapshot.put("degradedSteps", get(DEGRADED_STEPS_OFFSET));
+        
+        List<Long> writers = new ArrayList<>();
+        for (int slot = 0; slot < MAX_WRITERS; slot++) {
+            long pid = get(WRITERS_OFFSET + slot * 8);
+            if (pid != 0 && ProcessHandle.of(pid).map(ProcessHandle::isAlive).orElse(false)) {
+                writers.add(pid);
+            }
+        }
+        snapshot.put("writers", writers);
+        
+        Map<String, Map<String, Double>> fields = new LinkedHashMap<>();
+        for (int i = 0; i < FIELDS.length; i++) {
+            int block = DATA_OFFSET + i * FIELD_BLOCK_SIZE;
+            long count = get(block + COUNT);
+            if (count == 0) {
+                continue;
+            }
+            LatencyHistogram histogram = new LatencyHistogram();
+            for (int bucket = 0; bucket < LatencyHistogram.BUCKET_COUNT; bucket++) {
+                long bucketCount = get(block + BUCKETS + bucket * 8);
+                if (bucketCount > 0) {
+                    histogram.recordBucket(bucket, bucketCount);
+                }
+            }
+            Map<String, Double> field = new LinkedHashMap<>();
+            field.put("count", (double) count);
+            field.put("avg", (double) get(block + SUM) / count);
+            field.put("min", (double) (Long.MAX_VALUE - get(block + MIN_COMPLEMENT)));
+            field.put("max", (double) get(block + MAX));
+            field.put("p50", histogram.valueAtQuantile(0.50));
+            field.put("p95", histogram.valueAtQuantile(0.95));
+            field.put("p99", histogram.valueAtQuantile(0.99));
+            fields.put(FIELDS[i].name(), field);
+        }
+        snapshot.put("fields", fields);
+        return snapshot;
+    }
+    
+    public Path getFile() {
+        return file;
+    }
+}
@@ -1,15 +1,23 @@
 package com.yourcompany.hooks;
 
+import com.yourcompany.utils.ContentAddressedBlobStore;
 import com.yourcompany.utils.PerformanceMetrics;
 import com.yourcompany.utils.PerformanceStorage;
+import com.yourcompany.utils.RouteNormalizer;
+import com.yourcompany.utils.SampleStatistics;
 import io.cucumber.java.AfterStep;
 import io.cucumber.java.BeforeStep;
 import io.cucumber.java.Scenario;
 import io.qameta.allure.Allure;
+import io.qameta.allure.AllureLifecycle;
+import io.qameta.allure.model.Attachment;
 import org.openqa.selenium.WebDriver;
 
 import java.io.ByteArrayInputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
 
 /**
  * Captures step-level performance metrics
@@ -19,15 +27,28 @@ public class StepPerformanceHooks {
     private long stepStartTime;
     private WebDriver driver;
     private SPAPerformanceTracker spaTracker;
+    private BrowserResourceCollector resourceCollector;
+    private PageMeasurementAgent pageAgent;
+    private PageMeasurementAgent.Flush lastPageFlush;
     private int stepCounter = 0;
+    private RepeatSampler.Config repeatConfig;
+    private ScenarioKey scenarioKey;
+    private ThrottlingProfile throttlingProfile;
     
     @BeforeStep(order = 0)
     public void beforeStep(Scenario scenario) {
         stepStartTime = System.currentTimeMillis();
         driver = DriverManager.getDriver();
         
-        if (spaTracker == null) {
-            spaTracker = new SPAPerformanceTracker(driver);
+        if (pageAgent == null) {
+            resourceCollector = new BrowserResourceCollector(driver);
+            pageAgent = new PageMeasurementAgent(driver);
+        }
+        
+        if (repeatConfig == null) {
+            repeatConfig = RepeatSampler.Config.forScenario(scenario);
+            scenarioKey = ScenarioKey.of(scenario);
+            applyThrottling(scenario);
         }
         
         stepCounter++;
@@ -40,93 +61,245 @@ public class StepPerformanceHooks {
         try {
             Thread.sleep(200);
             
-            boolean domChanged = spaTracker.hasDOMChanged();
+            // Create performance metrics object
+            PerformanceMetrics metrics = measure(scenario);
             
-            if (domChanged) {
-                SPAPerformanceTracker.PerformanceSnapshot snapshot = spaTracker.getQuickMetrics();
+            if (metrics != null) {
+            PageMeasurementAgent.Flush stepFlush = lastPageFlush;
+            
+            if (repeatConfig.isEnabled()) {
+                // Re-sample the navigation until its CI is narrow enough; each sample has its own agent flush
+                List<PageMeasurementAgent.Flush> sampleFlushes = new ArrayList<>();
+                sampleFlushes.add(stepFlush);
+                List<PerformanceMetrics> samples = new RepeatSampler(repeatConfig).sample(metrics, () -> {
+                    PerformanceMetrics sample = resample(scenario);
+                    if (sample != null) {
+                        sampleFlushes.add(lastPageFlush);
+                    }
+                    return sample;
+                });
+                SampleStatistics series = PerformanceStorage.addSampleSeries(samples);
                 
-                if (snapshot != null) {
-                    
-                    // Create performance metrics object
-                    PerformanceMetrics metrics = new PerformanceMetrics();
-                    metrics.setStepName("Step #" + stepCounter);
-                    metrics.setScenarioName(scenario.getName());
-                    metrics.setFeatureName(getFeatureName(scenario));
-                    metrics.setPageLoadTime(snapshot.getPageLoadTime());
-                    metrics.setDomReadyTime(snapshot.getDomReadyTime());
-                    metrics.setResponseTime(snapshot.getResponseTime());
-                    metrics.setTtfb(snapshot.getTtfb());
-                    metrics.setConnectTime(snapshot.getConnectTime());
-                    metrics.setDomainLookupTime(snapshot.getDomainLookupTime());
-                    metrics.setFromCache(snapshot.isFromCache());
-                    
-                    // Store metrics globally
-                    PerformanceStorage.addMetrics(metrics);
-                    
-                    // ═══════════════════════════════════════════════════
-                    // ALLURE: Create detailed performance attachment
-                    // ═══════════════════════════════════════════════════
-                    
-                    String textSummary = createTextSummary(stepCounter, metrics);
-                    Allure.addAttachment(
-                        String.format("📊 Step #%d Performance", stepCounter),
-                        "text/plain",
-                        new ByteArrayInputStream(textSummary.getBytes(StandardCharsets.UTF_8)),
-                        ".txt"
-                    );
-                    
-                    // Create HTML dashboard
-                    String htmlDashboard = createHtmlDashboard(stepCounter, metrics);
-                    Allure.addAttachment(
-                        String.format("📈 Step #%d Dashboard", stepCounter),
-                        "text/html",
-                        new ByteArrayInputStream(htmlDashboard.getBytes(StandardCharsets.UTF_8)),
-                        ".html"
-                    );
-                    
-                    // Attach raw JSON
-                    String navPerfJSON = spaTracker.getNavigationPerformanceJSON();
-                    Allure.addAttachment(
-                        String.format("📋 Step #%d Raw Data", stepCounter),
-                        "application/json",
-                        navPerfJSON,
-                        ".json"
-                    );
-
-                    String pageLoadStatus = getPerformanceStatusText(metrics.getPageLoadTime(), 2000, 3000);
-                    
-                    // Cucumber log
-                    scenario.log(String.format(
-                        "┌─────────────────────────────────────────────────┐\n" +
-                        "│ 🔄 STEP #%d PERFORMANCE METRICS - %s\n" +
-                        "├─────────────────────────────────────────────────┤\n" +
-                        "│ 📄 Page Load:      %4d ms %s\n" +
-                        "│ 🔄 DOM Ready:      %4d ms %s\n" +
-                        "│ 📡 Response:       %4d ms %s\n" +
-                        "│ ⏱️  TTFB:           %4d ms %s\n" +
-                        "│ 🔌 Connect:        %4d ms %s\n" +
-                        "│ 🌐 DNS Lookup:     %4d ms %s\n" +
-                        "│ 💾 From Cache:     %s\n" +
-                        "└─────────────────────────────────────────────────┘",
-                        stepCounter,
-                        pageLoadStatus,
-                        metrics.getPageLoadTime(), getStatusEmoji(metrics.getPageLoadTime(), 3000),
-                        metrics.getDomReadyTime(), getStatusEmoji(metrics.getDomReadyTime(), 2000),
-                        metrics.getResponseTime(), getStatusEmoji(metrics.getResponseTime(), 1000),
-                        metrics.getTtfb(), getStatusEmoji(metrics.getTtfb(), 500),
-                        metrics.getConnectTime(), getStatusEmoji(metrics.getConnectTime(), 300),
-                        metrics.getDomainLookupTime(), getStatusEmoji(metrics.getDomainLookupTime(), 200),
-                        metrics.isFromCache() ? "Yes ✅" : "No"
-                    ));
-                }
+                // Everything below reports the sample the aggregates recorded, not the first one
+                metrics = PerformanceStorage.recordedSample(samples);
+                stepFlush = sampleFlushes.get(metrics.getSampleIndex());
+                
+                double halfWidth = series.getHalfWidth95();
+                String interval = Double.isInfinite(halfWidth)
+                    ? "n/a"
+                    : String.format("[%.0f, %.0f] ms", series.getMean() - halfWidth, series.getMean() + halfWidth);
+                scenario.log(String.format(
+                    "🔁 Step #%d page load over %d samples: mean %.0f ms, median %.0f ms, CV %.1f%%, 95%% CI %s (reporting sample #%d)",
+                    stepCounter, series.getCount(), series.getMean(), series.getMedian(),
+                    series.getCoefficientOfVariation() * 100, interval, metrics.getSampleIndex() + 1
+                ));
+            } else {
+                // Store metrics globally
+                PerformanceStorage.addMetrics(metrics);
+            }
+            
+            // Scenario waterfall and trace: this step's phases plus the resources loaded since the last step
+            WaterfallRecorder waterfall = WaterfallRecorder.current();
+            if (waterfall != null) {
+                waterfall.addStep(metrics, stepFlush);
+                stepFlush.addResourcesTo(waterfall);
+            }
+            ScenarioTraceBuilder trace = ScenarioTraceBuilder.current();
+            if (trace != null) {
+                trace.addStep(metrics, stepFlush);
+            }
+            
+            // ═══════════════════════════════════════════════════
+            // ALLURE: Create detailed performance attachment
+            // ═══════════════════════════════════════════════════
+            
+            String textSummary = createTextSummary(stepCounter, metrics);
+            Allure.addAttachment(
+                String.format("📊 Step #%d Performance", stepCounter),
+                "text/plain",
+                new ByteArrayInputStream(textSummary.getBytes(StandardCharsets.UTF_8)),
+                ".txt"
+            );
+            
+            // Create HTML dashboard
+            String htmlDashboard = createHtmlDashboard(stepCounter, metrics);
+            Allure.addAttachment(
+                String.format("📈 Step #%d Dashboard", stepCounter),
+                "text/html",
+                new ByteArrayInputStream(htmlDashboard.getBytes(StandardCharsets.UTF_8)),
+                ".html"
+            );
+            
+            // Attach raw JSON
+            String navigationJSON = stepFlush.isEmpty() ? tracker().getNavigationPerformanceJSON() : stepFlush.getNavigationJSON();
+            if (navigationJSON != null) {
+                attachRawData(scenario, navigationJSON);
             }
             
+            String pageLoadStatus = getPerformanceStatusText(metrics.getPageLoadTime(), 2000, 3000);
+            
+            // Cucumber log
+            scenario.log(String.format(
+                "┌─────────────────────────────────────────────────┐\n" +
+                "│ 🔄 STEP #%d PERFORMANCE METRICS - %s\n" +
+                "├─────────────────────────────────────────────────┤\n" +
+                "│ 📄 Page Load:      %4d ms %s\n" +
+                "│ 🔄 DOM Ready:      %4d ms %s\n" +
+                "│ 📡 Response:       %4d ms %s\n" +
+                "│ ⏱️  TTFB:           %4d ms %s\n" +
+                "│ 🔌 Connect:        %4d ms %s\n" +
+                "│ 🌐 DNS Lookup:     %4d ms %s\n" +
+                "│ 💾 From Cache:     %s\n" +
+                "└─────────────────────────────────────────────────┘",
+                stepCounter,
+                pageLoadStatus,
+                metrics.getPageLoadTime(), getStatusEmoji(metrics.getPageLoadTime(), 3000),
+                metrics.getDomReadyTime(), getStatusEmoji(metrics.getDomReadyTime(), 2000),
+                metrics.getResponseTime(), getStatusEmoji(metrics.getResponseTime(), 1000),
+                metrics.getTtfb(), getStatusEmoji(metrics.getTtfb(), 500),
+                metrics.getConnectTime(), getStatusEmoji(metrics.getConnectTime(), 300),
+                metrics.getDomainLookupTime(), getStatusEmoji(metrics.getDomainLookupTime(), 200),
+                metrics.isFromCache() ? "Yes ✅" : "No"
+            ));
+            }
+        
         } catch (Exception e) {
             scenario.log("⚠️ Performance error: " + e.getMessage());
             e.printStackTrace();
         }
     }
     
+    /**
+     * Measure the page after a step, or return null if the step left it unchanged. The agent flush
+     * carries the DOM-change verdict and the navigation timing in one script call; the tracker is
+     * only consulted when the agent could not be installed.
+     */
+    private PerformanceMetrics measure(Scenario scenario) {
+        String stepName = "Step #" + stepCounter;
+        PageMeasurementAgent.Flush flush = pageAgent.flush(stepName);
+        PageMeasurementAgent.PageTiming timing;
+        if (!flush.isEmpty()) {
+            timing = flush.hasDOMChanged() ? flush.getPageTiming() : null;
+        } else {
+            timing = tracker().hasDOMChanged() ? toPageTiming(tracker().getQuickMetrics()) : null;
+        }
+        if (timing == null) {
+            return null;
+        }
+        lastPageFlush = flush;
+        return createMetrics(scenario, stepName, timing, flush);
+    }
+    
+    private SPAPerformanceTracker tracker() {
+        if (spaTracker == null) {
+            spaTracker = new SPAPerformanceTracker(driver);
+        }
+        return spaTracker;
+    }
+    
+    private static PageMeasurementAgent.PageTiming toPageTiming(SPAPerformanceTracker.PerformanceSnapshot snapshot) {
+        if (snapshot == null) {
+            return null;
+        }
+        return new PageMeasurementAgent.PageTiming(snapshot.getPageLoadTime(), snapshot.getDomReadyTime(),
+            snapshot.getResponseTime(), snapshot.getTtfb(), snapshot.getConnectTime(),
+            snapshot.getDomainLookupTime(), snapshot.isFromCache());
+    }
+    
+    private PerformanceMetrics createMetrics(Scenario scenario, String stepName,
+                                             PageMeasurementAgent.PageTiming timing, PageMeasurementAgent.Flush flush) {
+        PerformanceMetrics metrics = new PerformanceMetrics();
+        metrics.setStepName(stepName);
+        metrics.setScenarioName(scenario.getName());
+        metrics.setFeatureName(getFeatureName(scenario));
+        metrics.setScenarioId(scenarioKey.getId());
+        metrics.setOutlineId(scenarioKey.getOutlineId());
+        metrics.setExampleParameters(scenarioKey.getParameters());
+        metrics.setThrottlingProfile(throttlingProfile != null ? throttlingProfile.getName() : null);
+        metrics.setConcurrencyLevel(VirtualUserLoadRunner.currentConcurrencyLevel());
+        metrics.setPageUrl(RouteNormalizer.sanitizeUrl(driver.getCurrentUrl()));
+        metrics.setPageLoadTime(timing.getPageLoadTime());
+        metrics.setDomReadyTime(timing.getDomReadyTime());
+        metrics.setResponseTime(timing.getResponseTime());
+        metrics.setTtfb(timing.getTtfb());
+        metrics.setConnectTime(timing.getConnectTime());
+        metrics.setDomainLookupTime(timing.getDomainLookupTime());
+        metrics.setFromCache(timing.isFromCache());
+        metrics.setServerTimings(flush.getServerTimings());
+        metrics.setDocumentServerTimings(flush.getDocumentServerTimings());
+        resourceCollector.collect(metrics, flush);
+        return metrics;
+    }
+    
+    /**
+     * Put the browser under the scenario's throttling profile before its first step is measured,
+     * or back to unthrottled if an earlier scenario left it throttled
+     */
+    private void applyThrottling(Scenario scenario) {
+        throttlingProfile = ThrottlingProfile.forScenario(scenario);
+        try {
+            if (!ThrottlingProfile.applyTo(driver, throttlingProfile)) {
+                scenario.log("⚠️ Driver has no CDP session, throttling profile not applied: " + throttlingProfile);
+                throttlingProfile = null;
+            } else if (throttlingProfile != null) {
+                scenario.log("🐢 Throttling profile: " + throttlingProfile);
+            }
+        } catch (Exception e) {
+            scenario.log("⚠️ Failed to apply throttling profile: " + e.getMessage());
+            throttlingProfile = null;
+        }
+    }
+    
+    /**
+     * Attach the raw navigation JSON. The file is written once per distinct content;
+     * steps with the same payload attach that file again instead of a copy.
+     */
+    private void attachRawData(Scenario scenario, String navPerfJSON) {
+        String name = String.format("📋 Step #%d Raw Data", stepCounter);
+        if (!ContentAddressedBlobStore.isEnabled()) {
+            Allure.addAttachment(name, "application/json", navPerfJSON, ".json");
+            return;
+        }
+        
+        AllureLifecycle lifecycle = Allure.getLifecycle();
+        try {
+            ContentAddressedBlobStore.BlobRef blob = ContentAddressedBlobStore.getDefault().store(navPerfJSON,
+                (source, content) -> lifecycle.writeAttachment(source, new ByteArrayInputStream(content)));
+            attachExisting(lifecycle, name, "application/json", blob.getSource());
+        } catch (RuntimeException e) {
+            scenario.log("⚠️ Could not store raw data blob: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Add an attachment entry for a results file that is already written, on the current step or test case
+     */
+    private static void attachExisting(AllureLifecycle lifecycle, String name, String type, String source) {
+        Optional<String> current = lifecycle.getCurrentTestCaseOrStep();
+        if (!current.isPresent()) {
+            return;
+        }
+        Attachment attachment = new Attachment().setName(name).setType(type).setSource(source);
+        if (current.equals(lifecycle.getCurrentTestCase())) {
+            lifecycle.updateTestCase(current.get(), testCase -> testCase.getAttachments().add(attachment));
+        } else {
+            lifecycle.updateStep(current.get(), step -> step.getAttachments().add(attachment));
+        }
+    }
+    
+    private PerformanceMetrics resample(Scenario scenario) {
+        try {
+            RepeatSampler.retrigger(driver, repeatConfig.isColdCache());
+            return measure(scenario);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (Exception e) {
+            scenario.log("⚠️ Repeat sample failed: " + e.getMessage());
+            return null;
+        }
+    }
+    
     private String getPerformanceStatusText(long value, long goodThreshold, long poorThreshold) {
     if (value <= goodThreshold) {
         return "EXCELLENT";  // ← Categories will match this
@@ -135,7 +308,7 @@ public class StepPerformanceHooks {
     } else {
         return "SLOW";       // ← Categories will match this
     }
-        
+    
     private String createTextSummary(int stepNumber, PerformanceMetrics metrics) {
         return String.format(
             "╔══════════════════════════════════════════════════════════════════╗\n" +
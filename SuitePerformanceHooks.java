@@ -1,37 +1,69 @@
 package com.yourcompany.hooks;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
+import com.yourcompany.utils.OtlpTraceExporter;
 import com.yourcompany.utils.PerformanceStorage;
+import com.yourcompany.utils.ScenarioDurationHistory;
+import com.yourcompany.utils.SharedAggregateRegion;
 import io.cucumber.java.AfterAll;
 import io.qameta.allure.Allure;
 
 import java.io.ByteArrayInputStream;
-import java.io.File;
-import java.io.IOException;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Paths;
-import java.util.HashMap;
 import java.util.Map;
 
 /**
- * Generates suite-level performance widget for Allure overview page
+ * Generates suite-level performance widget for Allure overview page.
+ * Artifacts are checkpointed during the run by {@link SuiteReportCheckpointer}
+ * and built by {@link SuiteReportPipeline}. The end of the suite flushes the
+ * last delta and refreshes the full JSON export; the shutdown hook, if the JVM
+ * exits first, only appends the last delta, with a short bound
+ * ({@code performance.shutdownHook.waitMs}) on waiting for background writers.
  */
 public class SuitePerformanceHooks {
     
+    // Longest the shutdown hook waits for a background checkpoint or trace batch in progress
+    private static final long SHUTDOWN_HOOK_WAIT_MS = Long.getLong("performance.shutdownHook.waitMs", 200L);
+    
+    static {
+        // Flush whatever the last checkpoint missed even if @AfterAll never runs
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            SuiteReportCheckpointer.flushOnShutdown(SHUTDOWN_HOOK_WAIT_MS);
+            OtlpTraceExporter.getDefault().shutdown(SHUTDOWN_HOOK_WAIT_MS);
+            ScenarioDurationHistory.getDefault().flush();
+            SharedAggregateRegion.detachDefault();
+        }));
+    }
+    
+    /**
+     * Start incremental checkpointing (called at the start of every scenario, idempotent)
+     */
+    public static void startCheckpointing() {
+        SuiteReportCheckpointer.start(SuitePerformanceHooks::writeSuiteArtifacts);
+    }
+    
     @AfterAll
     public static void afterAllTests() {
+        // A replayed @load scenario runs in an embedded runtime; the suite ends with the outer one
+        if (VirtualUserLoadRunner.isVirtualUser()) {
+            return;
+        }
         System.out.println("🔄 Generating suite performance summary...");
         
+        // Flush the metrics delta and widget artifacts, then bring the full JSON export up to date
+        SuiteReportCheckpointer.flushFinal(SuitePerformanceHooks::writeSuiteArtifacts);
+        SuiteReportCheckpointer.exportFull();
+        
+        // Write queued trace spans
+        OtlpTraceExporter.getDefault().shutdown();
+        
+        // Merge this run's scenario durations into the scheduling history
+        ScenarioDurationHistory.getDefault().flush();
+        
         Map<String, Double> averages = PerformanceStorage.calculateSuiteAverages();
         Map<String, Object> stats = PerformanceStorage.getStatistics();
         
         if (!averages.isEmpty()) {
             
-            // Export all metrics to JSON for analysis
-            PerformanceStorage.exportToJson("target/allure-results/performance-metrics.json");
-            
             // Create suite summary attachment
             String summary = createSuiteSummary(averages, stats);
             Allure.addAttachment(
@@ -41,9 +73,6 @@ public class SuitePerformanceHooks {
                 ".txt"
             );
             
-            // Generate custom Allure widget data
-            generateAllureWidget(averages, stats);
-            
             System.out.println("✅ Suite performance summary generated");
             System.out.println("   Total Steps: " + stats.get("totalSteps"));
             System.out.println("   Total Scenarios: " + stats.get("totalScenarios"));
@@ -51,6 +80,13 @@ public class SuitePerformanceHooks {
         }
     }
     
+    /**
+     * Rewrite the suite widget artifacts from the current aggregates
+     */
+    static void writeSuiteArtifacts() {
+        SuiteReportPipeline.defaultPipeline().run(SuiteReportSnapshot.capture());
+    }
+    
     private static String createSuiteSummary(Map<String, Double> averages, Map<String, Object> stats) {
         return String.format(
             "╔══════════════════════════════════════════════════════════════════╗\n" +
@@ -85,73 +121,4 @@ public class SuitePerformanceHooks {
             (averages.get("cachedSteps") / averages.get("totalSteps")) * 100
         );
     }
-    
-    private static void generateAllureWidget(Map<String, Double> averages, Map<String, Object> stats) {
-        try {
-            // Create widget data structure
-            Map<String, Object> widgetData = new HashMap<>();
-            widgetData.put("name", "performance");
-            widgetData.put("averages", averages);
-            widgetData.put("stats", stats);
-            widgetData.put("cacheHitRate", (averages.get("cachedSteps") / averages.get("totalSteps")) * 100);
-            
-            // Write to allure-results directory
-            ObjectMapper mapper = new ObjectMapper();
-            mapper.enable(SerializationFeature.INDENT_OUTPUT);
-            
-            String allureResultsDir = "target/allure-results";
-            new File(allureResultsDir).mkdirs();
-            
-            File widgetFile = new File(allureResultsDir + "/widgets/performance-widget.json");
-            widgetFile.getParentFile().mkdirs();
-            
-            mapper.writeValue(widgetFile, widgetData);
-            
-            // Also create the widget HTML template
-            createWidgetHtml(allureResultsDir, averages, stats);
-            
-            System.out.println("✅ Allure widget data generated: " + widgetFile.getAbsolutePath());
-            
-        } catch (IOException e) {
-            System.err.println("❌ Error generating Allure widget: " + e.getMessage());
-            e.printStackTrace();
-        }
-    }
-    
-    private static void createWidgetHtml(String allureResultsDir, Map<String, Double> averages, Map<String, Object> stats) {
-        try {
-            StringBuilder html = new StringBuilder();
-            html.append("<div class='widget' style='padding:20px; background:linear-gradient(135deg, #667eea 0%, #764ba2 100%); border-radius:8px; color:white;'>\n");
-            html.append("  <h3 style='margin-top:0;'>⚡ Performance Summary</h3>\n");
-            html.append("  <div style='display:grid; grid-template-columns:repeat(3,1fr); gap:10px;'>\n");
-            
-            html.append(String.format(
-                "    <div style='text-align:center;'><div style='font-size:24px; font-weight:bold;'>%.0f ms</div><div style='font-size:11px; opacity:0.9;'>AVG PAGE LOAD</div></div>\n",
-                averages.get("avgPageLoadTime")
-            ));
-            
-            html.append(String.format(
-                "    <div style='text-align:center;'><div style='font-size:24px; font-weight:bold;'>%.0f ms</div><div style='font-size:11px; opacity:0.9;'>AVG TTFB</div></div>\n",
-                averages.get("avgTtfb")
-            ));
-            
-            html.append(String.format(
-                "    <div style='text-align:center;'><div style='font-size:24px; font-weight:bold;'>%s</div><div style='font-size:11px; opacity:0.9;'>TOTAL STEPS</div></div>\n",
-                stats.get("totalSteps")
-            ));
-            
-            html.append("  </div>\n");
-            html.append("</div>\n");
-            
-            // Write widget HTML
-            File htmlFile = new File(allureResultsDir + "/widgets/performance-widget.html");
-            Files.write(Paths.get(htmlFile.toURI()), html.toString().getBytes(StandardCharsets.UTF_8));
-            
-            System.out.println("✅ Allure widget HTML generated: " + htmlFile.getAbsolutePath());
-            
-        } catch (IOException e) {
-            System.err.println("❌ Error creating widget HTML: " + e.getMessage());
-            e.printStackTrace();
-        }
-    }
-}
\ No newline at end of file
+}
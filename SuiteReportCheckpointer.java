@@ -0,0 +1,273 @@
+package com.yourcompany.hooks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.yourcompany.utils.PerformanceMetrics;
+import com.yourcompany.utils.PerformanceStorage;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps suite report artifacts up to date while the run is in progress,
+ * so a JVM killed by surefire or the CI agent still leaves a usable report.
+ *
+ * Checkpoints run periodically ({@code performance.checkpoint.intervalMs}, default 30s)
+ * and at scenario boundaries, always on the single checkpoint thread. Each checkpoint
+ * appends the metrics recorded since the previous one to {@code performance-metrics.jsonl}
+ * and rewrites the small suite artifacts atomically. The full {@code performance-metrics.json}
+ * export is refreshed every {@code performance.checkpoint.fullExportEvery} periodic
+ * checkpoints (default 10) and by {@link #exportFull()} at the end of the suite. If the JVM
+ * exits before the end of the suite, {@link #flushOnShutdown} only appends the last delta,
+ * waiting a bounded few milliseconds for a checkpoint in progress.
+ *
+ * The scenario hooks ({@link #start}, {@link #requestCheckpoint}) never wait for a
+ * checkpoint in progress.
+ */
+public class SuiteReportCheckpointer {
+    
+    private static final long INTERVAL_MS = Long.getLong("performance.checkpoint.intervalMs", 30_000L);
+    private static final int FULL_EXPORT_EVERY = Integer.getInteger("performance.checkpoint.fullExportEvery", 10);
+    private static final long SHUTDOWN_TIMEOUT_MS = Long.getLong("performance.checkpoint.shutdownTimeoutMs", 30_000L);
+    
+    private static final String ALLURE_RESULTS_DIR = "target/allure-results";
+    private static final Path METRICS_LOG = Paths.get(ALLURE_RESULTS_DIR, "performance-metrics.jsonl");
+    private static final String METRICS_EXPORT = ALLURE_RESULTS_DIR + "/performance-metrics.json";
+    
+    private static final ObjectWriter LINE_WRITER = new ObjectMapper().writerFor(PerformanceMetrics.class);
+    private static final AtomicBoolean checkpointQueued = new AtomicBoolean(false);
+    
+    // Lifecycle, guarded by the class lock; volatile so the per-scenario calls can read it without locking
+    private static volatile ScheduledExecutorService scheduler;
+    private static volatile boolean finished = false;
+    private static volatile Runnable suiteArtifactWriter;
+    
+    // Checkpoint progress, guarded by checkpointLock (only the checkpoint body and the shutdown flush take it)
+    private static final ReentrantLock checkpointLock = new ReentrantLock();
+    private static long checkpointedMetrics = 0;
+    private static long exportedMetrics = -1;
+    
+    // Only touched on the checkpoint thread
+    private static int periodicCheckpoints = 0;
+    
+    /**
+     * Start background checkpoints; safe to call from every scenario
+     */
+    public static void start(Runnable artifactWriter) {
+        if (scheduler != null || finished) {
+            return;
+        }
+        synchronized (SuiteReportCheckpointer.class) {
+            if (scheduler != null || finished) {
+                return;
+            }
+            suiteArtifactWriter = artifactWriter;
+            
+            try {
+                // A previous run's delta log must not be mixed into this one
+                Files.deleteIfExists(METRICS_LOG);
+            } catch (IOException e) {
+                System.err.println("❌ Error resetting metrics log: " + e.getMessage());
+            }
+            
+            ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "performance-checkpoint");
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.scheduleWithFixedDelay(SuiteReportCheckpointer::periodicCheckpoint,
+                INTERVAL_MS, INTERVAL_MS, TimeUnit.MILLISECONDS);
+            scheduler = executor;
+        }
+    }
+    
+    /**
+     * Queue a checkpoint without blocking the caller (e.g. at a scenario boundary).
+     * Requests arriving while one is already queued are coalesced.
+     */
+    public static void requestCheckpoint() {
+        ScheduledExecutorService executor = scheduler;
+        if (executor != null && checkpointQueued.compareAndSet(false, true)) {
+            try {
+                executor.execute(() -> {
+                    checkpointQueued.set(false);
+                    checkpoint(false);
+                });
+            } catch (RuntimeException e) {
+                checkpointQueued.set(false);
+            }
+        }
+    }
+    
+    /**
+     * Final flush at the end of the suite. Lets a checkpoint in progress finish
+     * (the checkpoint thread is never interrupted mid-append), then writes only
+     * the delta since the last checkpoint and the small artifacts.
+     */
+    public static void flushFinal(Runnable artifactWriter) {
+        ScheduledExecutorService executor;
+        synchronized (SuiteReportCheckpointer.class) {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            if (suiteArtifactWriter == null) {
+                suiteArtifactWriter = artifactWriter;
+            }
+            executor = scheduler;
+            scheduler = null;
+        }
+        if (executor != null) {
+            // Cancels the periodic task; an already running or queued checkpoint still completes
+            executor.shutdown();
+            try {
+                if (!executor.awaitTermination(SHUTDOWN_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                    System.err.println("⚠️  Performance checkpoint still running after " + SHUTDOWN_TIMEOUT_MS + " ms");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        checkpoint(false);
+    }
+    
+    /**
+     * Flush from the JVM shutdown hook when the suite did not finish normally.
+     * Appends only the delta since the last checkpoint, without rebuilding the
+     * artifacts. A checkpoint in progress gets at most {@code waitMs} to finish;
+     * after that the hook gives up on the delta rather than hold up JVM exit
+     * (the checkpoint thread is a daemon, and readers skip a partial last line).
+     */
+    public static void flushOnShutdown(long waitMs) {
+        ScheduledExecutorService executor;
+        synchronized (SuiteReportCheckpointer.class) {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            executor = scheduler;
+            scheduler = null;
+        }
+        if (executor != null) {
+            executor.shutdown();
+        }
+        
+        try {
+            if (!checkpointLock.tryLock(waitMs, TimeUnit.MILLISECONDS)) {
+                System.err.println("⚠️  Performance checkpoint still running after " + waitMs + " ms, skipping the final delta");
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        try {
+            long total = PerformanceStorage.getTotalMetrics();
+            if (total > checkpointedMetrics) {
+                appendDelta(checkpointedMetrics, total);
+                checkpointedMetrics = total;
+            }
+        } catch (Exception e) {
+            System.err.println("❌ Error writing final performance delta: " + e.getMessage());
+        } finally {
+            checkpointLock.unlock();
+        }
+    }
+    
+    /**
+     * Refresh the full {@code performance-metrics.json} export if it is behind.
+     * Called once at the end of the suite, not from the shutdown hook.
+     */
+    public static void exportFull() {
+        checkpoint(true);
+    }
+    
+    private static void periodicCheckpoint() {
+        periodicCheckpoints++;
+        checkpoint(FULL_EXPORT_EVERY > 0 && periodicCheckpoints % FULL_EXPORT_EVERY == 0);
+    }
+    
+    private static void checkpoint(boolean fullExport) {
+        checkpointLock.lock();
+        try {
+            long total = PerformanceStorage.getTotalMetrics();
+            
+            try {
+                if (total > checkpointedMetrics) {
+                    long from = checkpointedMetrics;
+                    appendDelta(from, total);
+                    checkpointedMetrics = total;
+                    
+                    Runnable artifactWriter = suiteArtifactWriter;
+                    if (artifactWriter != null) {
+                        artifactWriter.run();
+                    }
+                    System.out.println("✅ Performance checkpoint: " + total + " metrics (+" + (total - from)
+                        + "), report artifacts updated in " + ALLURE_RESULTS_DIR);
+                }
+                
+                if (fullExport && total > 0 && total != exportedMetrics) {
+                    PerformanceStorage.exportToJson(METRICS_EXPORT);
+                    exportedMetrics = total;
+                }
+            } catch (Exception e) {
+                System.err.println("❌ Error writing performance checkpoint: " + e.getMessage());
+                e.printStackTrace();
+            }
+        } finally {
+            checkpointLock.unlock();
+        }
+    }
+    
+    /**
+     * Append metrics [from, to) as JSON lines and force them to disk.
+     * A kill mid-append can only leave a partial last line, which readers skip.
+     * If the append fails, the log is truncated back to its previous length so the
+     * retry at the next checkpoint does not duplicate lines.
+     */
+    private static void appendDelta(long from, long to) throws IOException {
+        Files.createDirectories(METRICS_LOG.getParent());
+        
+        long previousLength = Files.exists(METRICS_LOG) ? Files.size(METRICS_LOG) : 0;
+        try (FileChannel channel = FileChannel.open(METRICS_LOG,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            BufferedWriter writer = new BufferedWriter(
+                new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8), 64 * 1024);
+            
+            long remaining = to - from;
+            for (PerformanceMetrics metrics : PerformanceStorage.getMetricsSince(from)) {
+                if (remaining-- <= 0) {
+                    break;
+                }
+                writer.write(LINE_WRITER.writeValueAsString(metrics));
+                writer.write('\n');
+            }
+            writer.flush();
+            channel.force(false);
+        } catch (IOException | RuntimeException e) {
+            truncateLog(previousLength);
+            throw e;
+        }
+    }
+    
+    private static void truncateLog(long length) {
+        try (FileChannel channel = FileChannel.open(METRICS_LOG, StandardOpenOption.WRITE)) {
+            channel.truncate(length);
+        } catch (IOException e) {
+            System.err.println("❌ Error rolling back metrics log: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,632 @@
+package com.yourcompany.hooks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.yourcompany.utils.AtomicFiles;
+import com.yourcompany.utils.PerformanceMetrics;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Builds every suite-level report artifact from a single {@link SuiteReportSnapshot}.
+ * Writers run in parallel, share pre-configured Jackson writers and replace
+ * their files atomically. New artifact types only need another {@link ArtifactWriter}.
+ */
+public class SuiteReportPipeline {
+    
+    /**
+     * One suite-level artifact
+     */
+    public interface ArtifactWriter {
+        String name();
+        
+        void write(SuiteReportSnapshot snapshot, Path allureResultsDir) throws IOException;
+    }
+    
+    private static final Path ALLURE_RESULTS_DIR = Paths.get("target/allure-results");
+    
+    // ObjectWriter is immutable and thread-safe, so all writers share these
+    static final ObjectWriter PRETTY_JSON = new ObjectMapper().writerWithDefaultPrettyPrinter();
+    
+    private static final SuiteReportPipeline DEFAULT = new SuiteReportPipeline(Arrays.asList(
+        new WidgetJsonWriter(),
+        new WidgetHtmlWriter(),
+        new SummaryJsonWriter(),
+        new CategoriesJsonWriter(),
+        new EnvironmentPropertiesWriter(),
+        new OverviewAttachmentWriter()
+    ));
+    
+    private final List<ArtifactWriter> writers;
+    private final ExecutorService executor;
+    
+    public SuiteReportPipeline(List<ArtifactWriter> writers) {
+        this.writers = Collections.unmodifiableList(new ArrayList<>(writers));
+        this.executor = Executors.newFixedThreadPool(
+            Math.max(1, Math.min(writers.size(), Runtime.getRuntime().availableProcessors())),
+            runnable -> {
+                Thread thread = new Thread(runnable, "performance-report");
+                thread.setDaemon(true);
+                return thread;
+            });
+    }
+    
+    public static SuiteReportPipeline defaultPipeline() {
+        return DEFAULT;
+    }
+    
+    /**
+     * Write all artifacts for the snapshot and wait for them to finish.
+     * A failing writer is reported but does not stop the others. Successful
+     * writes are not logged one by one; the caller logs once per run.
+     */
+    public void run(SuiteReportSnapshot snapshot) {
+        if (snapshot.isEmpty()) {
+            System.out.println("⚠️  No performance metrics collected");
+            return;
+        }
+        
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (ArtifactWriter writer : writers) {
+            tasks.add(() -> {
+                writer.write(snapshot, ALLURE_RESULTS_DIR);
+                return null;
+            });
+        }
+        
+        try {
+            List<Future<Void>> results = executor.invokeAll(tasks);
+            for (int i = 0; i < results.size(); i++) {
+                try {
+                    results.get(i).get();
+                } catch (ExecutionException e) {
+                    System.err.println("❌ Error writing " + writers.get(i).name() + ": " + e.getCause().getMessage());
+                    e.getCause().printStackTrace();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("❌ Suite report generation interrupted");
+        }
+    }
+    
+    private static String formatMetricWithStatus(double value, long goodThreshold, long poorThreshold) {
+        String status;
+        if (value <= goodThreshold) {
+            status = "✅";
+        } else if (value <= poorThreshold) {
+            status = "⚡";
+        } else {
+            status = "❌";
+        }
+        return String.format("%s %.0f ms", status, value);
+    }
+    
+    /**
+     * Calculate overall performance grade
+     */
+    static String calculateOverallGrade(SuiteReportSnapshot snapshot) {
+        int score = 0;
+        int totalChecks = 6;
+        
+        if (snapshot.average("avgPageLoadTime") <= 2000) score++;
+        if (snapshot.average("avgDomReadyTime") <= 1500) score++;
+        if (snapshot.average("avgResponseTime") <= 800) score++;
+        if (snapshot.average("avgTtfb") <= 400) score++;
+        if (snapshot.average("avgConnectTime") <= 200) score++;
+        if (snapshot.average("avgDomainLookupTime") <= 100) score++;
+        
+        double percentage = (score * 100.0) / totalChecks;
+        
+        if (percentage >= 83) {
+            return "🏆 A+ (EXCELLENT - " + String.format("%.0f%%", percentage) + ")";
+        } else if (percentage >= 67) {
+            return "⭐ A (GOOD - " + String.format("%.0f%%", percentage) + ")";
+        } else if (percentage >= 50) {
+            return "⚡ B (AVERAGE - " + String.format("%.0f%%", percentage) + ")";
+        } else if (percentage >= 33) {
+            return "⚠️ C (BELOW AVERAGE - " + String.format("%.0f%%", percentage) + ")";
+        } else {
+            return "❌ D (NEEDS IMPROVEMENT - " + String.format("%.0f%%", percentage) + ")";
+        }
+    }
+    
+    /**
+     * widgets/performance-widget.json, read by performance-summary.js
+     */
+    private static final class WidgetJsonWriter implements ArtifactWriter {
+        
+        @Override
+        public String name() { return "widget JSON"; }
+        
+        @Override
+        public void write(SuiteReportSnapshot snapshot, Path allureResultsDir) throws IOException {
+            Map<String, Object> widgetData = new HashMap<>();
+            widgetData.put("name", "performance");
+            widgetData.put("averages", snapshot.getAverages());
+            widgetData.put("stats", snapshot.getStats());
+            widgetData.put("cacheHitRate", snapshot.getCacheHitRate());
+            
+            Path widgetFile = allureResultsDir.resolve("widgets/performance-widget.json");
+            AtomicFiles.write(widgetFile, PRETTY_JSON.writeValueAsBytes(widgetData));
+        }
+    }
+    
+    /**
+     * widgets/performance-widget.html
+     */
+    private static final class WidgetHtmlWriter implements ArtifactWriter {
+        
+        @Override
+        public String name() { return "widget HTML"; }
+        
+        @Override
+        public void write(SuiteReportSnapshot snapshot, Path allureResultsDir) throws IOException {
+            StringBuilder html = new StringBuilder();
+            html.append("<div class='widget' style='padding:20px; background:linear-gradient(135deg, #667eea 0%, #764ba2 100%); border-radius:8px; color:white;'>\n");
+            html.append("  <h3 style='margin-top:0;'>⚡ Performance Summary</h3>\n");
+            html.append("  <div style='display:grid; grid-template-columns:repeat(3,1fr); gap:10px;'>\n");
+            
+            html.append(String.format(
+                "    <div style='text-align:center;'><div style='font-size:24px; font-weight:bold;'>%.0f ms</div><div style='font-size:11px; opacity:0.9;'>AVG PAGE LOAD</div></div>\n",
+                snapshot.average("avgPageLoadTime")
+            ));
+            
+            html.append(String.format(
+                "    <div style='text-align:center;'><div style='font-size:24px; font-weight:bold;'>%.0f ms</div><div style='font-size:11px; opacity:0.9;'>AVG TTFB</div></div>\n",
+                snapshot.average("avgTtfb")
+            ));
+            
+            html.append(String.format(
+                "    <div style='text-align:center;'><div style='font-size:24px; font-weight:bold;'>%s</div><div style='font-size:11px; opacity:0.9;'>TOTAL STEPS</div></div>\n",
+                snapshot.stat("totalSteps")
+            ));
+            
+            html.append("  </div>\n");
+            html.append("</div>\n");
+            
+            Path htmlFile = allureResultsDir.resolve("widgets/performance-widget.html");
+            AtomicFiles.write(htmlFile, html.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+    
+    /**
+     * widgets/summary.json, read by the Allure summary widget
+     */
+    private static final class SummaryJsonWriter implements ArtifactWriter {
+        
+        @Override
+        public String name() { return "summary JSON"; }
+        
+        @Override
+        public void write(SuiteReportSnapshot snapshot, Path allureResultsDir) throws IOException {
+            Map<String, Object> summary = new HashMap<>();
+            
+            summary.put("statistic", Map.of(
+                "total", snapshot.stat("totalSteps"),
+                "scenarios", snapshot.stat("totalScenarios")
+            ));
+            
+            summary.put("time", Map.of(
+                "duration", (long) snapshot.average("avgPageLoadTime")
+            ));
+            
+            Map<String, Object> extra = new LinkedHashMap<>();
+            extra.put("Performance Metrics", performanceMetrics(snapshot));
+            extra.put("Suite Summary", suiteSummary(snapshot));
+            extra.put("Cold vs Warm", coldWarmSummary(snapshot));
+            extra.put("Slowest Routes", slowestRoutes(snapshot));
+            extra.put("Slowest Steps", slowestSteps(snapshot));
+            extra.put("Frontend vs Backend", frontendBackend(snapshot));
+            extra.put("Server-Timing", serverTimings(snapshot));
+            extra.put("Repeat-Measured Steps", repeatedSteps(snapshot));
+            extra.put("Load Concurrency", concurrencySummary(snapshot));
+            extra.put("Throttling Profiles", profileSummary(snapshot));
+            extra.put("Resource Growth", resourceGrowth(snapshot));
+            extra.put("Outline Parameters", outlineParameters(snapshot));
+            extra.put("Degradation Windows", degradationWindows(snapshot));
+            summary.put("extra", extra);
+            
+            Path summaryFile = allureResultsDir.resolve("widgets/summary.json");
+            AtomicFiles.write(summaryFile, PRETTY_JSON.writeValueAsBytes(summary));
+        }
+        
+        private static Map<String, String> performanceMetrics(SuiteReportSnapshot snapshot) {
+            Map<String, String> metrics = new LinkedHashMap<>();
+            metrics.put("📄 Page Load", formatMetricWithStatus(snapshot.average("avgPageLoadTime"), 2000, 3000));
+            metrics.put("🔄 DOM Ready", formatMetricWithStatus(snapshot.average("avgDomReadyTime"), 1500, 2500));
+            metrics.put("📡 Response Time", formatMetricWithStatus(snapshot.average("avgResponseTime"), 800, 1200));
+            metrics.put("⏱️ TTFB", formatMetricWithStatus(snapshot.average("avgTtfb"), 400, 600));
+            metrics.put("🔌 Connect Time", formatMetricWithStatus(snapshot.average("avgConnectTime"), 200, 400));
+            metrics.put("🌐 DNS Lookup", formatMetricWithStatus(snapshot.average("avgDomainLookupTime"), 100, 200));
+            return metrics;
+        }
+        
+        @SuppressWarnings("unchecked")
+        private static Map<String, String> coldWarmSummary(SuiteReportSnapshot snapshot) {
+            Map<String, String> coldWarmInfo = new LinkedHashMap<>();
+            Map<String, Object> coldWarm = (Map<String, Object>) snapshot.stat("coldWarm");
+            if (coldWarm == null) {
+                return coldWarmInfo;
+            }
+            
+            for (String stream : new String[] {"cold", "warm"}) {
+                Map<String, Object> statistics = (Map<String, Object>) coldWarm.get(stream);
+                Map<String, Double> pageLoad = ((Map<String, Map<String, Double>>) statistics.get("robust")).get("avgPageLoadTime");
+                String label = stream.equals("cold") ? "🧊 Cold" : "🔥 Warm";
+                coldWarmInfo.put(label + " Steps", String.valueOf(statistics.get("steps")));
+                if (pageLoad != null) {
+                    coldWarmInfo.put(label + " Page Load (median ± MAD)",
+                        String.format("%.0f ± %.0f ms", pageLoad.get("median"), pageLoad.get("mad")));
+                    coldWarmInfo.put(label + " Page Load (trimmed mean)", String.format("%.0f ms", pageLoad.get("trimmedMean")));
+                }
+            }
+            coldWarmInfo.put("Excluded Warm-up Steps", String.valueOf(coldWarm.get("excludedWarmupSteps")));
+            return coldWarmInfo;
+        }
+        
+        @SuppressWarnings("unchecked")
+        private static Map<String, String> slowestRoutes(SuiteReportSnapshot snapshot) {
+            Map<String, String> routes = new LinkedHashMap<>();
+            List<Map<String, Object>> slowest = (List<Map<String, Object>>) snapshot.stat("slowestRoutes");
+            if (slowest == null) {
+                return routes;
+            }
+            for (Map<String, Object> route : slowest) {
+                routes.put(String.valueOf(route.get("route")), String.format("%s (p95 %.0f ms, %s steps)",
+                    formatMetricWithStatus((Double) route.get("avgPageLoadTime"), 2000, 3000),
+                    route.get("p95PageLoadTime"), route.get("steps")));
+            }
+            return routes;
+        }
+        
+        @SuppressWarnings("unchecked")
+        private static Map<String, String> slowestSteps(SuiteReportSnapshot snapshot) {
+            Map<String, String> steps = new LinkedHashMap<>();
+            List<PerformanceMetrics> slowest = (List<PerformanceMetrics>) snapshot.stat("slowestSteps");
+            if (slowest == null) {
+                return steps;
+            }
+            int rank = 1;
+            for (PerformanceMetrics step : slowest) {
+                steps.put(String.format("%d. %s / %s", rank++, step.getScenarioName(), step.getStepName()),
+                    String.format("%s %s", formatMetricWithStatus(step.getPageLoadTime(), 2000, 3000),
+                        step.getRoute() != null ? step.getRoute() : ""));
+            }
+            return steps;
+        }
+        
+        @SuppressWarnings("unchecked")
+        private static Map<String, String> frontendBackend(SuiteReportSnapshot snapshot) {
+            Map<String, String> steps = new LinkedHashMap<>();
+            List<Map<String, Object>> breakdown = (List<Map<String, Object>>) snapshot.stat("slowestStepBreakdown");
+            if (breakdown == null) {
+                return steps;
+            }
+            for (Map<String, Object> step : breakdown) {
+                List<String> parts = new ArrayList<>();
+                ((Map<String, Double>) step.get("serverTimings")).forEach((name, duration) ->
+                    parts.add(String.format("%s %.0f", name, duration)));
+                steps.put(step.get("scenario") + " / " + step.get("step"),
+                    String.format("frontend %.0f ms, backend %.0f ms (%s)",
+                        step.get("frontendTime"), step.get("backendTime"), String.join(", ", parts)));
+            }
+            return steps;
+        }
+        
+        @SuppressWarnings("unchecked")
+        private static Map<String, String> serverTimings(SuiteReportSnapshot snapshot) {
+            Map<String, String> timings = new LinkedHashMap<>();
+            Map<String, Map<String, Double>> statistics = (Map<String, Map<String, Double>>) snapshot.stat("serverTimings");
+            if (statistics == null) {
+                return timings;
+            }
+            statistics.forEach((name, entry) -> timings.put(name,
+                String.format("avg %.1f ms, max %.1f ms (%.0f samples)", entry.get("avg"), entry.get("max"), entry.get("count"))));
+            return timings;
+        }
+        
+        @SuppressWarnings("unchecked")
+        private static Map<String, String> repeatedSteps(SuiteReportSnapshot snapshot) {
+            Map<String, String> steps = new LinkedHashMap<>();
+            Map<String, Map<String, Object>> repeated = (Map<String, Map<String, Object>>) snapshot.stat("repeatedSteps");
+            if (repeated == null) {
+                return steps;
+            }
+            repeated.forEach((key, series) -> {
+                Map<String, Object> pageLoad = (Map<String, Object>) series.get("pageLoadTime");
+                // Series are keyed by scenario id; label them by name unless two example rows share it
+                String label = series.get("scenario") + " / " + series.get("step");
+                steps.put(steps.containsKey(label) ? key : label, String.format("mean %.0f ms, median %.0f ms, CV %.1f%%, 95%% CI [%s, %s] (%s samples)",
+                    pageLoad.get("mean"), pageLoad.get("median"), ((Double) pageLoad.get("coefficientOfVariation")) * 100,
+                    formatBound(pageLoad.get("ci95Low")), formatBound(pageLoad.get("ci95High")), pageLoad.get("samples")));
+            });
+            return steps;
+        }
+        
+        @SuppressWarnings("unchecked")
+        private static Map<String, String> concurrencySummary(SuiteReportSnapshot snapshot) {
+            Map<String, String> levels = new LinkedHashMap<>();
+            Map<Integer, Map<String, Object>> concurrency = (Map<Integer, Map<String, Object>>) snapshot.stat("concurrency");
+            if (concurrency == null) {
+                return levels;
+            }
+            concurrency.forEach((level, statistics) -> levels.put(level + (level == 1 ? " user" : " users"),
+                String.format("%s (p95 %.0f ms, TTFB %.0f ms, %.0f steps)",
+                    formatMetricWithStatus((Double) statistics.get("avgPageLoadTime"), 2000, 3000),
+                    statistics.get("p95PageLoadTime"), statistics.get("avgTtfb"), statistics.get("totalSteps"))));
+            return levels;
+        }
+        
+        @SuppressWarnings("unchecked")
+        private static Map<String, String> profileSummary(SuiteReportSnapshot snapshot) {
+            Map<String, String> profiles = new LinkedHashMap<>();
+            Map<String, Map<String, Object>> statistics = (Map<String, Map<String, Object>>) snapshot.stat("profiles");
+            if (statistics == null) {
+                return profiles;
+            }
+            statistics.forEach((profile, entry) -> profiles.put(profile,
+                String.format("%s (p95 %.0f ms, TTFB %.0f ms, %.0f steps)",
+                    formatMetricWithStatus((Double) entry.get("avgPageLoadTime"), 2000, 3000),
+                    entry.get("p95PageLoadTime"), entry.get("avgTtfb"), entry.get("totalSteps"))));
+            return profiles;
+        }
+        
+        @SuppressWarnings("unchecked")
+        private static Map<String, String> degradationWindows(SuiteReportSnapshot snapshot) {
+            Map<String, String> windows = new LinkedHashMap<>();
+            List<Map<String, Object>> detected = (List<Map<String, Object>>) snapshot.stat("degradationWindows");
+            if (detected == null) {
+                return windows;
+            }
+            DateTimeFormatter time = DateTimeFormatter.ofPattern("HH:mm:ss").withZone(ZoneId.systemDefault());
+            Map<String, Integer> perField = new HashMap<>();
+            for (Map<String, Object> window : detected) {
+                String field = window.get("series") != null
+                    ? window.get("field") + " " + window.get("series") : (String) window.get("field");
+                int number = perField.merge(field, 1, Integer::sum);
+                double baseline = ((Number) window.get("baselineMs")).doubleValue();
+                double degraded = ((Number) window.get("degradedMs")).doubleValue();
+                String end = (Boolean) window.get("open")
+                    ? "still open"
+                    : String.format(Boolean.TRUE.equals(window.get("expired")) ? "no samples after step %s (%s)" : "until step %s (%s)", window.get("endIndex"),
+                        time.format(Instant.ofEpochMilli(((Number) window.get("endTimestamp")).longValue())));
+                windows.put(field + " #" + number, String.format("🔴 from step %s (%s), detected at step %s, %s: %.0f → %.0f ms (%+.0f%%)",
+                    window.get("startIndex"), time.format(Instant.ofEpochMilli(((Number) window.get("startTimestamp")).longValue())),
+                    window.get("detectedIndex"), end, baseline, degraded,
+                    baseline > 0 ? (degraded / baseline - 1) * 100 : 0));
+            }
+            return windows;
+        }
+        
+        @SuppressWarnings("unchecked")
+        private static Map<String, String> resourceGrowth(SuiteReportSnapshot snapshot) {
+            Map<String, String> growth = new LinkedHashMap<>();
+            Map<String, Map<String, Map<String, Double>>> trends =
+                (Map<String, Map<String, Map<String, Double>>>) snapshot.stat("resourceTrends");
+            if (trends == null) {
+                return growth;
+            }
+            trends.forEach((scenario, fields) -> {
+                List<String> parts = new ArrayList<>();
+                Map<String, Double> heap = fields.get("jsHeapUsedBytes");
+                if (heap != null) {
+                    parts.add(String.format("heap %+.1f KB/step", heap.get("slopePerStep") / 1024));
+                }
+                Map<String, Double> nodes = fields.get("domNodes");
+                if (nodes != null) {
+                    parts.add(String.format("DOM %+.1f nodes/step", nodes.get("slopePerStep")));
+                }
+                Map<String, Double> listeners = fields.get("eventListeners");
+                if (listeners != null) {
+                    parts.add(String.format("listeners %+.1f/step", listeners.get("slopePerStep")));
+                }
+                Map<String, Double> rss = fields.get("rendererRssBytes");
+                if (rss != null) {
+                    parts.add(String.format("renderer RSS %+.1f KB/step", rss.get("slopePerStep") / 1024));
+                }
+                if (!parts.isEmpty()) {
+                    growth.put(scenario, String.join(", ", parts));
+                }
+            });
+            return growth;
+        }
+        
+        @SuppressWarnings("unchecked")
+        private static Map<String, String> outlineParameters(SuiteReportSnapshot snapshot) {
+            Map<String, String> parameters = new LinkedHashMap<>();
+            Map<String, Map<String, Object>> outlines = (Map<String, Map<String, Object>>) snapshot.stat("outlines");
+            if (outlines == null) {
+                return parameters;
+            }
+            outlines.values().forEach(outline -> {
+                Map<String, Map<String, Map<String, Object>>> byParameter =
+                    (Map<String, Map<String, Map<String, Object>>>) outline.get("parameters");
+                byParameter.forEach((name, values) -> {
+                    // A column with a single value has nothing to compare
+                    if (values.size() < 2) {
+                        return;
+                    }
+                    List<String> parts = new ArrayList<>();
+                    values.forEach((value, statistics) -> parts.add(String.format("%s %.0f ms",
+                        value, (Double) statistics.get("avgPageLoadTime"))));
+                    parameters.put(outline.get("name") + " / " + name, String.join(", ", parts));
+                });
+            });
+            return parameters;
+        }
+        
+        private static String formatBound(Object bound) {
+            return bound instanceof Double ? String.format("%.0f", (Double) bound) : "n/a";
+        }
+        
+        private static Map<String, String> suiteSummary(SuiteReportSnapshot snapshot) {
+            Map<String, String> summaryInfo = new LinkedHashMap<>();
+            summaryInfo.put("Total Scenarios", String.valueOf(snapshot.stat("totalScenarios")));
+            summaryInfo.put("Total Steps", String.valueOf(snapshot.stat("totalSteps")));
+            
+            double cacheRate = snapshot.getCacheHitRate();
+            String cacheStatus = cacheRate >= 50 ? "✅" : cacheRate >= 30 ? "⚡" : "❌";
+            summaryInfo.put("💾 Cache Hit Rate", String.format("%s %.1f%%", cacheStatus, cacheRate));
+            summaryInfo.put("🏆 Performance Grade", calculateOverallGrade(snapshot));
+            return summaryInfo;
+        }
+    }
+    
+    /**
+     * categories.json with performance threshold categories
+     */
+    private static final class CategoriesJsonWriter implements ArtifactWriter {
+        
+        @Override
+        public String name() { return "categories JSON"; }
+        
+        @Override
+        public void write(SuiteReportSnapshot snapshot, Path allureResultsDir) throws IOException {
+            StringBuilder json = new StringBuilder();
+            json.append("[\n");
+            json.append("  {\n");
+            json.append("    \"name\": \"Slow Performance\",\n");
+            json.append("    \"messageRegex\": \".*SLOW.*\",\n");
+            json.append("    \"matchedStatuses\": [\"passed\"],\n");
+            json.append("    \"description\": \"Tests with slow page load times\"\n");
+            json.append("  },\n");
+            json.append("  {\n");
+            json.append("    \"name\": \"Good Performance\",\n");
+            json.append("    \"messageRegex\": \".*Good.*\",\n");
+            json.append("    \"matchedStatuses\": [\"passed\"],\n");
+            json.append("    \"description\": \"Tests with acceptable performance\"\n");
+            json.append("  }\n");
+            json.append("]\n");
+            
+            Path categoriesFile = allureResultsDir.resolve("categories.json");
+            AtomicFiles.write(categoriesFile, json.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+    
+    /**
+     * environment.properties shown in the Allure Environment section
+     */
+    private static final class EnvironmentPropertiesWriter implements ArtifactWriter {
+        
+        @Override
+        public String name() { return "environment properties"; }
+        
+        @Override
+        public void write(SuiteReportSnapshot snapshot, Path allureResultsDir) throws IOException {
+            StringBuilder props = new StringBuilder();
+            
+            // System Info
+            props.append("# System Information\n");
+            props.append("Browser=Chrome\n");
+            props.append("OS=").append(System.getProperty("os.name")).append("\n");
+            props.append("Java.Version=").append(System.getProperty("java.version")).append("\n");
+            props.append("\n");
+            
+            // Performance Summary (This will appear in Environment section)
+            props.append("# === PERFORMANCE SUMMARY ===\n");
+            props.append(String.format("📊.Total.Scenarios=%s\n", snapshot.stat("totalScenarios")));
+            props.append(String.format("📊.Total.Steps=%s\n", snapshot.stat("totalSteps")));
+            props.append("\n");
+            props.append("# Average Metrics\n");
+            props.append(String.format("📄.Avg.Page.Load=%.0f ms\n", snapshot.average("avgPageLoadTime")));
+            props.append(String.format("🔄.Avg.DOM.Ready=%.0f ms\n", snapshot.average("avgDomReadyTime")));
+            props.append(String.format("📡.Avg.Response=%.0f ms\n", snapshot.average("avgResponseTime")));
+            props.append(String.format("⏱️.Avg.TTFB=%.0f ms\n", snapshot.average("avgTtfb")));
+            props.append(String.format("🔌.Avg.Connect=%.0f ms\n", snapshot.average("avgConnectTime")));
+            props.append(String.format("🌐.Avg.DNS.Lookup=%.0f ms\n", snapshot.average("avgDomainLookupTime")));
+            props.append("\n");
+            props.append("# Cache Statistics\n");
+            props.append(String.format("💾.Cache.Hit.Rate=%.1f%%\n", snapshot.getCacheHitRate()));
+            props.append(String.format("💾.Cached.Steps=%.0f\n", snapshot.average("cachedSteps")));
+            
+            Path envFile = allureResultsDir.resolve("environment.properties");
+            AtomicFiles.write(envFile, props.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+    
+    /**
+     * suite-performance-summary.html overview page
+     */
+    private static final class OverviewAttachmentWriter implements ArtifactWriter {
+        
+        @Override
+        public String name() { return "overview attachment"; }
+        
+        @Override
+        public void write(SuiteReportSnapshot snapshot, Path allureResultsDir) throws IOException {
+            StringBuilder html = new StringBuilder();
+            html.append("<!DOCTYPE html><html><head>");
+            html.append("<meta charset='UTF-8'>");
+            html.append("<title>Performance Summary</title>");
+            html.append("<style>");
+            html.append("body { font-family: 'Segoe UI', sans-serif; margin: 0; padding: 40px; background: linear-gradient(135deg, #667eea 0%, #764ba2 100%); }");
+            html.append(".container { background: white; border-radius: 16px; padding: 40px; box-shadow: 0 20px 60px rgba(0,0,0,0.3); max-width: 1200px; margin: 0 auto; }");
+            html.append("h1 { color: #333; text-align: center; font-size: 36px; margin-bottom: 40px; border-bottom: 4px solid #667eea; padding-bottom: 20px; }");
+            html.append(".metrics-grid { display: grid; grid-template-columns: repeat(auto-fit, minmax(250px, 1fr)); gap: 20px; margin: 30px 0; }");
+            html.append(".metric-card { background: linear-gradient(135deg, #667eea 0%, #764ba2 100%); color: white; padding: 30px; border-radius: 12px; text-align: center; box-shadow: 0 8px 16px rgba(0,0,0,0.2); transition: transform 0.3s; }");
+            html.append(".metric-card:hover { transform: translateY(-5px); }");
+            html.append(".metric-value { font-size: 48px; font-weight: bold; margin: 15px 0; }");
+            html.append(".metric-label { font-size: 14px; opacity: 0.9; text-transform: uppercase; letter-spacing: 1px; }");
+            html.append(".metric-icon { font-size: 32px; margin-bottom: 10px; }");
+            html.append(".info-section { background: #f8f9fa; padding: 20px; border-radius: 8px; margin: 20px 0; }");
+            html.append("</style>");
+            html.append("</head><body>");
+            html.append("<div class='container'>");
+            html.append("<h1>🏆 Test Suite Performance Summary</h1>");
+            
+            // Info section
+            html.append("<div class='info-section'>");
+            html.append(String.format("<p><strong>Total Scenarios:</strong> %s</p>", snapshot.stat("totalScenarios")));
+            html.append(String.format("<p><strong>Total Steps:</strong> %s</p>", snapshot.stat("totalSteps")));
+            html.append(String.format("<p><strong>Cached Steps:</strong> %.0f (%.1f%% cache hit rate)</p>",
+                snapshot.average("cachedSteps"), snapshot.getCacheHitRate()));
+            html.append("</div>");
+            
+            // Metrics grid
+            html.append("<div class='metrics-grid'>");
+            appendCard(html, "📄", "Avg Page Load Time", snapshot.average("avgPageLoadTime"));
+            appendCard(html, "🔄", "Avg DOM Ready Time", snapshot.average("avgDomReadyTime"));
+            appendCard(html, "📡", "Avg Response Time", snapshot.average("avgResponseTime"));
+            appendCard(html, "⏱️", "Avg TTFB", snapshot.average("avgTtfb"));
+            appendCard(html, "🔌", "Avg Connect Time", snapshot.average("avgConnectTime"));
+            appendCard(html, "🌐", "Avg DNS Lookup", snapshot.average("avgDomainLookupTime"));
+            html.append("</div>");
+            
+            html.append("</div>");
+            html.append("</body></html>");
+            
+            Path htmlFile = allureResultsDir.resolve("suite-performance-summary.html");
+            AtomicFiles.write(htmlFile, html.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        
+        private static void appendCard(StringBuilder html, String icon, String label, double value) {
+            html.append(String.format(
+                "<div class='metric-card'>" +
+                "<div class='metric-icon'>%s</div>" +
+                "<div class='metric-label'>%s</div>" +
+                "<div class='metric-value'>%.0f ms</div>" +
+                "</div>",
+                icon, label, value
+            ));
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.yourcompany.hooks;
+
+import com.yourcompany.utils.PerformanceStorage;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable view of the suite aggregates, captured once per report run
+ * and shared by every artifact writer
+ */
+public final class SuiteReportSnapshot {
+    
+    private final Map<String, Double> averages;
+    private final Map<String, Object> stats;
+    private final long capturedAt;
+    
+    private SuiteReportSnapshot(Map<String, Double> averages, Map<String, Object> stats, long capturedAt) {
+        this.averages = Collections.unmodifiableMap(new HashMap<>(averages));
+        this.stats = Collections.unmodifiableMap(new HashMap<>(stats));
+        this.capturedAt = capturedAt;
+    }
+    
+    /**
+     * Capture the statistics in one read; the averages are the ones embedded in
+     * them, so both views describe the same state of the suite
+     */
+    @SuppressWarnings("unchecked")
+    public static SuiteReportSnapshot capture() {
+        Map<String, Object> stats = PerformanceStorage.getStatistics();
+        return new SuiteReportSnapshot(
+            (Map<String, Double>) stats.get("averages"),
+            stats,
+            System.currentTimeMillis()
+        );
+    }
+    
+    public boolean isEmpty() { return averages.isEmpty(); }
+    
+    public Map<String, Double> getAverages() { return averages; }
+    
+    public Map<String, Object> getStats() { return stats; }
+    
+    public long getCapturedAt() { return capturedAt; }
+    
+    public double average(String key) {
+        return averages.getOrDefault(key, 0.0);
+    }
+    
+    public Object stat(String key) {
+        return stats.get(key);
+    }
+    
+    public double getCacheHitRate() {
+        double totalSteps = average("totalSteps");
+        return totalSteps > 0 ? (average("cachedSteps") / totalSteps) * 100 : 0;
+    }
+}
@@ -0,0 +1,205 @@
+package com.yourcompany.hooks;
+
+import io.cucumber.java.Scenario;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chromium.HasCdp;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Named network + CPU conditions a scenario is measured under, written
+ * {@code <network>/<cpu>}, e.g. {@code fast-3g/4x-cpu} or {@code cable/no-throttle}.
+ * Selected with a {@code @throttle:<profile>} tag or {@code performance.throttle.profile}
+ * and applied through CDP network and CPU emulation before the first step.
+ *
+ * Built-in networks are no-throttle, cable, 4g, fast-3g, slow-3g and offline; more can
+ * be defined as {@code performance.throttle.network.<name>=<latency ms>,<down kbps>,<up kbps>}.
+ * The CPU part is {@code no-throttle} or {@code <N>x-cpu} with N at least 1 (CDP rejects lower rates).
+ */
+public class ThrottlingProfile {
+    
+    /**
+     * Minimal CDP command channel, so profiles can be applied to a stub in tests
+     */
+    @FunctionalInterface
+    public interface DevToolsSession {
+        
+        void send(String method, Map<String, Object> params);
+        
+        /**
+         * Session over the driver's CDP connection, or null if the driver has none
+         */
+        static DevToolsSession of(WebDriver driver) {
+            if (!(driver instanceof HasCdp)) {
+                return null;
+            }
+            return (method, params) -> ((HasCdp) driver).executeCdpCommand(method, params);
+        }
+    }
+    
+    public static final ThrottlingProfile NONE = new ThrottlingProfile("no-throttle/no-throttle", 0, -1, -1, 1, false);
+    
+    // {latency ms, download kbps, upload kbps}; -1 throughput disables the limit
+    private static final Map<String, double[]> NETWORKS = new HashMap<>();
+    
+    static {
+        NETWORKS.put("no-throttle", new double[] {0, -1, -1});
+        NETWORKS.put("cable", new double[] {28, 5000, 1000});
+        NETWORKS.put("4g", new double[] {170, 9000, 9000});
+        NETWORKS.put("fast-3g", new double[] {562.5, 1440, 675});
+        NETWORKS.put("slow-3g", new double[] {2000, 400, 400});
+        NETWORKS.put("offline", new double[] {0, 0, 0});
+    }
+    
+    // Profile currently applied to each driver, so unthrottled scenarios reset a reused browser
+    private static final Map<WebDriver, ThrottlingProfile> appliedProfiles = Collections.synchronizedMap(new WeakHashMap<>());
+    
+    private final String name;
+    private final double latencyMillis;
+    private final double downloadKbps;
+    private final double uploadKbps;
+    private final double cpuRate;
+    private final boolean offline;
+    
+    ThrottlingProfile(String name, double latencyMillis, double downloadKbps, double uploadKbps, double cpuRate, boolean offline) {
+        this.name = name;
+        this.latencyMillis = latencyMillis;
+        this.downloadKbps = downloadKbps;
+        this.uploadKbps = uploadKbps;
+        this.cpuRate = cpuRate;
+        this.offline = offline;
+    }
+    
+    /**
+     * Parse a {@code <network>/<cpu>} profile name; the CPU part defaults to no-throttle
+     */
+    public static ThrottlingProfile parse(String profileName) {
+        String[] parts = profileName.trim().split("/", 2);
+        String network = parts[0];
+        String cpu = parts.length > 1 ? parts[1] : "no-throttle";
+        
+        double[] conditions = networkConditions(network);
+        if (conditions == null) {
+            throw new IllegalArgumentException("Unknown network profile: " + network);
+        }
+        
+        double cpuRate;
+        if (cpu.equals("no-throttle")) {
+            cpuRate = 1;
+        } else if (cpu.endsWith("x-cpu")) {
+            cpuRate = Double.parseDouble(cpu.substring(0, cpu.length() - "x-cpu".length()));
+            if (!(cpuRate >= 1)) {
+                throw new IllegalArgumentException("CPU slowdown must be at least 1x: " + cpu);
+            }
+        } else {
+            throw new IllegalArgumentException("Unknown CPU profile: " + cpu);
+        }
+        
+        return new ThrottlingProfile(network + "/" + cpu, conditions[0], conditions[1], conditions[2], cpuRate,
+            network.equals("offline"));
+    }
+    
+    private static double[] networkConditions(String network) {
+        String custom = System.getProperty("performance.throttle.network." + network);
+        if (custom != null) {
+            String[] values = custom.split(",");
+            if (values.length != 3) {
+                throw new IllegalArgumentException("performance.throttle.network." + network
+                    + " must be <latency ms>,<down kbps>,<up kbps>: " + custom);
+            }
+            return new double[] {
+                Double.parseDouble(values[0].trim()),
+                Double.parseDouble(values[1].trim()),
+                Double.parseDouble(values[2].trim())
+            };
+        }
+        return NETWORKS.get(network);
+    }
+    
+    /**
+     * Profile from a {@code @throttle:<profile>} tag, else {@code performance.throttle.profile}, else null
+     */
+    public static ThrottlingProfile forScenario(Scenario scenario) {
+        String selected = System.getProperty("performance.throttle.profile");
+        for (String tag : scenario.getSourceTagNames()) {
+            if (tag.startsWith("@throttle:")) {
+                selected = tag.substring("@throttle:".length());
+            }
+        }
+        if (selected == null || selected.isEmpty()) {
+            return null;
+        }
+        try {
+            return parse(selected);
+        } catch (IllegalArgumentException e) {
+            scenario.log("⚠️ Invalid throttling profile '" + selected + "': " + e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Bring the driver to {@code profile} (null = unthrottled) if it is not already there.
+     * Returns false when the driver has no CDP session to throttle through.
+     */
+    public static boolean applyTo(WebDriver driver, ThrottlingProfile profile) {
+        return applyTo(driver, profile, DevToolsSession.of(driver));
+    }
+    
+    /**
+     * {@link #applyTo(WebDriver, ThrottlingProfile)} through the given session (null if the driver has none)
+     */
+    static boolean applyTo(WebDriver driver, ThrottlingProfile profile, DevToolsSession session) {
+        ThrottlingProfile current = appliedProfiles.get(driver);
+        ThrottlingProfile target = profile != null ? profile : (current != null ? NONE : null);
+        if (target == null || target.equals(current)) {
+            return true;
+        }
+        
+        if (session == null) {
+            return false;
+        }
+        target.apply(session);
+        appliedProfiles.put(driver, target);
+        return true;
+    }
+    
+    /**
+     * Send the emulation commands for this profile
+     */
+    public void apply(DevToolsSession session) {
+        session.send("Network.enable", Collections.emptyMap());
+        
+        Map<String, Object> network = new LinkedHashMap<>();
+        network.put("offline", offline);
+        network.put("latency", latencyMillis);
+        // CDP takes bytes per second
+        network.put("downloadThroughput", downloadKbps < 0 ? -1 : downloadKbps * 1024 / 8);
+        network.put("uploadThroughput", uploadKbps < 0 ? -1 : uploadKbps * 1024 / 8);
+        session.send("Network.emulateNetworkConditions", network);
+        
+        session.send("Emulation.setCPUThrottlingRate", Collections.singletonMap("rate", cpuRate));
+    }
+    
+    public String getName() { return name; }
+    
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof ThrottlingProfile && name.equals(((ThrottlingProfile) other).name);
+    }
+    
+    @Override
+    public int hashCode() {
+        return name.hashCode();
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("%s (latency %.0f ms, down %s, up %s, CPU %.0fx)", name, latencyMillis,
+            downloadKbps < 0 ? "unlimited" : String.format("%.0f kbps", downloadKbps),
+            uploadKbps < 0 ? "unlimited" : String.format("%.0f kbps", uploadKbps), cpuRate);
+    }
+}
@@ -0,0 +1,117 @@
+package com.yourcompany.hooks;
+
+import org.junit.Test;
+import org.openqa.selenium.WebDriver;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Applies {@link ThrottlingProfile}s to a stub DevTools session, no browser needed
+ */
+public class ThrottlingProfileTest {
+    
+    private final List<String> methods = new ArrayList<>();
+    private final List<Map<String, Object>> params = new ArrayList<>();
+    
+    private final ThrottlingProfile.DevToolsSession session = (method, parameters) -> {
+        methods.add(method);
+        params.add(parameters);
+    };
+    
+    private static WebDriver stubDriver() {
+        return (WebDriver) Proxy.newProxyInstance(WebDriver.class.getClassLoader(), new Class<?>[] {WebDriver.class},
+            (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "equals":
+                        return proxy == args[0];
+                    default:
+                        return null;
+                }
+            });
+    }
+    
+    @Test
+    public void profileSendsNetworkAndCpuEmulation() {
+        ThrottlingProfile.parse("fast-3g/4x-cpu").apply(session);
+        
+        assertEquals(List.of("Network.enable", "Network.emulateNetworkConditions", "Emulation.setCPUThrottlingRate"), methods);
+        Map<String, Object> network = params.get(1);
+        assertEquals(false, network.get("offline"));
+        assertEquals(562.5, network.get("latency"));
+        // kbps converted to bytes per second
+        assertEquals(1440 * 1024 / 8.0, network.get("downloadThroughput"));
+        assertEquals(675 * 1024 / 8.0, network.get("uploadThroughput"));
+        assertEquals(4.0, params.get(2).get("rate"));
+    }
+    
+    @Test
+    public void applyToSkipsTheAppliedProfileAndResetsToNone() {
+        WebDriver driver = stubDriver();
+        ThrottlingProfile slow = ThrottlingProfile.parse("slow-3g/2x-cpu");
+        
+        // Nothing applied yet and nothing requested: no commands
+        assertTrue(ThrottlingProfile.applyTo(driver, null, session));
+        assertTrue(methods.isEmpty());
+        
+        assertTrue(ThrottlingProfile.applyTo(driver, slow, session));
+        assertEquals(3, methods.size());
+        assertTrue(ThrottlingProfile.applyTo(driver, ThrottlingProfile.parse("slow-3g/2x-cpu"), session));
+        assertEquals(3, methods.size());
+        
+        // An unthrottled scenario on the same driver resets it once
+        assertTrue(ThrottlingProfile.applyTo(driver, null, session));
+        assertEquals(6, methods.size());
+        assertEquals(-1.0, params.get(4).get("downloadThroughput"));
+        assertEquals(-1.0, params.get(4).get("uploadThroughput"));
+        assertEquals(0.0, params.get(4).get("latency"));
+        assertEquals(1.0, params.get(5).get("rate"));
+        assertTrue(ThrottlingProfile.applyTo(driver, null, session));
+        assertEquals(6, methods.size());
+    }
+    
+    @Test
+    public void driverWithoutSessionIsReported() {
+        assertFalse(ThrottlingProfile.applyTo(stubDriver(), ThrottlingProfile.parse("cable"), null));
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void malformedCustomNetworkIsRejected() {
+        System.setProperty("performance.throttle.network.broken", "100,2000");
+        try {
+            ThrottlingProfile.parse("broken/no-throttle");
+        } finally {
+            System.clearProperty("performance.throttle.network.broken");
+        }
+    }
+    
+    @Test
+    public void customNetworkIsParsed() {
+        System.setProperty("performance.throttle.network.lab", "40, 800, 400");
+        try {
+            ThrottlingProfile.parse("lab/no-throttle").apply(session);
+        } finally {
+            System.clearProperty("performance.throttle.network.lab");
+        }
+        assertEquals(40.0, params.get(1).get("latency"));
+        assertEquals(800 * 1024 / 8.0, params.get(1).get("downloadThroughput"));
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void cpuRateBelowOneIsRejected() {
+        ThrottlingProfile.parse("cable/0x-cpu");
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownNetworkIsRejected() {
+        ThrottlingProfile.parse("dial-up/no-throttle");
+    }
+}
@@ -0,0 +1,61 @@
+package com.yourcompany.utils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Bounded min-heap keeping the K highest-scored items seen so far.
+ * Each offer is O(log K); memory stays at K entries however many items arrive.
+ */
+public class TopKTracker<T> {
+    
+    private final int capacity;
+    private final PriorityQueue<Entry<T>> heap;
+    
+    public TopKTracker(int capacity) {
+        this.capacity = capacity;
+        this.heap = new PriorityQueue<>(Math.max(1, capacity), Comparator.comparingDouble(e -> e.score));
+    }
+    
+    public synchronized void offer(T item, double score) {
+        if (capacity <= 0) {
+            return;
+        }
+        if (heap.size() < capacity) {
+            heap.add(new Entry<>(item, score));
+        } else if (score > heap.peek().score) {
+            heap.poll();
+            heap.add(new Entry<>(item, score));
+        }
+    }
+    
+    /**
+     * Items ordered from highest to lowest score
+     */
+    public synchronized List<T> snapshot() {
+        List<Entry<T>> entries = new ArrayList<>(heap);
+        entries.sort((a, b) -> Double.compare(b.score, a.score));
+        
+        List<T> items = new ArrayList<>(entries.size());
+        for (Entry<T> entry : entries) {
+            items.add(entry.item);
+        }
+        return items;
+    }
+    
+    public synchronized void clear() {
+        heap.clear();
+    }
+    
+    private static final class Entry<T> {
+        private final T item;
+        private final double score;
+        
+        Entry(T item, double score) {
+            this.item = item;
+            this.score = score;
+        }
+    }
+}
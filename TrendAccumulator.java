@@ -0,0 +1,52 @@
+package com.yourcompany.utils;
+
+/**
+ * Streaming least-squares fit of y against x. Keeps centred running moments,
+ * so the slope stays accurate for large values (heap sizes in bytes) without
+ * storing the points.
+ */
+public class TrendAccumulator {
+    
+    private long count;
+    private double meanX;
+    private double meanY;
+    private double sumSquaresX;
+    private double sumCoProducts;
+    private double firstY;
+    private double lastY;
+    
+    public synchronized void add(double x, double y) {
+        if (count == 0) {
+            firstY = y;
+        }
+        lastY = y;
+        count++;
+        double dx = x - meanX;
+        meanX += dx / count;
+        meanY += (y - meanY) / count;
+        sumSquaresX += dx * (x - meanX);
+        sumCoProducts += dx * (y - meanY);
+    }
+    
+    public synchronized long getCount() { return count; }
+    
+    /**
+     * Change in y per unit of x, or 0 with fewer than two distinct x values
+     */
+    public synchronized double getSlope() {
+        return sumSquaresX > 0 ? sumCoProducts / sumSquaresX : 0;
+    }
+    
+    public synchronized double getIntercept() {
+        return meanY - getSlope() * meanX;
+    }
+    
+    public synchronized double getFirst() { return firstY; }
+    
+    public synchronized double getLast() { return lastY; }
+    
+    public synchronized void reset() {
+        count = 0;
+        meanX = meanY = sumSquaresX = sumCoProducts = firstY = lastY = 0;
+    }
+}
@@ -0,0 +1,290 @@
+package com.yourcompany.hooks;
+
+import com.yourcompany.utils.PerformanceMetrics;
+import com.yourcompany.utils.PerformanceStorage;
+import io.cucumber.core.options.CommandlineOptionsParser;
+import io.cucumber.core.options.CucumberProperties;
+import io.cucumber.core.options.CucumberPropertiesParser;
+import io.cucumber.core.options.RuntimeOptions;
+import io.cucumber.core.options.RuntimeOptionsBuilder;
+import io.cucumber.core.runtime.Runtime;
+import org.openqa.selenium.WebDriver;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Runs a measured browser session with many concurrent WebDriver sessions,
+ * following a {@link LoadProfile}. Each virtual user owns one driver from the
+ * factory and repeats the session body while the schedule wants it active.
+ * Every recorded metric carries the concurrency level at the time it was taken.
+ *
+ * The driver factory and session body are plain functions, so the scheduler
+ * can be exercised with a stub WebDriver and no browser. A user whose driver
+ * cannot be created counts as a failed user.
+ *
+ * {@code @load} scenarios use {@link #replay}: after the scenario has passed once,
+ * each virtual user re-runs it through an embedded Cucumber runtime on its own
+ * thread, so the project's hooks open one browser session per user. Metrics
+ * recorded on a virtual-user thread are tagged via {@link #currentConcurrencyLevel()}.
+ */
+public class VirtualUserLoadRunner {
+    
+    /**
+     * One iteration of a virtual user's work
+     */
+    @FunctionalInterface
+    public interface VirtualUserSession {
+        void run(VirtualUserContext context) throws Exception;
+    }
+    
+    /**
+     * Per-iteration handle passed to the session body
+     */
+    public final class VirtualUserContext {
+        
+        private final WebDriver driver;
+        private final int userId;
+        private final int iteration;
+        
+        private VirtualUserContext(WebDriver driver, int userId, int iteration) {
+            this.driver = driver;
+            this.userId = userId;
+            this.iteration = iteration;
+        }
+        
+        public WebDriver getDriver() { return driver; }
+        
+        public int getUserId() { return userId; }
+        
+        public int getIteration() { return iteration; }
+        
+        /**
+         * Tag the metrics with the current concurrency level and hand them to the sink
+         */
+        public void record(PerformanceMetrics metrics) {
+            metrics.setConcurrencyLevel(activeUsers.get());
+            metricsSink.accept(metrics);
+            recordedMetrics.incrementAndGet();
+        }
+    }
+    
+    // Runner driving the current thread, set only on virtual-user threads
+    private static final ThreadLocal<VirtualUserLoadRunner> CURRENT = new ThreadLocal<>();
+    
+    private final long tickMillis;
+    private final Consumer<PerformanceMetrics> metricsSink;
+    
+    private final AtomicInteger targetUsers = new AtomicInteger();
+    private final AtomicInteger activeUsers = new AtomicInteger();
+    private final AtomicInteger peakUsers = new AtomicInteger();
+    private final AtomicLong iterations = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicInteger failedUsers = new AtomicInteger();
+    private final AtomicLong recordedMetrics = new AtomicLong();
+    
+    public VirtualUserLoadRunner() {
+        this(100, PerformanceStorage::addMetrics);
+    }
+    
+    public VirtualUserLoadRunner(long tickMillis, Consumer<PerformanceMetrics> metricsSink) {
+        this.tickMillis = tickMillis;
+        this.metricsSink = metricsSink;
+    }
+    
+    /**
+     * True on a virtual-user thread (e.g. inside a replayed scenario)
+     */
+    public static boolean isVirtualUser() {
+        return CURRENT.get() != null;
+    }
+    
+    /**
+     * Active virtual users of the runner driving this thread, or 0 outside load mode
+     */
+    public static int currentConcurrencyLevel() {
+        VirtualUserLoadRunner runner = CURRENT.get();
+        return runner != null ? runner.activeUsers.get() : 0;
+    }
+    
+    // Reporting options that must not reach a replay: every iteration would add a test result
+    private static final List<String> REPORTING_PROPERTIES = List.of(
+        "cucumber.plugin", "cucumber.publish.enabled", "cucumber.publish.token",
+        "cucumber.publish.url", "cucumber.publish.proxy", "cucumber.publish.quiet");
+    
+    /**
+     * Session body that re-runs one scenario ({@code uri:line}) through an embedded
+     * Cucumber runtime on the calling thread. Glue packages come from
+     * {@code performance.load.glue} (comma separated, default {@code com.yourcompany});
+     * a run that does not pass counts as a failed iteration.
+     *
+     * The runtime takes the cucumber.properties, environment and system property
+     * configuration (object factory, glue, filters) without any plugin, so
+     * replays add no Allure results, reports or publish requests.
+     */
+    public static VirtualUserSession replay(URI featureUri, int line) {
+        List<String> arguments = new ArrayList<>();
+        for (String glue : System.getProperty("performance.load.glue", "com.yourcompany").split(",")) {
+            if (!glue.trim().isEmpty()) {
+                arguments.add("--glue");
+                arguments.add(glue.trim());
+            }
+        }
+        arguments.add("--monochrome");
+        arguments.add(featureUri + ":" + line);
+        String[] argv = arguments.toArray(new String[0]);
+        
+        return context -> {
+            ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+            Runtime runtime = Runtime.builder()
+                .withRuntimeOptions(replayOptions(argv))
+                .withClassLoader(() -> classLoader)
+                .build();
+            runtime.run();
+            byte status = runtime.exitStatus();
+            if (status != 0) {
+                throw new IllegalStateException("Replayed scenario " + featureUri + ":" + line + " exited with status " + status);
+            }
+        };
+    }
+    
+    /**
+     * Options as the command line runtime builds them, minus reporting plugins and publishing
+     */
+    static RuntimeOptions replayOptions(String[] argv) {
+        RuntimeOptions inherited = null;
+        for (Map<String, String> source : List.of(CucumberProperties.fromPropertiesFile(),
+                CucumberProperties.fromEnvironment(), CucumberProperties.fromSystemProperties())) {
+            Map<String, String> properties = new HashMap<>(source);
+            properties.keySet().removeAll(REPORTING_PROPERTIES);
+            properties.put("cucumber.publish.quiet", "true");
+            RuntimeOptionsBuilder builder = new CucumberPropertiesParser().parse(properties);
+            inherited = inherited == null ? builder.build() : builder.build(inherited);
+        }
+        return new CommandlineOptionsParser(System.out).parse(argv)
+            .addDefaultGlueIfAbsent()
+            .addDefaultFeaturePathIfAbsent()
+            .setPublishQuiet(true)
+            .build(inherited);
+    }
+    
+    /**
+     * Run the schedule with sessions that open their own browser (no driver from the runner)
+     */
+    public void run(LoadProfile profile, VirtualUserSession session) throws InterruptedException {
+        run(profile, () -> null, session);
+    }
+    
+    /**
+     * Run the schedule to completion and wait for in-flight iterations to finish
+     */
+    public void run(LoadProfile profile, Supplier<WebDriver> driverFactory, VirtualUserSession session)
+            throws InterruptedException {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+            profile.getUsers(), profile.getUsers(), 0L, TimeUnit.MILLISECONDS,
+            new SynchronousQueue<>(),
+            runnable -> {
+                Thread thread = new Thread(runnable, "virtual-user");
+                thread.setDaemon(true);
+                return thread;
+            });
+        
+        System.out.println("🔄 Starting virtual-user load: " + profile);
+        
+        long start = System.nanoTime();
+        int startedUsers = 0;
+        try {
+            while (true) {
+                long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                if (elapsed >= profile.getTotalMillis()) {
+                    break;
+                }
+                int target = profile.targetUsersAt(elapsed);
+                targetUsers.set(target);
+                
+                while (startedUsers < target) {
+                    int userId = startedUsers++;
+                    executor.execute(() -> runUser(userId, driverFactory, session));
+                }
+                Thread.sleep(tickMillis);
+            }
+        } finally {
+            targetUsers.set(0);
+            shutdown(executor);
+        }
+        
+        System.out.println(String.format("✅ Virtual-user load finished: %d iterations, %d metrics, %d errors, %d failed users, peak %d users",
+            iterations.get(), recordedMetrics.get(), errors.get(), failedUsers.get(), peakUsers.get()));
+    }
+    
+    private void runUser(int userId, Supplier<WebDriver> driverFactory, VirtualUserSession session) {
+        // Users above the current target (ramp-down) finish their iteration and leave
+        if (userId >= targetUsers.get()) {
+            return;
+        }
+        WebDriver driver;
+        try {
+            driver = driverFactory.get();
+        } catch (RuntimeException e) {
+            failedUsers.incrementAndGet();
+            errors.incrementAndGet();
+            System.err.println("❌ Virtual user " + userId + " could not start a session: " + e.getMessage());
+            return;
+        }
+        CURRENT.set(this);
+        peakUsers.accumulateAndGet(activeUsers.incrementAndGet(), Math::max);
+        try {
+            int iteration = 0;
+            while (userId < targetUsers.get() && !Thread.currentThread().isInterrupted()) {
+                try {
+                    session.run(new VirtualUserContext(driver, userId, iteration++));
+                    iterations.incrementAndGet();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (Exception e) {
+                    errors.incrementAndGet();
+                    System.err.println("❌ Virtual user " + userId + " iteration failed: " + e.getMessage());
+                }
+            }
+        } finally {
+            activeUsers.decrementAndGet();
+            CURRENT.remove();
+            if (driver != null) {
+                try {
+                    driver.quit();
+                } catch (Exception e) {
+                    System.err.println("❌ Error closing virtual user " + userId + " driver: " + e.getMessage());
+                }
+            }
+        }
+    }
+    
+    private static void shutdown(ExecutorService executor) throws InterruptedException {
+        executor.shutdown();
+        long timeout = Long.getLong("performance.load.drainSec", 120L);
+        if (!executor.awaitTermination(timeout, TimeUnit.SECONDS)) {
+            executor.shutdownNow();
+        }
+    }
+    
+    public long getIterations() { return iterations.get(); }
+    
+    public long getErrors() { return errors.get(); }
+    
+    public int getFailedUsers() { return failedUsers.get(); }
+    
+    public long getRecordedMetrics() { return recordedMetrics.get(); }
+    
+    public int getPeakUsers() { return peakUsers.get(); }
+}
@@ -0,0 +1,179 @@
+package com.yourcompany.hooks;
+
+import com.yourcompany.utils.PerformanceMetrics;
+import org.junit.Test;
+import org.openqa.selenium.WebDriver;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Drives {@link VirtualUserLoadRunner} with stub WebDriver sessions, no browser needed
+ */
+public class VirtualUserLoadRunnerTest {
+    
+    private final Set<WebDriver> openDrivers = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger createdDrivers = new AtomicInteger();
+    
+    private WebDriver stubDriver() {
+        createdDrivers.incrementAndGet();
+        WebDriver[] self = new WebDriver[1];
+        self[0] = (WebDriver) Proxy.newProxyInstance(WebDriver.class.getClassLoader(), new Class<?>[] {WebDriver.class},
+            (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "quit":
+                        openDrivers.remove(self[0]);
+                        return null;
+                    case "getCurrentUrl":
+                        return "https://example.test/orders/1";
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "equals":
+                        return proxy == args[0];
+                    default:
+                        return null;
+                }
+            });
+        openDrivers.add(self[0]);
+        return self[0];
+    }
+    
+    @Test
+    public void everyUserGetsItsOwnSessionAndQuitsIt() throws InterruptedException {
+        List<PerformanceMetrics> recorded = new CopyOnWriteArrayList<>();
+        Set<WebDriver> usedDrivers = ConcurrentHashMap.newKeySet();
+        // Users hold their first iteration until all three are in, so the peak does not depend on timing
+        CountDownLatch allActive = new CountDownLatch(3);
+        VirtualUserLoadRunner runner = new VirtualUserLoadRunner(5, recorded::add);
+        
+        runner.run(new LoadProfile(3, 30, 200, 0), this::stubDriver, context -> {
+            if (context.getIteration() == 0) {
+                allActive.countDown();
+                allActive.await(5, TimeUnit.SECONDS);
+            }
+            usedDrivers.add(context.getDriver());
+            PerformanceMetrics metrics = new PerformanceMetrics();
+            metrics.setPageLoadTime(100);
+            context.record(metrics);
+            Thread.sleep(10);
+        });
+        
+        assertEquals(3, createdDrivers.get());
+        assertEquals(3, usedDrivers.size());
+        assertTrue("drivers left open: " + openDrivers.size(), openDrivers.isEmpty());
+        assertEquals(3, runner.getPeakUsers());
+        assertEquals(0, runner.getErrors());
+        assertEquals(recorded.size(), runner.getRecordedMetrics());
+        assertTrue(recorded.size() > 3);
+        for (PerformanceMetrics metrics : recorded) {
+            assertTrue(metrics.getConcurrencyLevel() >= 1 && metrics.getConcurrencyLevel() <= 3);
+        }
+    }
+    
+    @Test
+    public void driverFactoryFailureCountsAsFailedUser() throws InterruptedException {
+        AtomicInteger attempts = new AtomicInteger();
+        Supplier<WebDriver> flakyFactory = () -> {
+            if (attempts.incrementAndGet() == 2) {
+                throw new IllegalStateException("session not created");
+            }
+            return stubDriver();
+        };
+        VirtualUserLoadRunner runner = new VirtualUserLoadRunner(5, metrics -> { });
+        
+        runner.run(new LoadProfile(3, 30, 300, 0), flakyFactory, context -> Thread.sleep(10));
+        
+        assertEquals(1, runner.getFailedUsers());
+        assertEquals(1, runner.getErrors());
+        assertTrue(runner.getPeakUsers() >= 1 && runner.getPeakUsers() <= 2);
+        assertTrue(openDrivers.isEmpty());
+        assertTrue(runner.getIterations() > 0);
+    }
+    
+    @Test
+    public void failingIterationsAreCountedAndTheUserCarriesOn() throws InterruptedException {
+        AtomicInteger calls = new AtomicInteger();
+        VirtualUserLoadRunner runner = new VirtualUserLoadRunner(5, metrics -> { });
+        
+        runner.run(new LoadProfile(1, 0, 100, 0), this::stubDriver, context -> {
+            Thread.sleep(5);
+            if (calls.incrementAndGet() % 2 == 0) {
+                throw new IllegalStateException("step failed");
+            }
+        });
+        
+        assertTrue(runner.getErrors() > 0);
+        assertTrue(runner.getIterations() > 0);
+        assertEquals(calls.get(), runner.getIterations() + runner.getErrors());
+        assertEquals(0, runner.getFailedUsers());
+    }
+    
+    @Test
+    public void concurrencyLevelIsVisibleOnlyOnVirtualUserThreads() throws InterruptedException {
+        List<Integer> levels = new CopyOnWriteArrayList<>();
+        List<Boolean> virtualUser = new CopyOnWriteArrayList<>();
+        VirtualUserLoadRunner runner = new VirtualUserLoadRunner(5, metrics -> { });
+        
+        runner.run(new LoadProfile(2, 0, 60, 0), context -> {
+            assertEquals(null, context.getDriver());
+            levels.add(VirtualUserLoadRunner.currentConcurrencyLevel());
+            virtualUser.add(VirtualUserLoadRunner.isVirtualUser());
+            Thread.sleep(5);
+        });
+        
+        assertFalse(levels.isEmpty());
+        assertTrue(virtualUser.stream().allMatch(Boolean::booleanValue));
+        assertTrue(levels.stream().allMatch(level -> level >= 1 && level <= 2));
+        assertFalse(VirtualUserLoadRunner.isVirtualUser());
+        assertEquals(0, VirtualUserLoadRunner.currentConcurrencyLevel());
+    }
+    
+    @Test
+    public void replayRunsNoReportingPlugins() throws Exception {
+        Path directory = Files.createTempDirectory("replay-");
+        Path reports = Files.createDirectories(directory.resolve("reports"));
+        Path feature = directory.resolve("replay.feature");
+        Files.write(feature, "Feature: Replay\n\n  Scenario: Empty\n".getBytes(StandardCharsets.UTF_8));
+        
+        System.setProperty("cucumber.plugin", "json:" + reports.resolve("cucumber.json")
+            + ", io.qameta.allure.cucumber7jvm.AllureCucumber7Jvm");
+        System.setProperty("cucumber.publish.enabled", "true");
+        System.setProperty("performance.load.glue", "com.yourcompany.hooks.noglue");
+        String allureResults = System.setProperty("allure.results.directory", reports.toString());
+        try {
+            VirtualUserLoadRunner.replay(feature.toUri(), 3).run(null);
+        } finally {
+            System.clearProperty("cucumber.plugin");
+            System.clearProperty("cucumber.publish.enabled");
+            System.clearProperty("performance.load.glue");
+            if (allureResults != null) {
+                System.setProperty("allure.results.directory", allureResults);
+            } else {
+                System.clearProperty("allure.results.directory");
+            }
+        }
+        
+        assertEquals(0, countFiles(reports));
+    }
+    
+    private static long countFiles(Path directory) throws IOException {
+        try (java.util.stream.Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+}
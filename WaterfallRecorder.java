@@ -0,0 +1,136 @@
+package com.yourcompany.hooks;
+
+import com.yourcompany.utils.PerformanceMetrics;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects the waterfall of one scenario: a row per step (the phases of the
+ * document it loaded, if any) and a row per resource entry, all on the browser
+ * clock of the measurement agent. Bars are kept in parallel primitive arrays and
+ * exported as little-endian typed-array payloads, so scenarios with thousands of
+ * resources stay compact in memory and in the attachment.
+ *
+ * The recorder lives in a thread local between the scenario hooks, which start
+ * and finish it, and the step hooks, which add to it.
+ */
+public class WaterfallRecorder {
+    
+    /** Bar category of resource entries; navigation phases use {@link NavigationPhases.Kind#ordinal()} */
+    public static final int RESOURCE = NavigationPhases.Kind.values().length;
+    
+    private static final ThreadLocal<WaterfallRecorder> CURRENT = new ThreadLocal<>();
+    
+    private final long origin;
+    private final List<String> rowLabels = new ArrayList<>();
+    private int[] rows = new int[256];
+    private float[] starts = new float[256];
+    private float[] durations = new float[256];
+    private byte[] categories = new byte[256];
+    private int size = 0;
+    
+    private WaterfallRecorder(long origin) {
+        this.origin = origin;
+    }
+    
+    public static boolean isEnabled() {
+        return Boolean.parseBoolean(System.getProperty("performance.waterfall.enabled", "true"));
+    }
+    
+    /**
+     * Start recording for the scenario running on this thread; offsets are relative to {@code scenarioStartMillis}
+     */
+    public static WaterfallRecorder start(long scenarioStartMillis) {
+        WaterfallRecorder recorder = new WaterfallRecorder(scenarioStartMillis);
+        CURRENT.set(recorder);
+        return recorder;
+    }
+    
+    /**
+     * Recorder of the current scenario, or null when the waterfall is disabled
+     */
+    public static WaterfallRecorder current() {
+        return CURRENT.get();
+    }
+    
+    /**
+     * Detach and return the current recorder (null if none was started)
+     */
+    public static WaterfallRecorder finish() {
+        WaterfallRecorder recorder = CURRENT.get();
+        CURRENT.remove();
+        return recorder;
+    }
+    
+    /**
+     * Add a step row with the navigation phases of its flush. A step that did not load a
+     * document (SPA route change) gets a row without phases; its resources follow it.
+     */
+    public void addStep(PerformanceMetrics metrics, PageMeasurementAgent.Flush flush) {
+        String label = metrics.getRoute() != null
+            ? metrics.getStepName() + " " + metrics.getRoute()
+            : metrics.getStepName();
+        int row = newRow(label);
+        for (NavigationPhases.Phase phase : flush.getNavigationPhases()) {
+            addBar(row, phase.getStart(), phase.getEnd() - phase.getStart(), phase.getKind().ordinal());
+        }
+    }
+    
+    public void addResource(String label, double startEpochMillis, double durationMillis) {
+        addBar(newRow(label), startEpochMillis, durationMillis, RESOURCE);
+    }
+    
+    private int newRow(String label) {
+        rowLabels.add(label);
+        return rowLabels.size() - 1;
+    }
+    
+    private void addBar(int row, double startEpochMillis, double durationMillis, int category) {
+        if (size == rows.length) {
+            int capacity = size * 2;
+            rows = Arrays.copyOf(rows, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            durations = Arrays.copyOf(durations, capacity);
+            categories = Arrays.copyOf(categories, capacity);
+        }
+        rows[size] = row;
+        starts[size] = (float) (startEpochMillis - origin);
+        durations[size] = (float) Math.max(0, durationMillis);
+        categories[size] = (byte) category;
+        size++;
+    }
+    
+    public int getRowCount() { return rowLabels.size(); }
+    
+    public int getBarCount() { return size; }
+    
+    /**
+     * Row labels plus base64 Int32/Float32/Float32/Uint8 arrays (row, start, duration, category)
+     */
+    public Map<String, Object> toPayload() {
+        ByteBuffer rowBytes = ByteBuffer.allocate(size * 4).order(ByteOrder.LITTLE_ENDIAN);
+        ByteBuffer startBytes = ByteBuffer.allocate(size * 4).order(ByteOrder.LITTLE_ENDIAN);
+        ByteBuffer durationBytes = ByteBuffer.allocate(size * 4).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < size; i++) {
+            rowBytes.putInt(rows[i]);
+            startBytes.putFloat(starts[i]);
+            durationBytes.putFloat(durations[i]);
+        }
+        
+        Base64.Encoder encoder = Base64.getEncoder();
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("labels", rowLabels);
+        payload.put("rows", encoder.encodeToString(rowBytes.array()));
+        payload.put("starts", encoder.encodeToString(startBytes.array()));
+        payload.put("durations", encoder.encodeToString(durationBytes.array()));
+        payload.put("categories", encoder.encodeToString(Arrays.copyOf(categories, size)));
+        return payload;
+    }
+}
@@ -0,0 +1,192 @@
+package com.yourcompany.hooks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Renders a {@link WaterfallRecorder} as a self-contained HTML timeline.
+ * The data is embedded once as typed-array payloads and drawn on a canvas;
+ * only the rows and bars inside the visible viewport are painted, so the
+ * attachment opens instantly regardless of the number of resources.
+ *
+ * Scroll to move through rows, Ctrl + wheel to zoom time, Shift + wheel or drag to pan.
+ */
+public final class WaterfallReport {
+    
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    
+    private WaterfallReport() {
+    }
+    
+    public static String render(String scenarioName, WaterfallRecorder recorder) throws JsonProcessingException {
+        // Keep "</script>" inside strings from closing the data block
+        String payload = MAPPER.writeValueAsString(recorder.toPayload()).replace("</", "<\\/");
+        
+        StringBuilder html = new StringBuilder();
+        html.append("<!DOCTYPE html><html><head>");
+        html.append("<meta charset='UTF-8'>");
+        html.append("<style>");
+        html.append("body { font-family: 'Segoe UI', sans-serif; margin: 0; padding: 16px; background: #f5f7fa; }");
+        html.append("h1 { color: #1e3c72; font-size: 18px; margin: 0 0 8px 0; }");
+        html.append(".legend span { display: inline-block; margin-right: 14px; font-size: 12px; }");
+        html.append(".legend i { display: inline-block; width: 12px; height: 12px; margin-right: 4px; vertical-align: middle; border-radius: 2px; }");
+        html.append("#viewport { position: relative; height: 600px; overflow-y: auto; background: white; border: 1px solid #dde3ea; border-radius: 6px; margin-top: 8px; }");
+        html.append("#canvas { position: sticky; top: 0; display: block; }");
+        html.append("#tooltip { position: fixed; pointer-events: none; background: rgba(30,60,114,0.95); color: white; font-size: 12px; padding: 6px 8px; border-radius: 4px; display: none; white-space: nowrap; }");
+        html.append("</style>");
+        html.append("</head><body>");
+        html.append("<h1>🌊 ").append(escape(scenarioName)).append("</h1>");
+        html.append(String.format("<div class='legend' id='legend'></div><div style='font-size:12px;color:#666'>%d rows, %d bars · Ctrl + wheel to zoom, drag or Shift + wheel to pan</div>",
+            recorder.getRowCount(), recorder.getBarCount()));
+        html.append("<div id='viewport'><canvas id='canvas'></canvas><div id='spacer'></div></div>");
+        html.append("<div id='tooltip'></div>");
+        html.append("<script type='application/json' id='waterfall-data'>").append(payload).append("</script>");
+        html.append("<script>").append(SCRIPT).append("</script>");
+        html.append("</body></html>");
+        return html.toString();
+    }
+    
+    private static String escape(String text) {
+        return String.valueOf(text).replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+    
+    private static final String SCRIPT = String.join("\n",
+        "(function() {",
+        "  var ROW = 18, LABEL = 320, AXIS = 22;",
+        "  var NAMES = ['DNS', 'Connect', 'Request (TTFB)', 'Response', 'DOM processing', 'Load', 'Resource'];",
+        "  var COLORS = ['#26a69a', '#ffa726', '#42a5f5', '#5c6bc0', '#ab47bc', '#ef5350', '#90a4ae'];",
+        "  var data = JSON.parse(document.getElementById('waterfall-data').textContent);",
+        "  function decode(b64, Type) {",
+        "    var s = atob(b64), bytes = new Uint8Array(s.length);",
+        "    for (var i = 0; i < s.length; i++) bytes[i] = s.charCodeAt(i);",
+        "    return new Type(bytes.buffer);",
+        "  }",
+        "  var rows = decode(data.rows, Int32Array), starts = decode(data.starts, Float32Array);",
+        "  var durations = decode(data.durations, Float32Array), categories = decode(data.categories, Uint8Array);",
+        "  var labels = data.labels, rowCount = labels.length, barCount = rows.length;",
+        "",
+        "  // Bars are appended row by row, so each row is a contiguous range",
+        "  var firstBar = new Int32Array(rowCount + 1).fill(barCount);",
+        "  for (var b = barCount - 1; b >= 0; b--) firstBar[rows[b]] = b;",
+        "  for (var r = rowCount - 1; r >= 0; r--) if (firstBar[r] > firstBar[r + 1]) firstBar[r] = firstBar[r + 1];",
+        "",
+        "  var minT = Infinity, maxT = -Infinity;",
+        "  for (var i = 0; i < barCount; i++) {",
+        "    minT = Math.min(minT, starts[i]); maxT = Math.max(maxT, starts[i] + durations[i]);",
+        "  }",
+        "  if (!isFinite(minT)) { minT = 0; maxT = 1; }",
+        "",
+        "  var viewport = document.getElementById('viewport'), canvas = document.getElementById('canvas');",
+        "  var ctx = canvas.getContext('2d'), tooltip = document.getElementById('tooltip');",
+        "  document.getElementById('spacer').style.height = (rowCount * ROW + AXIS) + 'px';",
+        "  document.getElementById('legend').innerHTML = NAMES.map(function(n, i) {",
+        "    return '<span><i style=\"background:' + COLORS[i] + '\"></i>' + n + '</span>';",
+        "  }).join('');",
+        "",
+        "  var viewStart = minT, viewEnd = maxT + (maxT - minT) * 0.02 + 1, width = 0, height = 0, pending = false;",
+        "",
+        "  function resize() {",
+        "    var ratio = window.devicePixelRatio || 1;",
+        "    width = viewport.clientWidth; height = viewport.clientHeight;",
+        "    canvas.width = width * ratio; canvas.height = height * ratio;",
+        "    canvas.style.width = width + 'px'; canvas.style.height = height + 'px';",
+        "    // The sticky canvas takes space in the flow; pull the spacer up so scroll height stays exact",
+        "    document.getElementById('spacer').style.marginTop = (-height) + 'px';",
+        "    ctx.setTransform(ratio, 0, 0, ratio, 0, 0);",
+        "    schedule();",
+        "  }",
+        "",
+        "  function schedule() {",
+        "    if (!pending) { pending = true; requestAnimationFrame(draw); }",
+        "  }",
+        "",
+        "  function x(t) { return LABEL + (t - viewStart) * (width - LABEL) / (viewEnd - viewStart); }",
+        "",
+        "  function draw() {",
+        "    pending = false;",
+        "    ctx.clearRect(0, 0, width, height);",
+        "    var top = viewport.scrollTop;",
+        "    var first = Math.max(0, Math.floor(top / ROW)), last = Math.min(rowCount, Math.ceil((top + height - AXIS) / ROW));",
+        "",
+        "    ctx.font = '11px Segoe UI, sans-serif';",
+        "    ctx.textBaseline = 'middle';",
+        "    for (var r = first; r < last; r++) {",
+        "      var y = AXIS + r * ROW - top;",
+        "      if (r % 2) { ctx.fillStyle = '#f7f9fb'; ctx.fillRect(0, y, width, ROW); }",
+        "      ctx.fillStyle = '#333';",
+        "      ctx.save(); ctx.beginPath(); ctx.rect(0, y, LABEL - 6, ROW); ctx.clip();",
+        "      ctx.fillText(labels[r], 4, y + ROW / 2);",
+        "      ctx.restore();",
+        "",
+        "      for (var b = firstBar[r]; b < firstBar[r + 1]; b++) {",
+        "        var x0 = x(starts[b]), x1 = x(starts[b] + durations[b]);",
+        "        if (x1 < LABEL || x0 > width) continue;",
+        "        ctx.fillStyle = COLORS[categories[b]] || '#999';",
+        "        ctx.fillRect(Math.max(LABEL, x0), y + 3, Math.max(1, Math.min(width, x1) - Math.max(LABEL, x0)), ROW - 6);",
+        "      }",
+        "    }",
+        "",
+        "    // Time axis",
+        "    ctx.fillStyle = 'white'; ctx.fillRect(0, 0, width, AXIS);",
+        "    ctx.strokeStyle = '#dde3ea'; ctx.beginPath(); ctx.moveTo(0, AXIS - 0.5); ctx.lineTo(width, AXIS - 0.5); ctx.stroke();",
+        "    var span = viewEnd - viewStart, step = Math.pow(10, Math.floor(Math.log10(span / 8)));",
+        "    if (span / step > 16) step *= 5; else if (span / step > 8) step *= 2;",
+        "    ctx.fillStyle = '#666';",
+        "    for (var t = Math.ceil(viewStart / step) * step; t < viewEnd; t += step) {",
+        "      var tx = x(t);",
+        "      if (tx < LABEL) continue;",
+        "      ctx.fillRect(tx, AXIS - 5, 1, 5);",
+        "      ctx.fillText(t >= 1000 ? (t / 1000).toFixed(step >= 1000 ? 0 : 2) + ' s' : Math.round(t) + ' ms', tx + 3, AXIS / 2);",
+        "    }",
+        "  }",
+        "",
+        "  viewport.addEventListener('scroll', schedule);",
+        "  window.addEventListener('resize', resize);",
+        "",
+        "  viewport.addEventListener('wheel', function(e) {",
+        "    var rect = canvas.getBoundingClientRect(), span = viewEnd - viewStart;",
+        "    if (e.ctrlKey) {",
+        "      e.preventDefault();",
+        "      var pivot = viewStart + Math.max(0, e.clientX - rect.left - LABEL) / (width - LABEL) * span;",
+        "      var factor = e.deltaY > 0 ? 1.2 : 1 / 1.2;",
+        "      viewStart = pivot - (pivot - viewStart) * factor; viewEnd = pivot + (viewEnd - pivot) * factor;",
+        "      schedule();",
+        "    } else if (e.shiftKey) {",
+        "      e.preventDefault();",
+        "      var shift = (e.deltaY || e.deltaX) / (width - LABEL) * span;",
+        "      viewStart += shift; viewEnd += shift;",
+        "      schedule();",
+        "    }",
+        "  }, {passive: false});",
+        "",
+        "  var dragX = null;",
+        "  canvas.addEventListener('mousedown', function(e) { dragX = e.clientX; });",
+        "  window.addEventListener('mouseup', function() { dragX = null; });",
+        "  canvas.addEventListener('mousemove', function(e) {",
+        "    var rect = canvas.getBoundingClientRect();",
+        "    if (dragX !== null) {",
+        "      var shift = (dragX - e.clientX) / (width - LABEL) * (viewEnd - viewStart);",
+        "      viewStart += shift; viewEnd += shift; dragX = e.clientX;",
+        "      tooltip.style.display = 'none';",
+        "      schedule();",
+        "      return;",
+        "    }",
+        "    var row = Math.floor((e.clientY - rect.top - AXIS + viewport.scrollTop) / ROW);",
+        "    var t = viewStart + (e.clientX - rect.left - LABEL) / (width - LABEL) * (viewEnd - viewStart);",
+        "    var hit = -1;",
+        "    if (row >= 0 && row < rowCount && e.clientY - rect.top > AXIS) {",
+        "      for (var b = firstBar[row]; b < firstBar[row + 1]; b++) {",
+        "        if (t >= starts[b] && t <= starts[b] + Math.max(durations[b], (viewEnd - viewStart) / width)) { hit = b; break; }",
+        "      }",
+        "    }",
+        "    if (hit < 0) { tooltip.style.display = 'none'; return; }",
+        "    tooltip.textContent = labels[row] + ' · ' + NAMES[categories[hit]] + ': ' + durations[hit].toFixed(1) +",
+        "      ' ms @ ' + starts[hit].toFixed(1) + ' ms';",
+        "    tooltip.style.left = (e.clientX + 12) + 'px'; tooltip.style.top = (e.clientY + 12) + 'px';",
+        "    tooltip.style.display = 'block';",
+        "  });",
+        "  canvas.addEventListener('mouseleave', function() { tooltip.style.display = 'none'; });",
+        "",
+        "  resize();",
+        "})();");
+}